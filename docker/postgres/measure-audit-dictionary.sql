@@ -0,0 +1,56 @@
+-- Bytes per audit_logs row with strings inline versus dictionary ids, see AuditDictionary.
+-- Builds both layouts from the same generated rows in temporary tables, nothing else is touched:
+--   psql -U library_service -d library_db -f docker/postgres/measure-audit-dictionary.sql
+\set rows 1000000
+
+create temporary table audit_logs_inline as
+select
+    g as id,
+    gen_random_uuid() as event_id,
+    (array['USER_LOGIN', 'USER_LOGOUT', 'ARTICLE_CREATE', 'ARTICLE_UPDATE', 'ARTICLE_DELETE', 'USER_UPDATE'])[1 + g % 6]::varchar(255) as action,
+    (array['USER', 'ARTICLE'])[1 + g % 2]::varchar(255) as entity_type,
+    (g % 50000)::bigint as entity_id,
+    ('user' || (g % 5000))::varchar(255) as username,
+    (array['Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36',
+           'Mozilla/5.0 (Macintosh; Intel Mac OS X 14_4) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.4 Safari/605.1.15',
+           'PostmanRuntime/7.37.0'])[1 + g % 3]::varchar(255) as user_agent,
+    ('10.0.' || (g % 256) || '.' || (g % 200))::varchar(255) as ip_address,
+    timestamp '2025-05-01' + g * interval '1 second' as timestamp,
+    g % 20 <> 0 as success,
+    case when g % 20 = 0 then 'Bad credentials' end::varchar(2000) as error_message,
+    null::jsonb as changes,
+    (g % 10000)::bigint as duration_micros,
+    g % 7 as statement_count,
+    (g % 4000)::bigint as request_bytes,
+    (g % 9000)::bigint as response_bytes
+from generate_series(1, :rows) g;
+
+create temporary table audit_dictionary_measure as
+select row_number() over ()::integer as id, dimension, value
+from (
+    select distinct 1 as dimension, action as value from audit_logs_inline
+    union select distinct 2, entity_type from audit_logs_inline
+    union select distinct 3, username from audit_logs_inline
+    union select distinct 4, user_agent from audit_logs_inline
+) v;
+
+create temporary table audit_logs_encoded as
+select l.id, l.event_id, a.id as action_id, e.id as entity_type_id, l.entity_id, u.id as username_id,
+       ua.id as user_agent_id, l.ip_address, l.timestamp, l.success, l.error_message, l.changes,
+       l.duration_micros, l.statement_count, l.request_bytes, l.response_bytes
+from audit_logs_inline l
+join audit_dictionary_measure a on a.dimension = 1 and a.value = l.action
+join audit_dictionary_measure e on e.dimension = 2 and e.value = l.entity_type
+join audit_dictionary_measure u on u.dimension = 3 and u.value = l.username
+join audit_dictionary_measure ua on ua.dimension = 4 and ua.value = l.user_agent;
+
+vacuum analyze audit_logs_inline;
+vacuum analyze audit_logs_encoded;
+
+select 'inline' as layout, avg(pg_column_size(l.*))::numeric(10, 1) as avg_row_bytes,
+       pg_size_pretty(pg_total_relation_size('audit_logs_inline')) as table_size
+from audit_logs_inline l
+union all
+select 'dictionary', avg(pg_column_size(l.*))::numeric(10, 1),
+       pg_size_pretty(pg_total_relation_size('audit_logs_encoded') + pg_total_relation_size('audit_dictionary_measure'))
+from audit_logs_encoded l;
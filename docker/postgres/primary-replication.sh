@@ -0,0 +1,4 @@
+#!/bin/sh
+# Lets db-replica in docker-compose.yml stream WAL from this primary
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
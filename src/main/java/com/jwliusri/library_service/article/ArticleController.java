@@ -2,6 +2,7 @@ package com.jwliusri.library_service.article;
 
 import org.springframework.web.bind.annotation.RestController;
 
+import com.jwliusri.library_service.audit.AuditId;
 import com.jwliusri.library_service.audit.Auditable;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -59,7 +60,7 @@ public class ArticleController {
     @Auditable(action = "UPDATE_ARTICLE", entityType = "ARTICLE")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'EDITOR', 'CONTRIBUTOR')")
     @Operation(summary = "Update an article")
-    public ArticleResponseDto updateArticle(@PathVariable Long id, @Valid @RequestBody ArticleRequestDto request, Authentication auth) {
+    public ArticleResponseDto updateArticle(@AuditId @PathVariable Long id, @Valid @RequestBody ArticleRequestDto request, Authentication auth) {
         return articleService.updateArticle(id, request, auth);
     }
 
@@ -67,7 +68,7 @@ public class ArticleController {
     @Auditable(action = "DELETE_ARTICLE", entityType = "ARTICLE")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'EDITOR')")
     @Operation(summary = "Delete an article")
-    public void deleteArticle(@PathVariable Long id, Authentication auth) {
+    public void deleteArticle(@AuditId @PathVariable Long id, Authentication auth) {
         articleService.deleteArticle(id, auth);
     }
 
@@ -2,9 +2,12 @@ package com.jwliusri.library_service.article;
 
 import java.time.LocalDateTime;
 
+import com.jwliusri.library_service.audit.AuditEntity;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+@AuditEntity
 @Data
 @AllArgsConstructor
 public class ArticleResponseDto {
@@ -1,15 +1,21 @@
 package com.jwliusri.library_service.article;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import com.jwliusri.library_service.user.UserService;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.jwliusri.library_service.audit.AuditChanges;
+import com.jwliusri.library_service.config.HedgedReadExecutor;
 import com.jwliusri.library_service.user.RoleEnum;
 import com.jwliusri.library_service.user.User;
 
@@ -20,24 +26,35 @@ public class ArticleService {
 
     private final ArticleRepository articleRepository;
 
-    ArticleService(ArticleRepository articleRepository, UserService userService) {
+    private final ObjectProvider<HedgedReadExecutor> hedgedReads;
+
+    private static final String FIND_BY_ID = "select a.id, a.title, a.content, a.author_id, u.full_name, a.is_public, a.created_at, a.updated_at "
+            + "from articles a join users u on u.id = a.author_id where a.id = ?";
+
+    ArticleService(ArticleRepository articleRepository, UserService userService, ObjectProvider<HedgedReadExecutor> hedgedReads) {
         this.articleRepository = articleRepository;
         this.userService = userService;
+        this.hedgedReads = hedgedReads;
     }
 
+    // Read-only transactions run on the read replica when one is configured, see DataSourceConfig
+    @Transactional(readOnly = true)
     public List<ArticleResponseDto> getAllArticles() {
         return articleRepository.findAll().stream().map(this::mapToResponse).toList();
     }
 
+    @Transactional(readOnly = true)
     public List<ArticleResponseDto> getAllPublicOrOwnedArticles(User authUser) {
         return articleRepository.findAllPublicOrAuthored(authUser.getId()).stream().map(this::mapToResponse).toList();
     }
 
+    @Transactional(readOnly = true)
     public List<ArticleResponseDto> getAllPublicOrOwnedArticles(Authentication auth) {
         User authUser = userService.getAuthUser(auth);
         return getAllPublicOrOwnedArticles(authUser);
     }
 
+    @Transactional(readOnly = true)
     public List<ArticleResponseDto> getAllArticlesByUserAccess(Authentication auth) {
         User authUser = userService.getAuthUser(auth);
 
@@ -49,9 +66,10 @@ public class ArticleService {
         return getAllArticles();
     }
 
+    @Transactional(readOnly = true)
     public ArticleResponseDto getArticleById(Long id, Authentication auth) {
         User authUser = userService.getAuthUser(auth);
-        Article article = articleRepository.findById(id)
+        ArticleResponseDto article = findById(id)
             .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "Article not found"));
 
         Set<RoleEnum> limitedRoles = Set.of(RoleEnum.ROLE_VIEWER, RoleEnum.ROLE_CONTRIBUTOR); 
@@ -59,10 +77,28 @@ public class ArticleService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You don't have permission to view this article");
         }
 
-        return mapToResponse(article);
+        return article;
 
     }
 
+    // One row straight from the replica, hedged when that's enabled, instead of the entity and its author
+    private Optional<ArticleResponseDto> findById(Long id) {
+        HedgedReadExecutor hedged = hedgedReads.getIfAvailable();
+        if (hedged == null) {
+            return articleRepository.findById(id).map(this::mapToResponse);
+        }
+        return hedged.query("article.get", FIND_BY_ID, rs -> !rs.next() ? Optional.<ArticleResponseDto>empty()
+                : Optional.of(new ArticleResponseDto(
+                    rs.getLong("id"),
+                    rs.getString("title"),
+                    rs.getString("content"),
+                    rs.getLong("author_id"),
+                    rs.getString("full_name"),
+                    rs.getBoolean("is_public"),
+                    rs.getObject("created_at", LocalDateTime.class),
+                    rs.getObject("updated_at", LocalDateTime.class))), id);
+    }
+
     public ArticleResponseDto createArticle(ArticleRequestDto request, Authentication auth) {
         User author = userService.getAuthUser(auth);
 
@@ -87,12 +123,15 @@ public class ArticleService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You don't have permission to edit this article");
         }
 
+        ArticleResponseDto before = mapToResponse(article);
         article.setTitle(request.getTitle());
         article.setContent(request.getContent());
         article.setPublic(request.isPublic());
 
         article = articleRepository.save(article);
-        return mapToResponse(article);
+        ArticleResponseDto after = mapToResponse(article);
+        AuditChanges.record(before, after);
+        return after;
     }
 
     public void deleteArticle(Long id, Authentication auth) {
@@ -1,56 +1,102 @@
 package com.jwliusri.library_service.audit;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import com.jwliusri.library_service.article.ArticleResponseDto;
-import com.jwliusri.library_service.security.auth.LoginResponseDto;
-import com.jwliusri.library_service.security.auth.ValidateResponseDto;
-import com.jwliusri.library_service.user.UserResponseDto;
-
 import jakarta.servlet.http.HttpServletRequest;
 
 @Aspect
 @Component
 public class AuditAspect {
 
-    private final AuditLogRepository auditLogRepository;
+    private static final int NO_AUDIT_ID = -1;
+    private static final String ANONYMOUS = "ANONYMOUS";
 
-    AuditAspect(AuditLogRepository auditLogRepository) {
-        this.auditLogRepository = auditLogRepository;
-    }
+    private final AuditLogWriter auditLogWriter;
+
+    private final AuditEntityIdRegistry entityIdRegistry;
+
+    private final AuditSampler auditSampler;
+
+    private final AuditMetrics auditMetrics;
+
+    private final AuditStatementCounter statementCounter;
 
-    @AfterReturning(pointcut = "@annotation(auditable)", returning = "result")
-    public void auditSuccessfulOperation(JoinPoint joinPoint, Auditable auditable, Object result) {
-        createAuditLog(joinPoint, auditable, result, true, null);
+    private final AuditLatencyHistograms latencyHistograms;
+
+    private final AuditTail auditTail;
+
+    private final Map<Method, Integer> auditIdIndexes = new ConcurrentHashMap<>();
+
+    AuditAspect(AuditLogWriter auditLogWriter, AuditEntityIdRegistry entityIdRegistry, AuditSampler auditSampler,
+            AuditMetrics auditMetrics, AuditStatementCounter statementCounter, AuditLatencyHistograms latencyHistograms,
+            AuditTail auditTail) {
+        this.auditLogWriter = auditLogWriter;
+        this.entityIdRegistry = entityIdRegistry;
+        this.auditSampler = auditSampler;
+        this.auditMetrics = auditMetrics;
+        this.statementCounter = statementCounter;
+        this.latencyHistograms = latencyHistograms;
+        this.auditTail = auditTail;
     }
 
-    @AfterThrowing(pointcut = "@annotation(auditable)", throwing = "ex")
-    public void auditFailedOperation(JoinPoint joinPoint, Auditable auditable, Exception ex) {
-        createAuditLog(joinPoint, auditable, null, false, ex.getMessage());
+    @Around("@annotation(auditable)")
+    public Object audit(ProceedingJoinPoint joinPoint, Auditable auditable) throws Throwable {
+        // Drops changes recorded by a service call that wasn't audited
+        AuditChanges.take();
+        long statementsBefore = statementCounter.count();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Exception ex) {
+            createAuditLog(joinPoint, auditable, null, false, ex.getMessage(), start, statementsBefore);
+            throw ex;
+        }
+        createAuditLog(joinPoint, auditable, result, true, null, start, statementsBefore);
+        return result;
     }
 
-    private void createAuditLog(JoinPoint joinPoint, Auditable auditable, Object result, boolean success, String error) {
+    private void createAuditLog(JoinPoint joinPoint, Auditable auditable, Object result, boolean success, String error,
+            long start, long statementsBefore) {
+        long durationMicros = (System.nanoTime() - start) / 1000;
+        int statementCount = (int) (statementCounter.count() - statementsBefore);
+        String changes = AuditChanges.take();
         HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
                 .getRequest();
 
         String username = getCurrentUsername();
+        String ipAddress = request.getRemoteAddr();
+
+        auditMetrics.record(auditable.action(), success, ANONYMOUS.equals(username) ? null : username, ipAddress);
+        latencyHistograms.record(auditable.action(), durationMicros);
+
+        // Anonymous calls such as login are rate capped per client address instead
+        if (!auditSampler.shouldRecord(auditable, ANONYMOUS.equals(username) ? ipAddress : username, success)) {
+            return;
+        }
+
         String userAgent = request.getHeader("User-Agent");
         // String deviceInfo = userAgentParser.parse(userAgent).toString();
-        String ipAddress = request.getRemoteAddr();
 
         AuditLog log = AuditLog.builder()
+                .eventId(UUID.randomUUID())
                 .action(auditable.action())
                 .entityType(auditable.entityType())
                 .username(username)
@@ -58,52 +104,72 @@ public class AuditAspect {
                 .ipAddress(ipAddress)
                 .timestamp(LocalDateTime.now())
                 .success(success)
-                .errorMessage(error)
+                .errorMessage(AuditLogWriter.truncate(error, AuditLog.MAX_ERROR_MESSAGE_LENGTH))
+                .changes(changes)
+                .durationMicros(durationMicros)
+                .statementCount(statementCount)
                 .build();
 
         // Extract entity ID from method arguments or result
         extractEntityId(joinPoint, auditable, result).ifPresent(log::setEntityId);
 
-        auditLogRepository.save(log);
+        auditTail.publish(log);
+
+        // Payload sizes are only known once the response is written
+        if (!AuditPayloadFilter.defer(request, log)) {
+            auditLogWriter.submit(log);
+        }
     }
 
     public Optional<Long> extractEntityId(JoinPoint joinPoint, Auditable auditable, Object result) {
-        // First try to get ID from result if it's a response DTO
-        if (result != null && result instanceof ArticleResponseDto) {
-            return Optional.of(((ArticleResponseDto) result).getId());
+        // First try to get ID from result if it's an audited response DTO
+        if (entityIdRegistry.isAuditEntity(result)) {
+            return Optional.ofNullable(entityIdRegistry.getId(result));
         }
-        if (result != null && result instanceof UserResponseDto) {
-            return Optional.of(((UserResponseDto) result).getId());
+
+        // Then from the @AuditId parameter, or the first id or entity argument
+        Object[] args = joinPoint.getArgs();
+        int index = auditIdIndex(joinPoint);
+        if (index >= 0 && index < args.length) {
+            return Optional.ofNullable(toEntityId(args[index]));
         }
-        if (result != null && result instanceof LoginResponseDto) {
-            return Optional.of(((LoginResponseDto) result).getId());
+        for (Object arg : args) {
+            Long id = toEntityId(arg);
+            if (id != null) {
+                return Optional.of(id);
+            }
         }
-        if (result != null && result instanceof ValidateResponseDto) {
-            return Optional.of(((ValidateResponseDto) result).getId());
+        return Optional.empty();
+    }
+
+    private Long toEntityId(Object arg) {
+        if (arg instanceof Long id) {
+            return id;
         }
+        return entityIdRegistry.getId(arg);
+    }
 
-        // Then try to get from method arguments
-        return Arrays.stream(joinPoint.getArgs())
-                .filter(arg -> arg instanceof Long || 
-                             (arg != null && arg.getClass().isAnnotationPresent(AuditEntity.class)))
-                .findFirst()
-                .map(arg -> {
-                    if (arg instanceof Long) {
-                        return (Long) arg;
-                    } else {
-                        try {
-                            return (Long) arg.getClass().getMethod("getId").invoke(arg);
-                        } catch (Exception e) {
-                            return null;
-                        }
+    private int auditIdIndex(JoinPoint joinPoint) {
+        if (!(joinPoint.getSignature() instanceof MethodSignature signature)) {
+            return NO_AUDIT_ID;
+        }
+        return auditIdIndexes.computeIfAbsent(signature.getMethod(), method -> {
+            Annotation[][] annotations = method.getParameterAnnotations();
+            for (int i = 0; i < annotations.length; i++) {
+                for (Annotation annotation : annotations[i]) {
+                    if (annotation instanceof AuditId) {
+                        return i;
                     }
-                });
+                }
+            }
+            return NO_AUDIT_ID;
+        });
     }
 
     public String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
-            return "ANONYMOUS";
+            return ANONYMOUS;
         }
         return authentication.getName();
     }
@@ -0,0 +1,101 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Carries the field changes of an audited update from the service to {@link AuditAspect}.
+ * Services pass the state they already loaded before and after the update, so no extra read
+ * is needed; the aspect attaches the diff to the audit log of the current call.
+ * <p>
+ * The diff is compact JSON, {@code {"title":["old","new"]}}. Long values are truncated, and
+ * when the whole diff would still be too large only the changed field names are kept.
+ * <p>
+ * Bulk updates don't have a before and after, {@link #recordBulk} records the requested values with
+ * the count and ids of the changed entities, {@code {"role":"ROLE_EDITOR","count":2,"ids":[1,2]}}.
+ * The ids are the point of that record, so they are never cut.
+ */
+public final class AuditChanges {
+
+    static final int MAX_VALUE_LENGTH = 200;
+    static final int MAX_LENGTH = 4000;
+
+    // Change on every update, they would only add noise
+    private static final Set<String> IGNORED_FIELDS = Set.of("updatedAt");
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {};
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private AuditChanges() {
+    }
+
+    public static void record(Object before, Object after) {
+        CURRENT.set(diff(before, after));
+    }
+
+    /** Records a bulk update, null values are left out. */
+    public static void recordBulk(Map<String, Object> values, Collection<Long> ids) {
+        CURRENT.set(bulk(values, ids));
+    }
+
+    /** Returns and clears the changes recorded on this thread. */
+    static String take() {
+        String changes = CURRENT.get();
+        CURRENT.remove();
+        return changes;
+    }
+
+    static String diff(Object before, Object after) {
+        Map<String, Object> beforeFields = MAPPER.convertValue(before, FIELDS);
+        Map<String, Object> afterFields = MAPPER.convertValue(after, FIELDS);
+        Map<String, List<Object>> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : afterFields.entrySet()) {
+            Object previous = beforeFields.get(field.getKey());
+            if (!IGNORED_FIELDS.contains(field.getKey()) && !Objects.equals(previous, field.getValue())) {
+                changes.put(field.getKey(), Arrays.asList(truncate(previous), truncate(field.getValue())));
+            }
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+        try {
+            String json = MAPPER.writeValueAsString(changes);
+            return json.length() <= MAX_LENGTH ? json : MAPPER.writeValueAsString(Map.of("fields", changes.keySet()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Audit changes can't be serialized", e);
+        }
+    }
+
+    static String bulk(Map<String, Object> values, Collection<Long> ids) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                changes.put(key, value);
+            }
+        });
+        changes.put("count", ids.size());
+        changes.put("ids", ids);
+        try {
+            return MAPPER.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Audit changes can't be serialized", e);
+        }
+    }
+
+    private static Object truncate(Object value) {
+        return value instanceof String text && text.length() > MAX_VALUE_LENGTH
+                ? text.substring(0, MAX_VALUE_LENGTH) + "..."
+                : value;
+    }
+}
@@ -0,0 +1,174 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps the repeated strings of an audit log (username, action, entity type, user agent) to
+ * integer ids in {@code audit_dictionary}, so {@code audit_logs} rows only carry four ints.
+ * <p>
+ * Both directions are cached in process. The cache is bounded by {@code audit.dictionary.cache-size}
+ * and simply starts over when full; decoded values come from the cache, so rehydrated logs share
+ * one String instance per value.
+ */
+@Component
+public class AuditDictionary {
+
+    enum Dimension {
+        USERNAME(1), ACTION(2), ENTITY_TYPE(3), USER_AGENT(4);
+
+        private final short code;
+
+        Dimension(int code) {
+            this.code = (short) code;
+        }
+    }
+
+    // Keeps the unique (dimension, value) index well below the btree entry size limit
+    static final int MAX_VALUE_LENGTH = 512;
+
+    private static final String GET_OR_CREATE_SQL = """
+            with inserted as (
+                insert into audit_dictionary (dimension, value) values (?, ?)
+                on conflict (dimension, value) do nothing
+                returning id)
+            select id from inserted
+            union all
+            select id from audit_dictionary where dimension = ? and value = ?""";
+
+    private record Key(Dimension dimension, String value) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int cacheSize;
+    private final ConcurrentHashMap<Key, Integer> ids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> values = new ConcurrentHashMap<>();
+
+    AuditDictionary(JdbcTemplate jdbcTemplate, @Value("${audit.dictionary.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheSize = cacheSize;
+    }
+
+    /** Sets the id fields of a log from its strings, creating dictionary entries as needed. */
+    public AuditLog encode(AuditLog auditLog) {
+        auditLog.setUsernameId(idOf(Dimension.USERNAME, auditLog.getUsername()));
+        auditLog.setActionId(idOf(Dimension.ACTION, auditLog.getAction()));
+        auditLog.setEntityTypeId(idOf(Dimension.ENTITY_TYPE, auditLog.getEntityType()));
+        auditLog.setUserAgentId(idOf(Dimension.USER_AGENT, auditLog.getUserAgent()));
+        return auditLog;
+    }
+
+    /** Sets the string fields of a log from its ids. */
+    public AuditLog decode(AuditLog auditLog) {
+        auditLog.setUsername(valueOf(auditLog.getUsernameId()));
+        auditLog.setAction(valueOf(auditLog.getActionId()));
+        auditLog.setEntityType(valueOf(auditLog.getEntityTypeId()));
+        auditLog.setUserAgent(valueOf(auditLog.getUserAgentId()));
+        return auditLog;
+    }
+
+    /** Decodes a page of logs, loading all uncached ids in one query. */
+    public <T extends Collection<AuditLog>> T decodeAll(T auditLogs) {
+        List<Integer> missing = new ArrayList<>();
+        for (AuditLog auditLog : auditLogs) {
+            addMissing(missing, auditLog.getUsernameId());
+            addMissing(missing, auditLog.getActionId());
+            addMissing(missing, auditLog.getEntityTypeId());
+            addMissing(missing, auditLog.getUserAgentId());
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query("select id, value from audit_dictionary where id = any(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", missing.stream().distinct().toArray())),
+                    rs -> {
+                        cacheValue(rs.getInt("id"), rs.getString("value"));
+                    });
+        }
+        auditLogs.forEach(this::decode);
+        return auditLogs;
+    }
+
+    /** The id of an existing value, for filters. Never creates an entry. */
+    Optional<Integer> findId(Dimension dimension, String value) {
+        Key key = new Key(dimension, truncate(value));
+        Integer id = ids.get(key);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        List<Integer> found = jdbcTemplate.queryForList(
+                "select id from audit_dictionary where dimension = ? and value = ?", Integer.class, dimension.code, key.value());
+        found.forEach(i -> cache(key, i));
+        return found.stream().findFirst();
+    }
+
+    Integer idOf(Dimension dimension, String value) {
+        if (value == null) {
+            return null;
+        }
+        Key key = new Key(dimension, truncate(value));
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        List<Integer> found = jdbcTemplate.queryForList(GET_OR_CREATE_SQL, Integer.class,
+                dimension.code, key.value(), dimension.code, key.value());
+        if (found.isEmpty()) {
+            // A concurrent insert committed after this statement's snapshot, it is visible now
+            found = jdbcTemplate.queryForList(
+                    "select id from audit_dictionary where dimension = ? and value = ?", Integer.class, dimension.code, key.value());
+        }
+        id = found.get(0);
+        cache(key, id);
+        return id;
+    }
+
+    String valueOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String value = values.get(id);
+        if (value != null) {
+            return value;
+        }
+        value = jdbcTemplate.queryForObject("select value from audit_dictionary where id = ?", String.class, id);
+        cacheValue(id, value);
+        return values.getOrDefault(id, value);
+    }
+
+    int cachedCount() {
+        return values.size();
+    }
+
+    private void addMissing(List<Integer> missing, Integer id) {
+        if (id != null && !values.containsKey(id)) {
+            missing.add(id);
+        }
+    }
+
+    private void cache(Key key, int id) {
+        evictIfFull();
+        ids.put(key, id);
+        values.putIfAbsent(id, key.value());
+    }
+
+    private void cacheValue(int id, String value) {
+        evictIfFull();
+        values.putIfAbsent(id, value);
+    }
+
+    private void evictIfFull() {
+        if (values.size() >= cacheSize || ids.size() >= cacheSize) {
+            ids.clear();
+            values.clear();
+        }
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_VALUE_LENGTH ? value : value.substring(0, MAX_VALUE_LENGTH);
+    }
+}
@@ -0,0 +1,97 @@
+package com.jwliusri.library_service.audit;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-class {@code getId()} accessors for {@link AuditEntity} types. Accessors are
+ * {@link LambdaMetafactory} generated functions, so reading an id costs a plain interface call
+ * instead of a reflective lookup and invoke. {@link #init()} builds them for every annotated type
+ * of the application up front, other classes are resolved once on first use.
+ */
+@Component
+public class AuditEntityIdRegistry {
+
+    private static final String BASE_PACKAGE = "com.jwliusri.library_service";
+    private static final Function<Object, Object> NO_ID = entity -> null;
+
+    private final ClassValue<Function<Object, Object>> accessors = new ClassValue<>() {
+        @Override
+        protected Function<Object, Object> computeValue(Class<?> type) {
+            return type.isAnnotationPresent(AuditEntity.class) ? createAccessor(type) : NO_ID;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(AuditEntity.class));
+        for (BeanDefinition candidate : scanner.findCandidateComponents(BASE_PACKAGE)) {
+            accessors.get(ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader()));
+        }
+    }
+
+    public boolean isAuditEntity(Object value) {
+        return value != null && accessors.get(value.getClass()) != NO_ID;
+    }
+
+    /** The id of an {@link AuditEntity}, null for anything else. */
+    public Long getId(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object id = accessors.get(value.getClass()).apply(value);
+        return id instanceof Number number ? number.longValue() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createAccessor(Class<?> type) {
+        Method getter;
+        try {
+            getter = type.getMethod("getId");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("@AuditEntity " + type.getName() + " has no public getId()", e);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(getter);
+            // Lambdas can only be spun for types the generated class can see
+            if (Modifier.isPublic(type.getModifiers()) && Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(getter.getReturnType().isPrimitive()
+                                ? MethodType.methodType(getter.getReturnType()).wrap().returnType()
+                                : getter.getReturnType(), type));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return entity -> {
+                try {
+                    return generic.invokeExact(entity);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Failed to read id of " + type.getName(), e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create id accessor for " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of audited calls per action, as one HdrHistogram per minute for the last
+ * {@code audit.performance.window-minutes}. Calls are recorded wait-free into a {@link Recorder};
+ * its interval histograms are folded into the current minute whenever the minute rolls over
+ * or a report is taken. Minute histograms merge losslessly, so any window is a sum of minutes.
+ */
+@Component
+public class AuditLatencyHistograms {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final int windowMinutes;
+    private final Map<String, MinuteRing> actions = new ConcurrentHashMap<>();
+
+    AuditLatencyHistograms(@Value("${audit.performance.window-minutes:60}") int windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+
+    public void record(String action, long durationMicros) {
+        record(action, durationMicros, System.currentTimeMillis());
+    }
+
+    void record(String action, long durationMicros, long nowMillis) {
+        actions.computeIfAbsent(action, a -> new MinuteRing(windowMinutes, nowMillis / MINUTE_MILLIS))
+                .record(Math.max(durationMicros, 0), nowMillis / MINUTE_MILLIS);
+    }
+
+    /** Latency percentiles per action over the last {@code minutes}, including the current one. */
+    public List<AuditPerformanceDto> percentiles(int minutes) {
+        return percentiles(minutes, System.currentTimeMillis());
+    }
+
+    List<AuditPerformanceDto> percentiles(int minutes, long nowMillis) {
+        int window = Math.clamp(minutes, 1, windowMinutes);
+        List<AuditPerformanceDto> result = new ArrayList<>();
+        actions.forEach((action, ring) -> {
+            Histogram merged = ring.merge(window, nowMillis / MINUTE_MILLIS);
+            if (merged.getTotalCount() > 0) {
+                result.add(new AuditPerformanceDto(action, merged.getTotalCount(),
+                        millis(merged.getValueAtPercentile(50)),
+                        millis(merged.getValueAtPercentile(95)),
+                        millis(merged.getValueAtPercentile(99)),
+                        millis(merged.getMaxValue())));
+            }
+        });
+        result.sort(Comparator.comparing(AuditPerformanceDto::getAction));
+        return result;
+    }
+
+    int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class MinuteRing {
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram[] minutes;
+        private final long[] minuteOf;
+        private volatile long currentMinute;
+        private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram interval;
+
+        MinuteRing(int size, long minute) {
+            this.minutes = new Histogram[size];
+            this.minuteOf = new long[size];
+            this.currentMinute = minute;
+            Arrays.fill(minuteOf, -1);
+        }
+
+        void record(long micros, long minute) {
+            if (minute != currentMinute) {
+                synchronized (this) {
+                    roll(minute);
+                }
+            }
+            recorder.recordValue(micros);
+        }
+
+        synchronized Histogram merge(int window, long minute) {
+            roll(minute);
+            collect();
+            Histogram merged = current.copy();
+            for (int i = 1; i < window; i++) {
+                int index = slot(minute - i);
+                if (minuteOf[index] == minute - i) {
+                    merged.add(minutes[index]);
+                }
+            }
+            return merged;
+        }
+
+        // Callers hold the lock
+        private void roll(long minute) {
+            if (minute <= currentMinute) {
+                return;
+            }
+            collect();
+            int index = slot(currentMinute);
+            minutes[index] = current;
+            minuteOf[index] = currentMinute;
+            current = new Histogram(SIGNIFICANT_DIGITS);
+            currentMinute = minute;
+        }
+
+        private void collect() {
+            interval = recorder.getIntervalHistogram(interval);
+            current.add(interval);
+        }
+
+        private int slot(long minute) {
+            return (int) Math.floorMod(minute, (long) minutes.length);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.jwliusri.library_service.audit;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,30 +12,66 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// The table is range partitioned on timestamp, schema.sql owns its DDL and indexes
 @Table(name = "audit_logs")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class AuditLog {
+
+    // Column sizes of audit_logs, AuditLogWriter cuts longer values to fit
+    public static final int MAX_IP_ADDRESS_LENGTH = 255;
+    public static final int MAX_ERROR_MESSAGE_LENGTH = 2000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    
+
+    // Assigned when the event is captured so spool replays can be deduplicated, unique together with timestamp
+    private UUID eventId;
+
+    // Stored as audit_dictionary ids, AuditDictionary fills in the strings on read
+    @Transient
     private String action;
+    @Transient
     private String entityType;
     private Long entityId;
+    @Transient
     private String username;
+    @Transient
     private String userAgent;
     private String ipAddress;
     private LocalDateTime timestamp;
     private boolean success;
-    @Column(length = 2000)
+    @Column(length = MAX_ERROR_MESSAGE_LENGTH)
     private String errorMessage;
+
+    // Before/after values of the fields an update changed, see AuditChanges
+    @JsonRawValue
+    @Column(columnDefinition = "jsonb")
+    private String changes;
+
+    private Long durationMicros;
+    // Statements Hibernate prepared during the call, see AuditStatementCounter
+    private Integer statementCount;
+    // Body sizes, null when the call didn't go through AuditPayloadFilter
+    private Long requestBytes;
+    private Long responseBytes;
+
+    @JsonIgnore
+    private Integer actionId;
+    @JsonIgnore
+    private Integer entityTypeId;
+    @JsonIgnore
+    private Integer usernameId;
+    @JsonIgnore
+    private Integer userAgentId;
 }
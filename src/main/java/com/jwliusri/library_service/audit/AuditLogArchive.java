@@ -0,0 +1,153 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cold storage for audit logs past {@code audit.partition.retention-days}. Before
+ * {@link AuditLogPartitionManager} drops an expired partition, its rows are copied into
+ * {@link AuditSegment} files under {@code audit.archive.dir}, which {@link AuditLogService}
+ * then reads once the hot table has no more rows for a query.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.archive.enabled", havingValue = "true")
+public class AuditLogArchive {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final Comparator<AuditSegment> NEWEST_FIRST =
+            Comparator.comparing(AuditSegment::getMaxTimestamp).reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditDictionary auditDictionary;
+    private final Path directory;
+    private final int segmentRows;
+    private final int fetchSize;
+    // Replaced as a whole, so queries always see a consistent sorted list
+    private volatile List<AuditSegment> segments = List.of();
+
+    AuditLogArchive(
+            JdbcTemplate jdbcTemplate,
+            AuditDictionary auditDictionary,
+            @Value("${audit.archive.dir:audit-archive}") String directory,
+            @Value("${audit.archive.segment-rows:65536}") int segmentRows,
+            @Value("${audit.archive.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditDictionary = auditDictionary;
+        this.directory = Path.of(directory);
+        this.segmentRows = segmentRows;
+        this.fetchSize = fetchSize;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<AuditSegment> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                opened.add(AuditSegment.open(path));
+            }
+        }
+        opened.sort(NEWEST_FIRST);
+        segments = List.copyOf(opened);
+    }
+
+    /**
+     * Copies every row of a partition into segments. Segments left over from an earlier
+     * attempt for the same partition are replaced, so this can be retried safely.
+     */
+    public void archivePartition(String partition) {
+        removeSegments(partition);
+        List<AuditLog> chunk = new ArrayList<>(Math.min(segmentRows, 4096));
+        int[] segmentIndex = {0};
+        // Runs in a read-only transaction so the PostgreSQL driver streams with a server-side cursor
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("select * from " + partition + " order by timestamp, id")) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        chunk.add(auditDictionary.decode(AuditLogRowMapper.INSTANCE.mapRow(rs, chunk.size())));
+                        if (chunk.size() == segmentRows) {
+                            writeSegment(partition + "-" + segmentIndex[0]++, chunk);
+                            chunk.clear();
+                        }
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+        if (!chunk.isEmpty()) {
+            writeSegment(partition + "-" + segmentIndex[0], chunk);
+        }
+    }
+
+    /** Rows matching the filter after the keyset cursor, newest first. */
+    public List<AuditLog> query(AuditLogFilterDto filter, LocalDateTime cursorTimestamp, Long cursorId, int limit) {
+        List<AuditLog> rows = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            if (segment.mayContain(filter, cursorTimestamp)) {
+                segment.scan(filter, cursorTimestamp, cursorId, limit - rows.size(), rows);
+            }
+        }
+        return rows;
+    }
+
+    void writeSegment(String name, List<AuditLog> logs) {
+        AuditSegment segment;
+        try {
+            segment = AuditSegment.write(directory.resolve(name + SEGMENT_SUFFIX), logs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            List<AuditSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            updated.sort(NEWEST_FIRST);
+            segments = List.copyOf(updated);
+        }
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private synchronized void removeSegments(String partition) {
+        List<AuditSegment> kept = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            if (segment.getPath().getFileName().toString().startsWith(partition + "-")) {
+                try {
+                    Files.deleteIfExists(segment.getPath());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                kept.add(segment);
+            }
+        }
+        segments = List.copyOf(kept);
+    }
+}
@@ -2,13 +2,26 @@ package com.jwliusri.library_service.audit;
 
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springdoc.core.annotations.ParameterObject;
 
 @RestController
 @RequestMapping("api/audit-logs")
@@ -18,13 +31,72 @@ public class AuditLogController {
 
     private final AuditLogService auditLogService;
 
-    AuditLogController(AuditLogService auditLogService) {
+    private final AuditLogExporter auditLogExporter;
+
+    private final AuditLatencyHistograms latencyHistograms;
+
+    private final AuditTail auditTail;
+
+    AuditLogController(AuditLogService auditLogService, AuditLogExporter auditLogExporter,
+            AuditLatencyHistograms latencyHistograms, AuditTail auditTail) {
         this.auditLogService = auditLogService;
+        this.auditLogExporter = auditLogExporter;
+        this.latencyHistograms = latencyHistograms;
+        this.auditTail = auditTail;
     }
 
     @GetMapping
-    @Operation(summary = "Get all audit logs")
-    public List<AuditLog> getAllAuditLogs() {
-        return auditLogService.getAllAuditLogs();
+    @Operation(summary = "Get audit logs", description = "Newest first, filtered and paged by cursor. Pass nextCursor from the previous page as cursor.")
+    public AuditLogPageDto getAuditLogs(@ParameterObject AuditLogFilterDto filter) {
+        return auditLogService.getAuditLogs(filter);
+    }
+
+    @GetMapping("/entities/{entityType}/{entityId}")
+    @Operation(summary = "Get entity history", description = "Audit logs of one entity, newest first, with the changed fields of updates. Paged by cursor like the audit log list.")
+    public AuditLogPageDto getEntityHistory(
+            @PathVariable String entityType,
+            @PathVariable Long entityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getEntityHistory(entityType, entityId, cursor, size);
+    }
+
+    @GetMapping(value = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Tail audit logs", description = "Server-sent events of audit logs as they are recorded, optionally filtered. Reconnect with Last-Event-ID to resume.")
+    public SseEmitter tailAuditLogs(
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Boolean success,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return auditTail.subscribe(new AuditTail.Filter(action, username, success), lastEventId);
+    }
+
+    @GetMapping("/performance")
+    @Operation(summary = "Get audited call latency", description = "p50, p95, p99 and max latency in milliseconds per action over the last minutes, from in-memory histograms.")
+    public List<AuditPerformanceDto> getPerformance(@RequestParam(defaultValue = "15") int minutes) {
+        return latencyHistograms.percentiles(minutes);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export audit logs", description = "Streams every matching audit log, newest first, as NDJSON or CSV, optionally gzipped.")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @ParameterObject AuditLogFilterDto filter,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        AuditLogExporter.Format exportFormat = AuditLogExporter.Format.parse(format);
+        // Only exports get the long timeout, other async responses keep the default
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(auditLogExporter.getTimeoutMillis());
+        }
+        String filename = "audit-logs." + exportFormat.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == AuditLogExporter.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(out -> auditLogExporter.export(filter, exportFormat, gzip, out));
     }
 }
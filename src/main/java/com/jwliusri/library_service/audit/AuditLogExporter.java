@@ -0,0 +1,247 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwliusri.library_service.audit.AuditDictionary.Dimension;
+
+/**
+ * Streams every audit log matching a filter, newest first, to an output stream as NDJSON or CSV.
+ * <p>
+ * Rows are read in keyset chunks of {@code audit.export.chunk-rows}. Each chunk is read into memory in its
+ * own short read-only transaction with a server-side cursor ({@code audit.export.fetch-size}) and only
+ * written out after the connection is back in the pool, so a slow client never holds a connection and
+ * memory is bounded by one chunk. Output is flushed every {@code audit.export.flush-rows} rows. Archived
+ * logs follow once the table is exhausted.
+ */
+@Component
+public class AuditLogExporter {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER =
+            "id,eventId,timestamp,action,entityType,entityId,username,ipAddress,userAgent,success,errorMessage,changes,"
+            + "durationMicros,statementCount,requestBytes,responseBytes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditLogArchive archive;
+    private final AuditDictionary auditDictionary;
+
+    @Value("${audit.export.chunk-rows:5000}")
+    private int chunkRows;
+
+    @Value("${audit.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${audit.export.flush-rows:1000}")
+    private int flushRows;
+
+    @Value("${audit.export.timeout-minutes:60}")
+    private long timeoutMinutes;
+
+    AuditLogExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Optional<AuditLogArchive> archive, AuditDictionary auditDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.archive = archive.orElse(null);
+        this.auditDictionary = auditDictionary;
+    }
+
+    /** How long an export response may take, instead of the short default async request timeout. */
+    public long getTimeoutMillis() {
+        return TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    public void export(AuditLogFilterDto filter, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        ExportState state = new ExportState(writer, format);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        // Each chunk continues after the last exported row
+        List<AuditLog> chunk;
+        do {
+            chunk = readChunk(filter, state);
+            for (AuditLog row : chunk) {
+                state.write(row);
+            }
+        } while (chunk.size() == chunkRows);
+        if (archive != null) {
+            List<AuditLog> rows;
+            do {
+                rows = archive.query(filter, state.lastTimestamp, state.lastId, chunkRows);
+                for (AuditLog row : rows) {
+                    state.write(row);
+                }
+            } while (rows.size() == chunkRows);
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        out.flush();
+    }
+
+    private List<AuditLog> readChunk(AuditLogFilterDto filter, ExportState state) {
+        List<Object> params = new ArrayList<>();
+        String sql = "select * from audit_logs" + where(filter, state, params)
+                + " order by timestamp desc, id desc limit " + chunkRows;
+        List<AuditLog> chunk = new ArrayList<>(Math.min(chunkRows, 4096));
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            boolean readOnly = connection.isReadOnly();
+            // The PostgreSQL driver only uses a cursor with a fetch size when autocommit is off
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        chunk.add(auditDictionary.decode(AuditLogRowMapper.INSTANCE.mapRow(rs, chunk.size())));
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setReadOnly(readOnly);
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+        return chunk;
+    }
+
+    private String where(AuditLogFilterDto filter, ExportState state, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        addDictionaryCondition(conditions, params, "username_id = ?", Dimension.USERNAME, filter.getUsername());
+        addDictionaryCondition(conditions, params, "action_id = ?", Dimension.ACTION, filter.getAction());
+        addDictionaryCondition(conditions, params, "entity_type_id = ?", Dimension.ENTITY_TYPE, filter.getEntityType());
+        addCondition(conditions, params, "entity_id = ?", filter.getEntityId());
+        addCondition(conditions, params, "success = ?", filter.getSuccess());
+        addCondition(conditions, params, "timestamp >= ?", filter.getFrom() == null ? null : Timestamp.valueOf(filter.getFrom()));
+        addCondition(conditions, params, "timestamp < ?", filter.getTo() == null ? null : Timestamp.valueOf(filter.getTo()));
+        if (state.lastTimestamp != null) {
+            conditions.add("(timestamp, id) < (?, ?)");
+            params.add(Timestamp.valueOf(state.lastTimestamp));
+            params.add(state.lastId);
+        }
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private void addDictionaryCondition(List<String> conditions, List<Object> params, String condition, Dimension dimension, String value) {
+        if (value == null) {
+            return;
+        }
+        Optional<Integer> id = auditDictionary.findId(dimension, value);
+        if (id.isPresent()) {
+            addCondition(conditions, params, condition, id.get());
+        } else {
+            // A value that was never recorded matches no row
+            conditions.add("false");
+        }
+    }
+
+    private static void addCondition(List<String> conditions, List<Object> params, String condition, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            params.add(value);
+        }
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private final class ExportState {
+        private final Writer writer;
+        private final Format format;
+        private LocalDateTime lastTimestamp;
+        private Long lastId;
+        private long rows;
+
+        ExportState(Writer writer, Format format) {
+            this.writer = writer;
+            this.format = format;
+        }
+
+        void write(AuditLog log) {
+            try {
+                if (format == Format.NDJSON) {
+                    writer.write(objectMapper.writeValueAsString(log));
+                } else {
+                    writer.write(String.join(",",
+                            csvField(log.getId()),
+                            csvField(log.getEventId()),
+                            csvField(log.getTimestamp()),
+                            csvField(log.getAction()),
+                            csvField(log.getEntityType()),
+                            csvField(log.getEntityId()),
+                            csvField(log.getUsername()),
+                            csvField(log.getIpAddress()),
+                            csvField(log.getUserAgent()),
+                            csvField(log.isSuccess()),
+                            csvField(log.getErrorMessage()),
+                            csvField(log.getChanges()),
+                            csvField(log.getDurationMicros()),
+                            csvField(log.getStatementCount()),
+                            csvField(log.getRequestBytes()),
+                            csvField(log.getResponseBytes())));
+                }
+                writer.write('\n');
+                if (++rows % flushRows == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                // Usually the client went away, abort the export
+                throw new UncheckedIOException(e);
+            }
+            lastTimestamp = log.getTimestamp();
+            lastId = log.getId();
+        }
+    }
+}
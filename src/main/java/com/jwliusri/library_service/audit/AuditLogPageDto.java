@@ -0,0 +1,16 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditLogPageDto {
+    private List<AuditLog> items;
+    // Pass back as cursor to get the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,177 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the range partitions of {@code audit_logs} (see schema.sql) in shape: the current and the next
+ * {@code audit.partition.precreate} daily or monthly partitions always exist, and partitions entirely older
+ * than {@code audit.partition.retention-days} are detached and dropped, so retention never runs a DELETE.
+ * With {@link AuditLogArchive} enabled, a partition is archived before it is dropped.
+ * <p>
+ * Rows outside every partition land in {@code audit_logs_default}. When a partition is created for their
+ * range they are moved into it first, which PostgreSQL requires, and expired ones get a partition of their
+ * own the same way so they are archived and dropped like the rest.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "audit.partition.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditLogPartitionManager {
+
+    enum Interval { DAILY, MONTHLY }
+
+    private static final String PARTITION_PREFIX = "audit_logs_p";
+    private static final DateTimeFormatter DAILY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTHLY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditLogArchive archive;
+    private final Interval interval;
+    private final int precreate;
+    private final int retentionDays;
+
+    AuditLogPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            Optional<AuditLogArchive> archive,
+            @Value("${audit.partition.interval:daily}") String interval,
+            @Value("${audit.partition.precreate:7}") int precreate,
+            @Value("${audit.partition.retention-days:90}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archive = archive.orElse(null);
+        this.interval = Interval.valueOf(interval.toUpperCase());
+        this.precreate = precreate;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${audit.partition.cron:0 5 0 * * *}")
+    public void maintainPartitions() {
+        try {
+            maintain(LocalDate.now());
+        } catch (DataAccessException | UncheckedIOException e) {
+            // A partition that failed to archive is kept and retried on the next run
+            log.error("Audit log partition maintenance failed", e);
+        }
+    }
+
+    void maintain(LocalDate today) {
+        Set<String> partitions = new LinkedHashSet<>(existingPartitions());
+        LocalDate start = periodStart(today);
+        for (int i = 0; i <= precreate; i++) {
+            createPartition(next(start, i), partitions);
+        }
+
+        LocalDate cutoff = today.minusDays(retentionDays);
+        List<LocalDate> expiredInDefault = jdbcTemplate.queryForList(
+                "select distinct date_trunc(?, timestamp)::date from audit_logs_default where timestamp < ?",
+                LocalDate.class, interval == Interval.DAILY ? "day" : "month", periodStart(cutoff));
+        for (LocalDate from : expiredInDefault) {
+            createPartition(from, partitions);
+        }
+        for (String partition : partitions) {
+            LocalDate end = partitionEnd(partition);
+            // Only drop a partition once every row in it is past retention
+            if (end != null && !end.isAfter(cutoff)) {
+                if (archive != null) {
+                    archive.archivePartition(partition);
+                }
+                jdbcTemplate.execute("alter table audit_logs detach partition " + partition);
+                jdbcTemplate.execute("drop table " + partition);
+                log.info("Dropped audit log partition {}", partition);
+            }
+        }
+    }
+
+    private void createPartition(LocalDate from, Set<String> partitions) {
+        String partition = partitionName(from);
+        if (!partitions.add(partition)) {
+            return;
+        }
+        LocalDate to = next(from, 1);
+        Boolean inDefault = jdbcTemplate.queryForObject(
+                "select exists (select 1 from audit_logs_default where timestamp >= ? and timestamp < ?)",
+                Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(inDefault)) {
+            jdbcTemplate.execute("create table if not exists " + partition
+                    + " partition of audit_logs for values from ('" + from + "') to ('" + to + "')");
+            return;
+        }
+        // Creating the partition fails while the default one holds rows of its range, so they are moved in one transaction
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table " + partition + " (like audit_logs including defaults)");
+                statement.execute("with moved as (delete from audit_logs_default where timestamp >= '" + from
+                        + "' and timestamp < '" + to + "' returning *) insert into " + partition + " select * from moved");
+                statement.execute("alter table audit_logs attach partition " + partition
+                        + " for values from ('" + from + "') to ('" + to + "')");
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+        log.info("Moved audit logs from the default partition into {}", partition);
+    }
+
+    private List<String> existingPartitions() {
+        return jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                join pg_class p on p.oid = i.inhparent
+                where p.relname = 'audit_logs'""", String.class);
+    }
+
+    String partitionName(LocalDate from) {
+        return PARTITION_PREFIX + from.format(interval == Interval.DAILY ? DAILY_SUFFIX : MONTHLY_SUFFIX);
+    }
+
+    /** Exclusive upper bound of a partition created by this class, null for any other partition. */
+    LocalDate partitionEnd(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        String suffix = name.substring(PARTITION_PREFIX.length());
+        try {
+            return switch (suffix.length()) {
+                case 8 -> LocalDate.parse(suffix, DAILY_SUFFIX).plusDays(1);
+                case 6 -> LocalDate.parse(suffix + "01", DAILY_SUFFIX).plusMonths(1);
+                default -> null;
+            };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return interval == Interval.DAILY ? date : date.withDayOfMonth(1);
+    }
+
+    private LocalDate next(LocalDate from, int periods) {
+        return from.plus(periods, interval == Interval.DAILY ? ChronoUnit.DAYS : ChronoUnit.MONTHS);
+    }
+}
@@ -0,0 +1,41 @@
+package com.jwliusri.library_service.audit;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps an {@code audit_logs} row for the JDBC read paths that bypass JPA. Only the dictionary
+ * ids are set, callers decode the strings with {@link AuditDictionary}.
+ */
+final class AuditLogRowMapper implements RowMapper<AuditLog> {
+
+    static final AuditLogRowMapper INSTANCE = new AuditLogRowMapper();
+
+    private AuditLogRowMapper() {
+    }
+
+    @Override
+    public AuditLog mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return AuditLog.builder()
+                .id(rs.getLong("id"))
+                .eventId(rs.getObject("event_id", UUID.class))
+                .actionId(rs.getObject("action_id", Integer.class))
+                .entityTypeId(rs.getObject("entity_type_id", Integer.class))
+                .entityId(rs.getObject("entity_id", Long.class))
+                .usernameId(rs.getObject("username_id", Integer.class))
+                .userAgentId(rs.getObject("user_agent_id", Integer.class))
+                .ipAddress(rs.getString("ip_address"))
+                .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                .success(rs.getBoolean("success"))
+                .errorMessage(rs.getString("error_message"))
+                .changes(rs.getString("changes"))
+                .durationMicros(rs.getObject("duration_micros", Long.class))
+                .statementCount(rs.getObject("statement_count", Integer.class))
+                .requestBytes(rs.getObject("request_bytes", Long.class))
+                .responseBytes(rs.getObject("response_bytes", Long.class))
+                .build();
+    }
+}
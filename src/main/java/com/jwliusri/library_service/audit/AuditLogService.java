@@ -1,19 +1,111 @@
 package com.jwliusri.library_service.audit;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AuditLogService {
 
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
     private final AuditLogRepository auditLogRepository;
 
-    AuditLogService(AuditLogRepository auditLogRepository) {
+    private final AuditLogArchive archive;
+
+    private final AuditDictionary auditDictionary;
+
+    @Value("${audit.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${audit.query.max-page-size:500}")
+    private int maxPageSize;
+
+    AuditLogService(AuditLogRepository auditLogRepository, Optional<AuditLogArchive> archive, AuditDictionary auditDictionary) {
         this.auditLogRepository = auditLogRepository;
+        this.archive = archive.orElse(null);
+        this.auditDictionary = auditDictionary;
+    }
+
+    /**
+     * Keyset paging, newest first. The cursor is the (timestamp, id) of the last row of the
+     * previous page, so every page is an index range scan no matter how deep it is.
+     */
+    @Transactional(readOnly = true)
+    public AuditLogPageDto getAuditLogs(AuditLogFilterDto filter) {
+        int size = filter.getSize() == null ? defaultPageSize : Math.clamp(filter.getSize(), 1, maxPageSize);
+
+        Specification<AuditLog> spec = AuditLogSpecifications.matching(filter, auditDictionary);
+        Cursor cursor = null;
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            cursor = decodeCursor(filter.getCursor());
+            spec = spec.and(AuditLogSpecifications.after(cursor.timestamp(), cursor.id()));
+        }
+
+        // Fetch one extra row to know whether there is a next page
+        List<AuditLog> rows = auditLogRepository.findBy(spec, query -> query
+                .sortBy(NEWEST_FIRST)
+                .limit(size + 1)
+                .all());
+        auditDictionary.decodeAll(rows);
+
+        // Archived rows are all older than the hot table, so they continue where it runs out
+        if (archive != null && rows.size() <= size) {
+            if (!rows.isEmpty()) {
+                AuditLog last = rows.get(rows.size() - 1);
+                cursor = new Cursor(last.getTimestamp(), last.getId());
+            }
+            List<AuditLog> combined = new ArrayList<>(rows);
+            combined.addAll(archive.query(filter,
+                    cursor == null ? null : cursor.timestamp(),
+                    cursor == null ? null : cursor.id(),
+                    size + 1 - rows.size()));
+            rows = combined;
+        }
+
+        if (rows.size() <= size) {
+            return new AuditLogPageDto(rows, null);
+        }
+        List<AuditLog> page = rows.subList(0, size);
+        AuditLog last = page.get(size - 1);
+        return new AuditLogPageDto(page, encodeCursor(last.getTimestamp(), last.getId()));
+    }
+
+    /** Change history of one entity, newest first, served from the entity index. */
+    @Transactional(readOnly = true)
+    public AuditLogPageDto getEntityHistory(String entityType, Long entityId, String cursor, Integer size) {
+        return getAuditLogs(AuditLogFilterDto.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .cursor(cursor)
+                .size(size)
+                .build());
+    }
+
+    record Cursor(LocalDateTime timestamp, Long id) {}
+
+    static String encodeCursor(LocalDateTime timestamp, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
     }
 
-    public List<AuditLog> getAllAuditLogs() {
-        return auditLogRepository.findAll();
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Cursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.jwliusri.library_service.audit;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.jwliusri.library_service.audit.AuditDictionary.Dimension;
+
+final class AuditLogSpecifications {
+
+    private AuditLogSpecifications() {
+    }
+
+    static Specification<AuditLog> matching(AuditLogFilterDto filter, AuditDictionary dictionary) {
+        return Specification.where(dictionaryEqualTo("usernameId", dictionary, Dimension.USERNAME, filter.getUsername()))
+                .and(dictionaryEqualTo("actionId", dictionary, Dimension.ACTION, filter.getAction()))
+                .and(dictionaryEqualTo("entityTypeId", dictionary, Dimension.ENTITY_TYPE, filter.getEntityType()))
+                .and(equalTo("entityId", filter.getEntityId()))
+                .and(equalTo("success", filter.getSuccess()))
+                .and(from(filter.getFrom()))
+                .and(before(filter.getTo()));
+    }
+
+    /**
+     * Rows after the cursor in (timestamp desc, id desc) order. The redundant upper bound on timestamp
+     * lets the planner prune partitions newer than the cursor, which it can't do from the OR alone.
+     */
+    static Specification<AuditLog> after(LocalDateTime timestamp, Long id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("timestamp"), timestamp),
+                cb.or(
+                        cb.lessThan(root.get("timestamp"), timestamp),
+                        cb.and(cb.equal(root.get("timestamp"), timestamp), cb.lessThan(root.get("id"), id))));
+    }
+
+    // A value that was never recorded matches no row
+    private static Specification<AuditLog> dictionaryEqualTo(String attribute, AuditDictionary dictionary, Dimension dimension, String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer id = dictionary.findId(dimension, value).orElse(null);
+        return id == null ? (root, query, cb) -> cb.disjunction() : equalTo(attribute, id);
+    }
+
+    private static Specification<AuditLog> equalTo(String attribute, Object value) {
+        return value == null ? null : (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static Specification<AuditLog> from(LocalDateTime from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), from);
+    }
+
+    private static Specification<AuditLog> before(LocalDateTime to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThan(root.get("timestamp"), to);
+    }
+}
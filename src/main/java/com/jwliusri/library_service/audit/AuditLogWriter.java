@@ -0,0 +1,328 @@
+package com.jwliusri.library_service.audit;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Takes audit logs off the request thread. Logs are queued on a bounded {@link MpmcRingBuffer}
+ * and a single writer thread flushes them as multi-row INSERTs once {@code audit.writer.batch-size}
+ * logs are pending or {@code audit.writer.flush-interval-ms} has passed.
+ * <p>
+ * When the ring is full, {@code audit.writer.backpressure} decides what happens:
+ * {@code block} waits for space, {@code drop} discards the log and counts it, and
+ * {@code spill} inserts it synchronously on the caller thread.
+ * <p>
+ * With {@code audit.spool.enabled=true} the ring is replaced by the durable {@link AuditSpool}:
+ * logs are appended to local disk and the writer thread replays them until the database accepts them.
+ * Only transient errors are retried; a log the database rejects on its own is dead-lettered by the spool.
+ * <p>
+ * Strings are dictionary encoded by {@link AuditDictionary} here, on the writer thread, so a
+ * dictionary miss never costs the request a round trip. Values longer than their column are cut
+ * to fit, and when the database still rejects a batch its rows are retried one by one, so a bad
+ * row only costs itself.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    enum Backpressure { BLOCK, DROP, SPILL }
+
+    private static final String INSERT_PREFIX = "insert into audit_logs "
+            + "(action_id, entity_type_id, entity_id, username_id, user_agent_id, ip_address, timestamp, success, error_message, event_id, changes, "
+            + "duration_micros, statement_count, request_bytes, response_bytes) values ";
+    private static final String INSERT_SUFFIX = " on conflict (event_id, timestamp) do nothing";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] ROW_TYPES = {
+        Types.INTEGER, Types.INTEGER, Types.BIGINT, Types.INTEGER, Types.INTEGER,
+        Types.VARCHAR, Types.TIMESTAMP, Types.BOOLEAN, Types.VARCHAR, Types.OTHER, Types.OTHER,
+        Types.BIGINT, Types.INTEGER, Types.BIGINT, Types.BIGINT
+    };
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditDictionary auditDictionary;
+    private final AuditSpool spool;
+    private final MpmcRingBuffer<AuditLog> ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Backpressure backpressure;
+    private final String fullBatchSql;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    // Rows of the unacknowledged spool batch already written or dead-lettered one by one; writer thread only
+    private int replayedRows;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    AuditLogWriter(
+            JdbcTemplate jdbcTemplate,
+            AuditDictionary auditDictionary,
+            Optional<AuditSpool> spool,
+            @Value("${audit.writer.capacity:8192}") int capacity,
+            @Value("${audit.writer.batch-size:200}") int batchSize,
+            @Value("${audit.writer.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${audit.writer.backpressure:block}") String backpressure) {
+        // PostgreSQL caps a statement at 65535 bind parameters
+        if (batchSize < 1 || batchSize * ROW_TYPES.length > 65535) {
+            throw new IllegalArgumentException("audit.writer.batch-size must be between 1 and " + 65535 / ROW_TYPES.length);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditDictionary = auditDictionary;
+        this.spool = spool.orElse(null);
+        this.ring = new MpmcRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.backpressure = Backpressure.valueOf(backpressure.toUpperCase());
+        this.fullBatchSql = insertSql(batchSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(spool == null ? this::drainLoop : this::replayLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Anything submitted while the writer was exiting
+        flushPending();
+    }
+
+    public void submit(AuditLog auditLog) {
+        if (spool != null) {
+            spool.append(auditLog);
+            return;
+        }
+        if (!running) {
+            insert(List.of(auditLog));
+            return;
+        }
+        if (!ring.offer(auditLog)) {
+            switch (backpressure) {
+                case BLOCK -> {
+                    while (!ring.offer(auditLog)) {
+                        if (!running) {
+                            insert(List.of(auditLog));
+                            return;
+                        }
+                        LockSupport.unpark(writerThread);
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                    }
+                }
+                case DROP -> {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                case SPILL -> {
+                    insert(List.of(auditLog));
+                    return;
+                }
+            }
+        }
+        if (ring.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.get();
+    }
+
+    public int getPendingCount() {
+        return ring.size();
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (running) {
+            long now = System.nanoTime();
+            int pending = ring.size();
+            // Logs stay in the ring until a batch is due, submit() wakes this thread by the ring size alone
+            if (pending >= batchSize || (pending > 0 && now >= deadline)) {
+                ring.drainTo(batch, batchSize);
+                insert(batch);
+                batch.clear();
+                deadline = now + flushIntervalNanos;
+                continue;
+            }
+            if (pending == 0) {
+                deadline = now + flushIntervalNanos;
+            }
+            LockSupport.parkNanos(deadline - now);
+        }
+    }
+
+    /**
+     * Spool mode: logs are already durable, so an insert that fails on a transient error is retried
+     * with backoff until the database is back instead of being dropped.
+     */
+    private void replayLoop() {
+        long backoff = 0;
+        while (running) {
+            List<AuditLog> batch = spool.poll(batchSize);
+            if (!batch.isEmpty()) {
+                try {
+                    replay(batch);
+                    spool.acknowledge();
+                    replayedRows = 0;
+                    backoff = 0;
+                } catch (DataAccessException e) {
+                    backoff = Math.min(Math.max(backoff * 2, flushIntervalNanos), MAX_RETRY_BACKOFF_NANOS);
+                    log.warn("Failed to replay {} spooled audit logs, retrying in {} ms",
+                            batch.size(), TimeUnit.NANOSECONDS.toMillis(backoff));
+                    LockSupport.parkNanos(backoff);
+                    continue;
+                }
+            }
+            if (batch.size() < batchSize) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Writes a polled batch. On a data error the rows are written one by one and those the database
+     * rejects on their own are dead-lettered, so a bad record can't hold up the spool. Transient errors
+     * are thrown for the batch to be retried; rows already in are skipped by the event id, and a retry
+     * resumes the row by row pass where it stopped so no record is dead-lettered twice.
+     */
+    private void replay(List<AuditLog> batch) {
+        if (replayedRows == 0) {
+            try {
+                write(batch);
+                return;
+            } catch (DataAccessException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+            }
+        }
+        // A retry polls the same unacknowledged records, so the handled prefix is still in front
+        for (; replayedRows < batch.size(); replayedRows++) {
+            AuditLog auditLog = batch.get(replayedRows);
+            try {
+                write(List.of(auditLog));
+            } catch (DataAccessException rowError) {
+                if (isTransient(rowError)) {
+                    throw rowError;
+                }
+                spool.deadLetter(auditLog, String.valueOf(rowError.getMostSpecificCause().getMessage()));
+                deadLettered.incrementAndGet();
+                log.error("Dead-lettered spooled audit log {}", auditLog.getEventId(), rowError);
+            }
+        }
+    }
+
+    void flushPending() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (ring.drainTo(batch, batchSize) > 0) {
+            insert(batch);
+            batch.clear();
+        }
+    }
+
+    private void insert(List<AuditLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        try {
+            write(logs);
+        } catch (DataAccessException e) {
+            if (logs.size() > 1 && !isTransient(e)) {
+                for (AuditLog auditLog : logs) {
+                    insert(List.of(auditLog));
+                }
+                return;
+            }
+            // Audit writes must never take the writer thread down
+            dropped.addAndGet(logs.size());
+            log.error("Failed to write {} audit logs", logs.size(), e);
+        }
+    }
+
+    // Connection trouble or a lock conflict, as opposed to a row the database will never accept
+    static boolean isTransient(DataAccessException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        // Don't split a surrogate pair
+        int end = Character.isHighSurrogate(value.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return value.substring(0, end);
+    }
+
+    private void write(List<AuditLog> logs) {
+        Object[] args = new Object[logs.size() * ROW_TYPES.length];
+        int[] types = new int[args.length];
+        int i = 0;
+        for (AuditLog auditLog : logs) {
+            auditDictionary.encode(auditLog);
+            args[i] = auditLog.getActionId();
+            args[i + 1] = auditLog.getEntityTypeId();
+            args[i + 2] = auditLog.getEntityId();
+            args[i + 3] = auditLog.getUsernameId();
+            args[i + 4] = auditLog.getUserAgentId();
+            args[i + 5] = truncate(auditLog.getIpAddress(), AuditLog.MAX_IP_ADDRESS_LENGTH);
+            args[i + 6] = auditLog.getTimestamp() == null ? null : Timestamp.valueOf(auditLog.getTimestamp());
+            args[i + 7] = auditLog.isSuccess();
+            args[i + 8] = truncate(auditLog.getErrorMessage(), AuditLog.MAX_ERROR_MESSAGE_LENGTH);
+            args[i + 9] = auditLog.getEventId();
+            args[i + 10] = auditLog.getChanges();
+            args[i + 11] = auditLog.getDurationMicros();
+            args[i + 12] = auditLog.getStatementCount();
+            args[i + 13] = auditLog.getRequestBytes();
+            args[i + 14] = auditLog.getResponseBytes();
+            System.arraycopy(ROW_TYPES, 0, types, i, ROW_TYPES.length);
+            i += ROW_TYPES.length;
+        }
+        String sql = logs.size() == batchSize ? fullBatchSql : insertSql(logs.size());
+        jdbcTemplate.update(sql, args, types);
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sb = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sb.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ROW_PLACEHOLDERS);
+        }
+        return sb.append(INSERT_SUFFIX).toString();
+    }
+}
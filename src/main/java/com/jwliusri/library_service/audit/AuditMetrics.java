@@ -0,0 +1,166 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rolling in-memory view of audited calls, fed by {@link AuditAspect} before sampling so it sees
+ * every call. Counts per action and outcome come from {@link RollingCounter}s over the last
+ * {@code audit.metrics.window-seconds}; the heaviest usernames and client addresses come from
+ * {@link SpaceSavingTopK} sketches that start over every {@code audit.metrics.top-window-seconds}
+ * and are reported together with the previous window.
+ * <p>
+ * Each action and outcome is also published as the {@code audit.events.recent} gauge for the
+ * last minute and the full window.
+ */
+@Component
+public class AuditMetrics {
+
+    static final int MINUTE = 60;
+
+    public record Counts(long success, long failure) {}
+
+    public record Snapshot(int windowSeconds, Map<String, Counts> actions,
+            List<SpaceSavingTopK.Entry> topUsers, List<SpaceSavingTopK.Entry> topIpAddresses) {}
+
+    private record Key(String action, boolean success) {}
+
+    private final MeterRegistry meterRegistry;
+    private final int windowSeconds;
+    private final int topCapacity;
+    private final long topWindowMillis;
+    private final Map<Key, RollingCounter> counters = new ConcurrentHashMap<>();
+    private volatile TopWindow topWindow;
+    private volatile TopWindow previousTopWindow;
+
+    private record TopWindow(long start, SpaceSavingTopK users, SpaceSavingTopK ipAddresses) {}
+
+    AuditMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${audit.metrics.window-seconds:600}") int windowSeconds,
+            @Value("${audit.metrics.top-capacity:100}") int topCapacity,
+            @Value("${audit.metrics.top-window-seconds:300}") int topWindowSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.windowSeconds = windowSeconds;
+        this.topCapacity = topCapacity;
+        this.topWindowMillis = topWindowSeconds * 1000L;
+        // Starts already expired, the first call opens the real window
+        this.topWindow = newTopWindow(0);
+    }
+
+    public void record(String action, boolean success, String username, String ipAddress) {
+        record(action, success, username, ipAddress, System.currentTimeMillis());
+    }
+
+    void record(String action, boolean success, String username, String ipAddress, long nowMillis) {
+        counters.computeIfAbsent(new Key(action, success), this::register).increment(nowMillis);
+
+        TopWindow window = currentTopWindow(nowMillis);
+        if (username != null) {
+            window.users().add(username);
+        }
+        if (ipAddress != null) {
+            window.ipAddresses().add(ipAddress);
+        }
+    }
+
+    public Counts count(String action, int seconds) {
+        return count(action, seconds, System.currentTimeMillis());
+    }
+
+    Counts count(String action, int seconds, long nowMillis) {
+        return new Counts(sum(new Key(action, true), seconds, nowMillis), sum(new Key(action, false), seconds, nowMillis));
+    }
+
+    public Snapshot snapshot(int seconds, int top) {
+        return snapshot(seconds, top, System.currentTimeMillis());
+    }
+
+    Snapshot snapshot(int seconds, int top, long nowMillis) {
+        int window = Math.clamp(seconds, 1, windowSeconds);
+        Map<String, Counts> actions = new TreeMap<>();
+        for (Key key : counters.keySet()) {
+            actions.computeIfAbsent(key.action(), action -> count(action, window, nowMillis));
+        }
+        TopWindow current = currentTopWindow(nowMillis);
+        TopWindow previous = previousTopWindow;
+        return new Snapshot(window, actions,
+                merge(current.users(), previous == null ? null : previous.users(), top),
+                merge(current.ipAddresses(), previous == null ? null : previous.ipAddresses(), top));
+    }
+
+    int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    private long sum(Key key, int seconds, long nowMillis) {
+        RollingCounter counter = counters.get(key);
+        return counter == null ? 0 : counter.sum(seconds, nowMillis);
+    }
+
+    private RollingCounter register(Key key) {
+        RollingCounter counter = new RollingCounter(windowSeconds);
+        registerGauge(key, counter, MINUTE);
+        if (windowSeconds != MINUTE) {
+            registerGauge(key, counter, windowSeconds);
+        }
+        return counter;
+    }
+
+    private void registerGauge(Key key, RollingCounter counter, int seconds) {
+        Gauge.builder("audit.events.recent", counter, c -> c.sum(seconds, System.currentTimeMillis()))
+                .description("Audited calls in the trailing window")
+                .tag("action", key.action())
+                .tag("outcome", key.success() ? "success" : "failure")
+                .tag("window", seconds + "s")
+                .register(meterRegistry);
+    }
+
+    private TopWindow currentTopWindow(long nowMillis) {
+        TopWindow window = topWindow;
+        if (nowMillis - window.start() < topWindowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = topWindow;
+            if (nowMillis - window.start() >= topWindowMillis) {
+                // A window that ended long ago says nothing about the previous one
+                previousTopWindow = nowMillis - window.start() < 2 * topWindowMillis ? window : null;
+                window = newTopWindow(nowMillis);
+                topWindow = window;
+            }
+            return window;
+        }
+    }
+
+    private TopWindow newTopWindow(long start) {
+        return new TopWindow(start, new SpaceSavingTopK(topCapacity), new SpaceSavingTopK(topCapacity));
+    }
+
+    private static List<SpaceSavingTopK.Entry> merge(SpaceSavingTopK current, SpaceSavingTopK previous, int top) {
+        Map<String, SpaceSavingTopK.Entry> merged = new HashMap<>();
+        for (SpaceSavingTopK.Entry entry : current.top(Integer.MAX_VALUE)) {
+            merged.put(entry.key(), entry);
+        }
+        if (previous != null) {
+            for (SpaceSavingTopK.Entry entry : previous.top(Integer.MAX_VALUE)) {
+                merged.merge(entry.key(), entry, (a, b) ->
+                        new SpaceSavingTopK.Entry(a.key(), a.count() + b.count(), a.error() + b.error()));
+            }
+        }
+        List<SpaceSavingTopK.Entry> entries = new ArrayList<>(merged.values());
+        entries.sort(Comparator.comparingLong(SpaceSavingTopK.Entry::count).reversed());
+        return entries.size() <= top ? entries : List.copyOf(entries.subList(0, top));
+    }
+}
@@ -0,0 +1,35 @@
+package com.jwliusri.library_service.audit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/auditmetrics} serves the rolling {@link AuditMetrics} from memory,
+ * e.g. failed logins in the last 5 minutes: {@code /actuator/auditmetrics/USER_LOGIN?seconds=300}.
+ */
+@Component
+@Endpoint(id = "auditmetrics")
+public class AuditMetricsEndpoint {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private final AuditMetrics auditMetrics;
+
+    AuditMetricsEndpoint(AuditMetrics auditMetrics) {
+        this.auditMetrics = auditMetrics;
+    }
+
+    @ReadOperation
+    public AuditMetrics.Snapshot snapshot(@Nullable Integer seconds, @Nullable Integer top) {
+        return auditMetrics.snapshot(seconds == null ? AuditMetrics.MINUTE : seconds, top == null ? DEFAULT_TOP : top);
+    }
+
+    @ReadOperation
+    public AuditMetrics.Counts action(@Selector String action, @Nullable Integer seconds) {
+        int window = seconds == null ? AuditMetrics.MINUTE : Math.clamp(seconds, 1, auditMetrics.getWindowSeconds());
+        return auditMetrics.count(action, window);
+    }
+}
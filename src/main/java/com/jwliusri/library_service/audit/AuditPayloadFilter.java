@@ -0,0 +1,234 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Counts request and response body bytes of API calls. {@link AuditAspect} hands the logs of
+ * audited calls to this filter, which fills in the sizes once the response has been written and
+ * then submits them. Error pages the container renders after the filter chain are not counted.
+ */
+@Component
+public class AuditPayloadFilter extends OncePerRequestFilter {
+
+    private static final String PENDING_LOGS = AuditPayloadFilter.class.getName() + ".PENDING_LOGS";
+
+    private final AuditLogWriter auditLogWriter;
+
+    AuditPayloadFilter(AuditLogWriter auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
+    }
+
+    /** Queues the log until the response is complete, false when this filter isn't in the chain. */
+    static boolean defer(HttpServletRequest request, AuditLog auditLog) {
+        @SuppressWarnings("unchecked")
+        List<AuditLog> pending = (List<AuditLog>) request.getAttribute(PENDING_LOGS);
+        if (pending == null) {
+            return false;
+        }
+        pending.add(auditLog);
+        return true;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingRequest countingRequest = new CountingRequest(request);
+        CountingResponse countingResponse = new CountingResponse(response);
+        List<AuditLog> pending = new ArrayList<>(1);
+        request.setAttribute(PENDING_LOGS, pending);
+        try {
+            filterChain.doFilter(countingRequest, countingResponse);
+        } finally {
+            request.removeAttribute(PENDING_LOGS);
+            countingResponse.flushWriter();
+            // An unread body still arrived, the declared length covers it
+            long requestBytes = Math.max(request.getContentLengthLong(), countingRequest.bytes());
+            for (AuditLog auditLog : pending) {
+                auditLog.setRequestBytes(requestBytes);
+                auditLog.setResponseBytes(countingResponse.bytes());
+                auditLogWriter.submit(auditLog);
+            }
+        }
+    }
+
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+        private CountingInputStream inputStream;
+        private BufferedReader reader;
+
+        CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CountingInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? Charset.defaultCharset() : Charset.forName(encoding)));
+            }
+            return reader;
+        }
+
+        long bytes() {
+            return inputStream == null ? 0 : inputStream.bytes;
+        }
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private CountingOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        long bytes() {
+            return outputStream == null ? 0 : outputStream.bytes;
+        }
+    }
+
+    private static final class CountingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private long bytes;
+
+        CountingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long bytes;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            delegate.write(buffer, offset, length);
+            bytes += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.jwliusri.library_service.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AuditPerformanceDto {
+    private String action;
+    private long count;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+}
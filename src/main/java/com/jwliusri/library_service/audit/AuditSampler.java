@@ -0,0 +1,107 @@
+package com.jwliusri.library_service.audit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Applies the sampling rules of {@link Auditable}. Suppressed events are counted per action and reason,
+ * in memory and as the {@code audit.events.suppressed} counter, so event totals can still be reconstructed.
+ */
+@Component
+public class AuditSampler {
+
+    static final String REASON_SAMPLED = "sampled";
+    static final String REASON_USER_RATE = "user_rate";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Map<String, Suppressed> suppressed = new ConcurrentHashMap<>();
+    // (action, username) -> minute in the high 32 bits, calls in that minute in the low 32 bits. An entry
+    // idle for a minute holds no count of the current minute, and past the size bound the coldest go first
+    private final Cache<String, AtomicLong> userWindows;
+
+    private record Suppressed(LongAdder total, Counter counter) {}
+
+    AuditSampler(
+            MeterRegistry meterRegistry,
+            @Value("${audit.sampling.enabled:true}") boolean enabled,
+            @Value("${audit.sampling.max-tracked-users:100000}") int maxTrackedUsers) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.userWindows = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+    }
+
+    public boolean shouldRecord(Auditable auditable, String caller, boolean success) {
+        if (!enabled || (!success && auditable.alwaysLogFailures())) {
+            return true;
+        }
+        if (success && auditable.successSampleRate() < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= auditable.successSampleRate()) {
+            suppress(auditable.action(), REASON_SAMPLED);
+            return false;
+        }
+        if (success && auditable.perUserPerMinute() > 0
+                && !withinUserRate(auditable.action() + '\u0000' + caller, auditable.perUserPerMinute(), System.currentTimeMillis())) {
+            suppress(auditable.action(), REASON_USER_RATE);
+            return false;
+        }
+        return true;
+    }
+
+    public long getSuppressedCount(String action) {
+        long total = 0;
+        for (Map.Entry<String, Suppressed> entry : suppressed.entrySet()) {
+            if (entry.getKey().startsWith(action + '\u0000')) {
+                total += entry.getValue().total().sum();
+            }
+        }
+        return total;
+    }
+
+    boolean withinUserRate(String key, int limit, long nowMillis) {
+        long minute = nowMillis / 60_000;
+        AtomicLong window = userWindows.get(key, k -> new AtomicLong());
+        while (true) {
+            long current = window.get();
+            long count = (current >>> 32) == minute ? current & 0xffffffffL : 0;
+            if (count >= limit) {
+                return false;
+            }
+            if (window.compareAndSet(current, (minute << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    long getTrackedUsers() {
+        userWindows.cleanUp();
+        return userWindows.estimatedSize();
+    }
+
+    private void suppress(String action, String reason) {
+        Suppressed counters = suppressed.computeIfAbsent(action + '\u0000' + reason, key -> new Suppressed(new LongAdder(),
+                Counter.builder("audit.events.suppressed")
+                        .description("Audit events not written because of sampling rules")
+                        .tag("action", action)
+                        .tag("reason", reason)
+                        .register(meterRegistry)));
+        counters.total().increment();
+        counters.counter().increment();
+    }
+}
@@ -0,0 +1,531 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable columnar file holding archived audit logs sorted by (timestamp, id).
+ * <p>
+ * Layout: a fixed header with the row count and min/max timestamp and id, the compressed and raw
+ * length of every column, then the Deflate-compressed columns. Ids are zigzag delta varints,
+ * timestamps are microsecond delta varints, string columns with few distinct values are dictionary
+ * encoded, and success is a bitset. Readers memory-map the file and only inflate the columns a
+ * query needs, after the header stats have ruled the segment in.
+ */
+final class AuditSegment {
+
+    private static final int MAGIC = 0x414c5331;
+
+    private static final int ID = 0;
+    private static final int EVENT_ID = 1;
+    private static final int TIMESTAMP = 2;
+    private static final int ACTION = 3;
+    private static final int ENTITY_TYPE = 4;
+    private static final int USERNAME = 5;
+    private static final int USER_AGENT = 6;
+    private static final int IP_ADDRESS = 7;
+    private static final int ENTITY_ID = 8;
+    private static final int SUCCESS = 9;
+    private static final int ERROR_MESSAGE = 10;
+    private static final int CHANGES = 11;
+    private static final int DURATION_MICROS = 12;
+    private static final int STATEMENT_COUNT = 13;
+    private static final int REQUEST_BYTES = 14;
+    private static final int RESPONSE_BYTES = 15;
+    private static final int COLUMNS = 16;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int rowCount;
+    private final LocalDateTime minTimestamp;
+    private final LocalDateTime maxTimestamp;
+    private final long minId;
+    private final long maxId;
+    // Segments written before a column was added have fewer, the missing columns read as null
+    private final int columnCount;
+    private final int[] columnOffsets = new int[COLUMNS];
+    private final int[] compressedLengths = new int[COLUMNS];
+    private final int[] rawLengths = new int[COLUMNS];
+
+    private AuditSegment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not an audit segment: " + path);
+        }
+        this.rowCount = buffer.getInt(4);
+        this.minTimestamp = fromMicros(buffer.getLong(8));
+        this.maxTimestamp = fromMicros(buffer.getLong(16));
+        this.minId = buffer.getLong(24);
+        this.maxId = buffer.getLong(32);
+        this.columnCount = Math.min(buffer.getInt(40), COLUMNS);
+        int offset = headerBytes(buffer.getInt(40));
+        for (int column = 0; column < columnCount; column++) {
+            compressedLengths[column] = buffer.getInt(48 + column * 8);
+            rawLengths[column] = buffer.getInt(48 + column * 8 + 4);
+            columnOffsets[column] = offset;
+            offset += compressedLengths[column];
+        }
+    }
+
+    static AuditSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new AuditSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Writes logs, which must be sorted by (timestamp, id), to a new segment file. */
+    static AuditSegment write(Path path, List<AuditLog> logs) throws IOException {
+        if (logs.isEmpty()) {
+            throw new IllegalArgumentException("Empty audit segment");
+        }
+        byte[][] raw = new byte[COLUMNS][];
+        raw[ID] = encodeLongs(logs, AuditLog::getId, true);
+        raw[EVENT_ID] = encodeEventIds(logs);
+        raw[TIMESTAMP] = encodeLongs(logs, log -> toMicros(log.getTimestamp()), false);
+        raw[ACTION] = encodeDictionary(logs, AuditLog::getAction);
+        raw[ENTITY_TYPE] = encodeDictionary(logs, AuditLog::getEntityType);
+        raw[USERNAME] = encodeDictionary(logs, AuditLog::getUsername);
+        raw[USER_AGENT] = encodeDictionary(logs, AuditLog::getUserAgent);
+        raw[IP_ADDRESS] = encodeDictionary(logs, AuditLog::getIpAddress);
+        raw[ENTITY_ID] = encodeNullableLongs(logs, AuditLog::getEntityId);
+        raw[SUCCESS] = encodeBits(logs);
+        raw[ERROR_MESSAGE] = encodeStrings(logs, AuditLog::getErrorMessage);
+        raw[CHANGES] = encodeStrings(logs, AuditLog::getChanges);
+        raw[DURATION_MICROS] = encodeNullableLongs(logs, AuditLog::getDurationMicros);
+        raw[STATEMENT_COUNT] = encodeNullableLongs(logs, log -> log.getStatementCount() == null ? null : log.getStatementCount().longValue());
+        raw[REQUEST_BYTES] = encodeNullableLongs(logs, AuditLog::getRequestBytes);
+        raw[RESPONSE_BYTES] = encodeNullableLongs(logs, AuditLog::getResponseBytes);
+
+        ByteBuffer header = ByteBuffer.allocate(headerBytes(COLUMNS))
+                .putInt(MAGIC)
+                .putInt(logs.size())
+                .putLong(toMicros(logs.get(0).getTimestamp()))
+                .putLong(toMicros(logs.get(logs.size() - 1).getTimestamp()))
+                .putLong(logs.stream().mapToLong(AuditLog::getId).min().orElseThrow())
+                .putLong(logs.stream().mapToLong(AuditLog::getId).max().orElseThrow())
+                .putInt(COLUMNS)
+                .putInt(0);
+        byte[][] compressed = new byte[COLUMNS][];
+        for (int column = 0; column < COLUMNS; column++) {
+            compressed[column] = deflate(raw[column]);
+            header.putInt(compressed[column].length).putInt(raw[column].length);
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(header.flip());
+            for (byte[] column : compressed) {
+                channel.write(ByteBuffer.wrap(column));
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /** Whether the header stats allow any row matching the filter and lying after the cursor. */
+    boolean mayContain(AuditLogFilterDto filter, LocalDateTime cursorTimestamp) {
+        if (filter.getFrom() != null && maxTimestamp.isBefore(filter.getFrom())) {
+            return false;
+        }
+        if (filter.getTo() != null && !minTimestamp.isBefore(filter.getTo())) {
+            return false;
+        }
+        return cursorTimestamp == null || !minTimestamp.isAfter(cursorTimestamp);
+    }
+
+    /**
+     * Appends up to {@code limit} rows matching the filter to {@code sink}, newest first,
+     * starting after the (cursorTimestamp, cursorId) keyset cursor when given.
+     */
+    void scan(AuditLogFilterDto filter, LocalDateTime cursorTimestamp, Long cursorId, int limit, List<AuditLog> sink) {
+        String[] actions = decodeDictionary(ACTION);
+        String[] entityTypes = decodeDictionary(ENTITY_TYPE);
+        String[] usernames = decodeDictionary(USERNAME);
+        // A filter value missing from the dictionary rules out the whole segment
+        int actionCode = codeOf(actions, filter.getAction());
+        int entityTypeCode = codeOf(entityTypes, filter.getEntityType());
+        int usernameCode = codeOf(usernames, filter.getUsername());
+        if (actionCode < 0 || entityTypeCode < 0 || usernameCode < 0) {
+            return;
+        }
+
+        long[] ids = decodeLongs(ID, true);
+        long[] timestamps = decodeLongs(TIMESTAMP, false);
+        int[] actionCodes = decodeCodes(ACTION);
+        int[] entityTypeCodes = decodeCodes(ENTITY_TYPE);
+        int[] usernameCodes = decodeCodes(USERNAME);
+        Long[] entityIds = decodeNullableLongs(ENTITY_ID);
+        byte[] success = inflate(SUCCESS);
+        long fromMicros = filter.getFrom() == null ? Long.MIN_VALUE : toMicros(filter.getFrom());
+        long toMicros = filter.getTo() == null ? Long.MAX_VALUE : toMicros(filter.getTo());
+        long cursorMicros = cursorTimestamp == null ? Long.MAX_VALUE : toMicros(cursorTimestamp);
+        long cursorIdValue = cursorId == null ? Long.MAX_VALUE : cursorId;
+
+        List<Integer> matches = new ArrayList<>();
+        for (int row = rowCount - 1; row >= 0 && matches.size() < limit; row--) {
+            long ts = timestamps[row];
+            if (ts > cursorMicros || (ts == cursorMicros && ids[row] >= cursorIdValue)) {
+                continue;
+            }
+            if (ts < fromMicros) {
+                break;
+            }
+            if (ts >= toMicros
+                    || (actionCode > 0 && actionCodes[row] != actionCode)
+                    || (entityTypeCode > 0 && entityTypeCodes[row] != entityTypeCode)
+                    || (usernameCode > 0 && usernameCodes[row] != usernameCode)
+                    || (filter.getEntityId() != null && !filter.getEntityId().equals(entityIds[row]))
+                    || (filter.getSuccess() != null && filter.getSuccess() != bit(success, row))) {
+                continue;
+            }
+            matches.add(row);
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        // Remaining columns are only inflated for segments that produced rows
+        UUID[] eventIds = decodeEventIds();
+        String[] userAgents = decodeDictionary(USER_AGENT);
+        int[] userAgentCodes = decodeCodes(USER_AGENT);
+        String[] ipAddresses = decodeDictionary(IP_ADDRESS);
+        int[] ipAddressCodes = decodeCodes(IP_ADDRESS);
+        String[] errorMessages = decodeStrings(ERROR_MESSAGE);
+        String[] changes = decodeStrings(CHANGES);
+        Long[] durations = decodeNullableLongs(DURATION_MICROS);
+        Long[] statementCounts = decodeNullableLongs(STATEMENT_COUNT);
+        Long[] requestBytes = decodeNullableLongs(REQUEST_BYTES);
+        Long[] responseBytes = decodeNullableLongs(RESPONSE_BYTES);
+        for (int row : matches) {
+            sink.add(AuditLog.builder()
+                    .id(ids[row])
+                    .eventId(eventIds[row])
+                    .action(lookup(actions, actionCodes[row]))
+                    .entityType(lookup(entityTypes, entityTypeCodes[row]))
+                    .entityId(entityIds[row])
+                    .username(lookup(usernames, usernameCodes[row]))
+                    .userAgent(lookup(userAgents, userAgentCodes[row]))
+                    .ipAddress(lookup(ipAddresses, ipAddressCodes[row]))
+                    .timestamp(fromMicros(timestamps[row]))
+                    .success(bit(success, row))
+                    .errorMessage(errorMessages[row])
+                    .changes(changes[row])
+                    .durationMicros(durations[row])
+                    .statementCount(statementCounts[row] == null ? null : statementCounts[row].intValue())
+                    .requestBytes(requestBytes[row])
+                    .responseBytes(responseBytes[row])
+                    .build());
+        }
+    }
+
+    // --- encoding ---
+
+    private static byte[] encodeLongs(List<AuditLog> logs, Function<AuditLog, Long> getter, boolean zigzag) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(logs.size() * 2);
+        long previous = 0;
+        for (AuditLog log : logs) {
+            long value = getter.apply(log);
+            long delta = value - previous;
+            writeVarLong(out, zigzag ? (delta << 1) ^ (delta >> 63) : delta);
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeNullableLongs(List<AuditLog> logs, Function<AuditLog, Long> getter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(logs.size() * 2);
+        for (AuditLog log : logs) {
+            Long value = getter.apply(log);
+            // 0 marks null, anything else is the zigzag value plus one
+            writeVarLong(out, value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeEventIds(List<AuditLog> logs) {
+        ByteBuffer out = ByteBuffer.allocate(logs.size() * (1 + 2 * Long.BYTES));
+        for (AuditLog log : logs) {
+            UUID eventId = log.getEventId();
+            out.put((byte) (eventId == null ? 0 : 1));
+            if (eventId != null) {
+                out.putLong(eventId.getMostSignificantBits()).putLong(eventId.getLeastSignificantBits());
+            }
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static byte[] encodeDictionary(List<AuditLog> logs, Function<AuditLog, String> getter) {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] rows = new int[logs.size()];
+        for (int i = 0; i < logs.size(); i++) {
+            String value = getter.apply(logs.get(i));
+            if (value != null) {
+                rows[i] = codes.computeIfAbsent(value, v -> {
+                    dictionary.add(v);
+                    return dictionary.size();
+                });
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(logs.size() + dictionary.size() * 16);
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary) {
+            writeString(out, value);
+        }
+        for (int code : rows) {
+            writeVarLong(out, code);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeStrings(List<AuditLog> logs, Function<AuditLog, String> getter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(logs.size());
+        for (AuditLog log : logs) {
+            String value = getter.apply(log);
+            if (value == null) {
+                writeVarLong(out, 0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, bytes.length + 1L);
+                out.writeBytes(bytes);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeBits(List<AuditLog> logs) {
+        byte[] bits = new byte[(logs.size() + 7) / 8];
+        for (int i = 0; i < logs.size(); i++) {
+            if (logs.get(i).isSuccess()) {
+                bits[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return bits;
+    }
+
+    private static void writeString(OutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        try {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeVarLong(OutputStream out, long value) {
+        try {
+            while ((value & ~0x7fL) != 0) {
+                out.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // --- decoding ---
+
+    private static int headerBytes(int columns) {
+        return 4 * Integer.BYTES + 4 * Long.BYTES + columns * 2 * Integer.BYTES;
+    }
+
+    private byte[] inflate(int column) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(columnOffsets[column], compressedLengths[column]));
+            byte[] raw = new byte[rawLengths[column]];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt audit segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private long[] decodeLongs(int column, boolean zigzag) {
+        ByteBuffer in = ByteBuffer.wrap(inflate(column));
+        long[] values = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long encoded = readVarLong(in);
+            previous += zigzag ? (encoded >>> 1) ^ -(encoded & 1) : encoded;
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private Long[] decodeNullableLongs(int column) {
+        Long[] values = new Long[rowCount];
+        if (column >= columnCount) {
+            return values;
+        }
+        ByteBuffer in = ByteBuffer.wrap(inflate(column));
+        for (int i = 0; i < rowCount; i++) {
+            long encoded = readVarLong(in);
+            if (encoded != 0) {
+                encoded--;
+                values[i] = (encoded >>> 1) ^ -(encoded & 1);
+            }
+        }
+        return values;
+    }
+
+    private UUID[] decodeEventIds() {
+        ByteBuffer in = ByteBuffer.wrap(inflate(EVENT_ID));
+        UUID[] values = new UUID[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            if (in.get() != 0) {
+                values[i] = new UUID(in.getLong(), in.getLong());
+            }
+        }
+        return values;
+    }
+
+    private String[] decodeDictionary(int column) {
+        ByteBuffer in = ByteBuffer.wrap(inflate(column));
+        String[] dictionary = new String[(int) readVarLong(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in, (int) readVarLong(in));
+        }
+        return dictionary;
+    }
+
+    private int[] decodeCodes(int column) {
+        ByteBuffer in = ByteBuffer.wrap(inflate(column));
+        int size = (int) readVarLong(in);
+        for (int i = 0; i < size; i++) {
+            int length = (int) readVarLong(in);
+            in.position(in.position() + length);
+        }
+        int[] codes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            codes[i] = (int) readVarLong(in);
+        }
+        return codes;
+    }
+
+    private String[] decodeStrings(int column) {
+        String[] values = new String[rowCount];
+        if (column >= columnCount) {
+            return values;
+        }
+        ByteBuffer in = ByteBuffer.wrap(inflate(column));
+        for (int i = 0; i < rowCount; i++) {
+            int length = (int) readVarLong(in);
+            if (length != 0) {
+                values[i] = readString(in, length - 1);
+            }
+        }
+        return values;
+    }
+
+    /** 0 when the filter is not set, -1 when the value can't occur in this segment, else its code. */
+    private static int codeOf(String[] dictionary, String value) {
+        if (value == null) {
+            return 0;
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            if (Objects.equals(dictionary[i], value)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static String lookup(String[] dictionary, int code) {
+        return code == 0 ? null : dictionary[code - 1];
+    }
+
+    private static boolean bit(byte[] bits, int index) {
+        return (bits[index >> 3] & (1 << (index & 7))) != 0;
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,436 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local write-ahead spool for audit logs, used by {@link AuditLogWriter} when
+ * {@code audit.spool.enabled=true}. Logs are appended to memory-mapped segment files as
+ * {@code [length][crc32c][payload]} records, forced to disk every {@code audit.spool.fsync-interval-ms},
+ * and read back by the writer thread, which acknowledges them once they're in the database.
+ * <p>
+ * A fresh segment is started on every boot and whenever the active one is full. Segments before
+ * the acknowledged position are deleted, and a torn or corrupt record ends its segment on recovery.
+ * Replays after a crash may repeat already inserted logs, which the event id makes idempotent.
+ * Logs the database will never accept are set aside in {@code dead-letter.ndjson} in the same directory.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.spool.enabled", havingValue = "true")
+public class AuditSpool {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+    // writeUTF takes at most 65535 bytes, 3 per char at worst; longer strings go as UTF-8 after an int length
+    private static final int MAX_UTF_CHARS = 65535 / 3;
+    private static final byte STRING_NULL = 0;
+    private static final byte STRING_UTF = 1;
+    private static final byte STRING_LONG = 2;
+
+    private static final class Segment {
+        final long sequence;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        volatile int writePosition;
+        volatile boolean sealed;
+
+        Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long fsyncIntervalMs;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+    private volatile boolean dirty;
+    private ScheduledExecutorService flusher;
+    private FileChannel checkpointChannel;
+
+    // Reader state, only touched by the single consumer
+    private Segment ackedSegment;
+    private int ackedOffset;
+    private Segment pendingSegment;
+    private int pendingOffset;
+
+    AuditSpool(
+            @Value("${audit.spool.dir:audit-spool}") String directory,
+            @Value("${audit.spool.segment-bytes:16777216}") int segmentBytes,
+            @Value("${audit.spool.fsync-interval-ms:50}") long fsyncIntervalMs) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        long checkpointSequence = 0;
+        int checkpointOffset = 0;
+        if (checkpointChannel.read(checkpoint, 0) == checkpoint.capacity()) {
+            checkpointSequence = checkpoint.getLong(0);
+            checkpointOffset = checkpoint.getInt(Long.BYTES);
+        }
+
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path path : existing) {
+            long sequence = sequenceOf(path);
+            if (sequence < checkpointSequence) {
+                Files.delete(path);
+                continue;
+            }
+            Segment segment = map(sequence, path, (int) Files.size(path));
+            segment.writePosition = scanEnd(segment);
+            segment.sealed = true;
+            segments.put(sequence, segment);
+        }
+
+        long next = segments.isEmpty() ? Math.max(checkpointSequence, 1) : segments.lastKey() + 1;
+        active = createSegment(next);
+
+        ackedSegment = segments.getOrDefault(checkpointSequence, segments.firstEntry().getValue());
+        ackedOffset = ackedSegment.sequence == checkpointSequence ? Math.min(checkpointOffset, ackedSegment.writePosition) : 0;
+        pendingSegment = ackedSegment;
+        pendingOffset = ackedOffset;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audit-spool-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::force, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        force();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        if (checkpointChannel != null) {
+            checkpointChannel.close();
+        }
+    }
+
+    public synchronized void append(AuditLog auditLog) {
+        byte[] payload = encode(auditLog);
+        int size = HEADER_BYTES + payload.length;
+        if (size + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Audit log of " + size + " bytes exceeds the spool segment size");
+        }
+        Segment segment = active;
+        int position = segment.writePosition;
+        // Keep room for a zero length terminator after the last record
+        if (position + size + Integer.BYTES > segmentBytes) {
+            segment = rotate(segment);
+            position = 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        segment.buffer.put(position + HEADER_BYTES, payload);
+        segment.buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        segment.buffer.putInt(position, payload.length);
+        segment.writePosition = position + size;
+        dirty = true;
+    }
+
+    /**
+     * Reads up to {@code max} logs following the last acknowledged position. Calling it again
+     * without {@link #acknowledge()} returns the same logs.
+     */
+    List<AuditLog> poll(int max) {
+        List<AuditLog> logs = new ArrayList<>(Math.min(max, 256));
+        Segment segment = ackedSegment;
+        int offset = ackedOffset;
+        while (logs.size() < max) {
+            boolean sealed = segment.sealed;
+            int limit = segment.writePosition;
+            if (offset < limit) {
+                ByteBuffer view = segment.buffer.duplicate();
+                int length = view.getInt(offset);
+                byte[] payload = new byte[length];
+                view.get(offset + HEADER_BYTES, payload);
+                logs.add(decode(payload));
+                offset += HEADER_BYTES + length;
+                continue;
+            }
+            Map.Entry<Long, Segment> next = sealed ? segments.higherEntry(segment.sequence) : null;
+            if (next == null) {
+                break;
+            }
+            segment = next.getValue();
+            offset = 0;
+        }
+        pendingSegment = segment;
+        pendingOffset = offset;
+        return logs;
+    }
+
+    /** Marks everything returned by the last {@link #poll(int)} as written and drops consumed segments. */
+    void acknowledge() {
+        ackedSegment = pendingSegment;
+        ackedOffset = pendingOffset;
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(ackedSegment.sequence)
+                .putInt(ackedOffset)
+                .flip();
+        try {
+            checkpointChannel.write(checkpoint, 0);
+            checkpointChannel.force(false);
+            for (Segment consumed : segments.headMap(ackedSegment.sequence).values()) {
+                segments.remove(consumed.sequence);
+                consumed.channel.close();
+                Files.deleteIfExists(consumed.path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Appends a log the database rejected to the dead letter file, as one JSON line. */
+    void deadLetter(AuditLog auditLog, String reason) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("eventId", auditLog.getEventId());
+        line.put("action", auditLog.getAction());
+        line.put("entityType", auditLog.getEntityType());
+        line.put("entityId", auditLog.getEntityId());
+        line.put("username", auditLog.getUsername());
+        line.put("userAgent", auditLog.getUserAgent());
+        line.put("ipAddress", auditLog.getIpAddress());
+        line.put("timestamp", auditLog.getTimestamp() == null ? null : auditLog.getTimestamp().toString());
+        line.put("success", auditLog.isSuccess());
+        line.put("errorMessage", auditLog.getErrorMessage());
+        // Kept as a string, it may be the malformed part
+        line.put("changes", auditLog.getChanges());
+        line.put("durationMicros", auditLog.getDurationMicros());
+        line.put("statementCount", auditLog.getStatementCount());
+        line.put("requestBytes", auditLog.getRequestBytes());
+        line.put("responseBytes", auditLog.getResponseBytes());
+        line.put("reason", reason);
+        try {
+            Files.writeString(directory.resolve(DEAD_LETTER_FILE), MAPPER.writeValueAsString(line) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private void force() {
+        if (dirty) {
+            dirty = false;
+            active.buffer.force();
+        }
+    }
+
+    private Segment rotate(Segment current) {
+        current.buffer.force();
+        Segment next = createSegment(current.sequence + 1);
+        // Publish the next segment before sealing so a reader that sees the seal can move on
+        active = next;
+        current.sealed = true;
+        return next;
+    }
+
+    private Segment createSegment(long sequence) {
+        Path path = directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        try {
+            Segment segment = map(sequence, path, segmentBytes);
+            segments.put(sequence, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Segment map(long sequence, Path path, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(sequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    private static int scanEnd(Segment segment) {
+        ByteBuffer view = segment.buffer.duplicate();
+        int capacity = view.capacity();
+        int offset = 0;
+        CRC32C crc = new CRC32C();
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = view.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > capacity) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            view.get(offset + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != view.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static byte[] encode(AuditLog auditLog) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            UUID eventId = auditLog.getEventId();
+            out.writeLong(eventId.getMostSignificantBits());
+            out.writeLong(eventId.getLeastSignificantBits());
+            writeString(out, auditLog.getAction());
+            writeString(out, auditLog.getEntityType());
+            out.writeBoolean(auditLog.getEntityId() != null);
+            if (auditLog.getEntityId() != null) {
+                out.writeLong(auditLog.getEntityId());
+            }
+            writeString(out, auditLog.getUsername());
+            writeString(out, auditLog.getUserAgent());
+            writeString(out, auditLog.getIpAddress());
+            LocalDateTime timestamp = auditLog.getTimestamp();
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+            out.writeBoolean(auditLog.isSuccess());
+            writeString(out, auditLog.getErrorMessage());
+            writeString(out, auditLog.getChanges());
+            writeLong(out, auditLog.getDurationMicros());
+            writeLong(out, auditLog.getStatementCount() == null ? null : auditLog.getStatementCount().longValue());
+            writeLong(out, auditLog.getRequestBytes());
+            writeLong(out, auditLog.getResponseBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AuditLog decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            AuditLog.AuditLogBuilder builder = AuditLog.builder()
+                    .eventId(new UUID(in.readLong(), in.readLong()))
+                    .action(readString(in))
+                    .entityType(readString(in));
+            if (in.readBoolean()) {
+                builder.entityId(in.readLong());
+            }
+            builder
+                    .username(readString(in))
+                    .userAgent(readString(in))
+                    .ipAddress(readString(in))
+                    .timestamp(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC))
+                    .success(in.readBoolean())
+                    .errorMessage(readString(in));
+            // Records spooled before changes or performance were captured end early
+            if (in.available() > 0) {
+                builder.changes(readString(in));
+            }
+            if (in.available() > 0) {
+                builder.durationMicros(readLong(in));
+                Long statementCount = readLong(in);
+                builder.statementCount(statementCount == null ? null : statementCount.intValue())
+                        .requestBytes(readLong(in))
+                        .responseBytes(readLong(in));
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The marker byte was a boolean before long strings, so older records read the same
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(STRING_NULL);
+        } else if (value.length() <= MAX_UTF_CHARS) {
+            out.writeByte(STRING_UTF);
+            out.writeUTF(value);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING_LONG);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case STRING_NULL -> null;
+            case STRING_UTF -> in.readUTF();
+            default -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on each thread, so {@link AuditAspect} can record
+ * how many an audited call issued. Statements sent through JdbcTemplate are not seen.
+ */
+@Component
+public class AuditStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        counts.get()[0]++;
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    /** Statements prepared on the current thread so far, callers take the difference. */
+    public long count() {
+        return counts.get()[0];
+    }
+}
@@ -0,0 +1,175 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Live audit events for {@code GET /api/audit-logs/tail}. {@link AuditAspect} publishes each recorded
+ * log into a fixed broadcast ring of {@code audit.tail.buffer-size} slots, which is a single array
+ * store, so the audited request never waits for a subscriber.
+ * <p>
+ * Every subscriber has its own cursor into the ring and its own virtual thread that sends the events
+ * matching its filter. A subscriber that falls more than a ring behind skips ahead and gets a
+ * {@code lagged} event with the number of events it missed. Event ids are ring sequences, so a client
+ * reconnecting with {@code Last-Event-ID} resumes where it stopped if those events are still buffered.
+ */
+@Component
+public class AuditTail {
+
+    record Filter(String action, String username, Boolean success) {
+        boolean matches(AuditLog log) {
+            return (action == null || action.equals(log.getAction()))
+                    && (username == null || username.equals(log.getUsername()))
+                    && (success == null || success == log.isSuccess());
+        }
+    }
+
+    private record Event(long sequence, AuditLog log) {}
+
+    private final AtomicReferenceArray<Event> ring;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxSubscribers;
+    private final long heartbeatNanos;
+    private final long timeoutMillis;
+
+    AuditTail(
+            @Value("${audit.tail.buffer-size:4096}") int bufferSize,
+            @Value("${audit.tail.max-subscribers:50}") int maxSubscribers,
+            @Value("${audit.tail.heartbeat-seconds:15}") int heartbeatSeconds,
+            @Value("${audit.tail.timeout-minutes:60}") long timeoutMinutes) {
+        this.ring = new AtomicReferenceArray<>(bufferSize);
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    public void publish(AuditLog auditLog) {
+        long sequence = nextSequence.getAndIncrement();
+        ring.set(index(sequence), new Event(sequence, auditLog));
+        for (Subscriber subscriber : subscribers) {
+            subscriber.wake();
+        }
+    }
+
+    public SseEmitter subscribe(Filter filter, Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), filter, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Filter filter, Long lastEventId) {
+        long head = nextSequence.get();
+        // Sequences start at 0, so a negative or unknown id resumes from the oldest buffered event
+        long cursor = lastEventId == null ? head : Math.clamp(lastEventId + 1, Math.max(0, head - ring.length()), head);
+        Subscriber subscriber = new Subscriber(emitter, filter, cursor);
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many audit tail subscribers");
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        executor.execute(subscriber::run);
+        return emitter;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+            subscriber.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private int index(long sequence) {
+        return (int) Math.floorMod(sequence, ring.length());
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private long cursor;
+        private volatile Thread thread;
+        private volatile boolean open = true;
+
+        Subscriber(SseEmitter emitter, Filter filter, long cursor) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+
+        void run() {
+            thread = Thread.currentThread();
+            long lastSend = System.nanoTime();
+            try {
+                while (open) {
+                    Event event = ring.get(index(cursor));
+                    if (event == null || event.sequence() < cursor) {
+                        // Caught up, or the publisher hasn't filled the slot yet
+                        if (System.nanoTime() - lastSend >= heartbeatNanos) {
+                            emitter.send(SseEmitter.event().comment("heartbeat"));
+                            lastSend = System.nanoTime();
+                        }
+                        LockSupport.parkNanos(heartbeatNanos);
+                    } else if (event.sequence() > cursor) {
+                        long resume = Math.max(cursor + 1, nextSequence.get() - ring.length());
+                        emitter.send(SseEmitter.event().name("lagged").data(resume - cursor));
+                        cursor = resume;
+                        lastSend = System.nanoTime();
+                    } else {
+                        cursor++;
+                        if (filter.matches(event.log())) {
+                            emitter.send(SseEmitter.event()
+                                    .id(Long.toString(event.sequence()))
+                                    .name("audit")
+                                    .data(event.log(), MediaType.APPLICATION_JSON));
+                            lastSend = System.nanoTime();
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client went away, the emitter already completed or the event couldn't be written;
+                // either way the stream has to end so the client reconnects instead of hanging
+                emitter.completeWithError(e);
+            } finally {
+                close();
+            }
+        }
+
+        void wake() {
+            Thread current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+
+        void close() {
+            open = false;
+            subscribers.remove(this);
+            wake();
+        }
+    }
+}
@@ -10,4 +10,13 @@ import java.lang.annotation.Target;
 public @interface Auditable {
     String action();
     String entityType();
-}
\ No newline at end of file
+
+    /** Fraction of successful calls that are logged, between 0 and 1. */
+    double successSampleRate() default 1.0;
+
+    /** Log every failure regardless of the sampling rules. */
+    boolean alwaysLogFailures() default true;
+
+    /** Max logged successful calls per user (client address when anonymous) and minute, 0 for no cap. */
+    int perUserPerMinute() default 0;
+}
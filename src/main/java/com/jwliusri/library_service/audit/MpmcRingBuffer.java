@@ -0,0 +1,92 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue (Dmitry Vyukov's design).
+ * Every slot carries a sequence number telling producers and consumers whose turn it is,
+ * so offer and poll are a single CAS on the shared position in the uncontended case.
+ */
+class MpmcRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePos = new AtomicLong();
+    private final AtomicLong dequeuePos = new AtomicLong();
+
+    MpmcRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E element) {
+        long pos = enqueuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                    buffer.set(index, element);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = enqueuePos.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = enqueuePos.get();
+            }
+        }
+    }
+
+    E poll() {
+        long pos = dequeuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    E element = buffer.get(index);
+                    buffer.set(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return element;
+                }
+                pos = dequeuePos.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = dequeuePos.get();
+            }
+        }
+    }
+
+    int drainTo(List<? super E> sink, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            sink.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    int size() {
+        return (int) Math.max(0, enqueuePos.get() - dequeuePos.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
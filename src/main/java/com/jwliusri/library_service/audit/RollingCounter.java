@@ -0,0 +1,57 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event count over a sliding window of whole seconds: a ring of per-second {@link LongAdder} buckets,
+ * each tagged with the second it currently counts. The first increment in a new second claims the
+ * bucket with a CAS and resets it, so counts racing that reset can be lost at the bucket boundary.
+ */
+class RollingCounter {
+
+    private final int seconds;
+    private final AtomicLongArray bucketSeconds;
+    private final LongAdder[] buckets;
+
+    RollingCounter(int seconds) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("seconds must be at least 1");
+        }
+        this.seconds = seconds;
+        this.bucketSeconds = new AtomicLongArray(seconds);
+        this.buckets = new LongAdder[seconds];
+        for (int i = 0; i < seconds; i++) {
+            bucketSeconds.set(i, -1);
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void increment(long nowMillis) {
+        long second = nowMillis / 1000;
+        int index = (int) (second % seconds);
+        long claimed = bucketSeconds.get(index);
+        if (claimed < second && bucketSeconds.compareAndSet(index, claimed, second)) {
+            buckets[index].reset();
+        }
+        buckets[index].increment();
+    }
+
+    /** Events in the last {@code windowSeconds} seconds, including the current one. */
+    long sum(int windowSeconds, long nowMillis) {
+        long second = nowMillis / 1000;
+        int window = Math.min(windowSeconds, seconds);
+        long sum = 0;
+        for (int i = 0; i < window; i++) {
+            int index = (int) ((second - i) % seconds);
+            if (bucketSeconds.get(index) == second - i) {
+                sum += buckets[index].sum();
+            }
+        }
+        return sum;
+    }
+
+    int seconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,190 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving heavy hitters (Metwally et al.) over a fixed number of counters. A key that isn't
+ * tracked takes over the smallest counter and inherits its count as the error bound, so any key
+ * seen more than total/capacity times is guaranteed to be in the table.
+ * <p>
+ * Counters sit in the paper's stream-summary, a list of buckets in ascending count, so an
+ * increment and a takeover are O(1). Larger sketches are split into stripes by key hash, each
+ * with its own lock and share of the counters, so concurrent calls rarely wait on each other;
+ * the guarantee then holds per stripe.
+ */
+class SpaceSavingTopK {
+
+    record Entry(String key, long count, long error) {}
+
+    // Fewer counters than this per stripe would make the per-stripe error bound too loose
+    static final int MIN_STRIPE_CAPACITY = 16;
+    static final int MAX_STRIPES = 16;
+
+    private final Stripe[] stripes;
+
+    SpaceSavingTopK(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        int count = Integer.highestOneBit(Math.clamp(capacity / MIN_STRIPE_CAPACITY, 1, MAX_STRIPES));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder so the stripes add up to the capacity
+            stripes[i] = new Stripe(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    void add(String key) {
+        int hash = key.hashCode();
+        stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)].add(key);
+    }
+
+    List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.collect(entries);
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() <= k ? entries : List.copyOf(entries.subList(0, k));
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    private static final class Bucket {
+        private final long count;
+        private Bucket prev;
+        private Bucket next;
+        private Counter first;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static final class Counter {
+        private String key;
+        private long error;
+        private Bucket bucket;
+        private Counter prev;
+        private Counter next;
+    }
+
+    private static final class Stripe {
+        private final int capacity;
+        private final Map<String, Counter> counters;
+        // Head of the bucket list, the smallest count
+        private Bucket min;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.counters = new HashMap<>(capacity * 2);
+        }
+
+        synchronized void add(String key) {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                increment(counter);
+            } else if (counters.size() < capacity) {
+                counter = new Counter();
+                counter.key = key;
+                counters.put(key, counter);
+                // Every count is at least 1, so a bucket of 1 can only be the head
+                if (min == null || min.count != 1) {
+                    linkAfter(null, new Bucket(1));
+                }
+                push(min, counter);
+            } else {
+                counter = min.first;
+                counters.remove(counter.key);
+                counter.key = key;
+                counter.error = min.count;
+                counters.put(key, counter);
+                increment(counter);
+            }
+        }
+
+        synchronized void collect(List<Entry> entries) {
+            for (Counter counter : counters.values()) {
+                entries.add(new Entry(counter.key, counter.bucket.count, counter.error));
+            }
+        }
+
+        synchronized void clear() {
+            counters.clear();
+            min = null;
+        }
+
+        private void increment(Counter counter) {
+            Bucket bucket = counter.bucket;
+            Bucket next = bucket.next;
+            if (next == null || next.count != bucket.count + 1) {
+                next = new Bucket(bucket.count + 1);
+                linkAfter(bucket, next);
+            }
+            unlink(counter);
+            push(next, counter);
+            if (bucket.first == null) {
+                unlink(bucket);
+            }
+        }
+
+        private void linkAfter(Bucket prev, Bucket bucket) {
+            Bucket next = prev == null ? min : prev.next;
+            bucket.prev = prev;
+            bucket.next = next;
+            if (next != null) {
+                next.prev = bucket;
+            }
+            if (prev == null) {
+                min = bucket;
+            } else {
+                prev.next = bucket;
+            }
+        }
+
+        private void unlink(Bucket bucket) {
+            if (bucket.prev == null) {
+                min = bucket.next;
+            } else {
+                bucket.prev.next = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            }
+        }
+
+        private static void push(Bucket bucket, Counter counter) {
+            counter.bucket = bucket;
+            counter.prev = null;
+            counter.next = bucket.first;
+            if (bucket.first != null) {
+                bucket.first.prev = counter;
+            }
+            bucket.first = counter;
+        }
+
+        private static void unlink(Counter counter) {
+            Bucket bucket = counter.bucket;
+            if (counter.prev == null) {
+                bucket.first = counter.next;
+            } else {
+                counter.prev.next = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+        }
+    }
+}
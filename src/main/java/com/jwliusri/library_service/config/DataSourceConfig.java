@@ -0,0 +1,136 @@
+package com.jwliusri.library_service.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Primary and read replica connection pools. The application DataSource is a
+ * {@link LazyConnectionDataSourceProxy} over the primary pool: a transaction that is read-only before
+ * its first statement takes its connection from {@link ReplicaRoutingDataSource} instead, which only
+ * hands out a replica connection inside a {@code @Transactional(readOnly = true)} method of this
+ * application, see {@link ReplicaReadScope}. Spring Data's own read-only transactions stay on the
+ * primary. Without {@code datasource.replica.url} there is no replica pool and everything runs on the primary.
+ * {@link HedgedReadExecutor} is opt-in on top of the replica, with {@code datasource.replica.hedging.enabled}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String REPLICA_CONFIGURED = "!'${datasource.replica.url:}'.isBlank()";
+    private static final String HEDGING_ENABLED = "${datasource.replica.hedging.enabled:false} and " + REPLICA_CONFIGURED;
+    private static final String HEDGE_REPLICA_CONFIGURED = HEDGING_ENABLED + " and !'${datasource.replica.hedging.url:}'.isBlank()";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaStickiness replicaStickiness(@Value("${datasource.replica.sticky-seconds:5}") int stickySeconds) {
+        return new ReplicaStickiness(stickySeconds);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    HikariDataSource replicaDataSource(
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${datasource.replica.connection-timeout-millis:1000}") long connectionTimeoutMillis) {
+        return replicaPool("replica", url, username, password, maximumPoolSize, connectionTimeoutMillis);
+    }
+
+    @Bean
+    @ConditionalOnExpression(HEDGE_REPLICA_CONFIGURED)
+    HikariDataSource hedgeReplicaDataSource(
+            @Value("${datasource.replica.hedging.url}") String url,
+            @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${datasource.replica.connection-timeout-millis:1000}") long connectionTimeoutMillis) {
+        return replicaPool("replica-hedge", url, username, password, maximumPoolSize, connectionTimeoutMillis);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            ReplicaStickiness replicaStickiness,
+            @Value("${datasource.replica.max-lag-seconds:10}") double maxLagSeconds) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaStickiness, maxLagSeconds);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    ReplicaReadScope replicaReadScope(EntityManagerFactory entityManagerFactory) {
+        return new ReplicaReadScope(entityManagerFactory);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    TransactionManagerCustomizer<JpaTransactionManager> replicaReadEntityManagers() {
+        return transactionManager -> transactionManager.setEntityManagerInitializer(ReplicaReadScope::initialize);
+    }
+
+    // Hedges go to the second replica when there is one, the primary otherwise
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression(HEDGING_ENABLED)
+    HedgedReadExecutor hedgedReadExecutor(
+            HikariDataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            @Qualifier("hedgeReplicaDataSource") ObjectProvider<HikariDataSource> hedgeReplicaDataSource,
+            ReplicaStickiness replicaStickiness,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.replica.hedging.max-ratio:0.05}") double maxRatio,
+            @Value("${datasource.replica.hedging.holdback-ratio:0.01}") double holdbackRatio,
+            @Value("${datasource.replica.hedging.default-delay-millis:50}") long defaultDelayMillis,
+            @Value("${datasource.replica.hedging.min-delay-millis:5}") long minDelayMillis) {
+        return new HedgedReadExecutor(primaryDataSource, replicaRoutingDataSource.replicaReads(),
+                hedgeReplicaDataSource.getIfAvailable(() -> primaryDataSource), replicaStickiness, meterRegistry,
+                maxRatio, holdbackRatio, defaultDelayMillis, minDelayMillis);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        replicaRoutingDataSource.ifAvailable(dataSource::setReadOnlyDataSource);
+        return dataSource;
+    }
+
+    private static HikariDataSource replicaPool(String poolName, String url, String username, String password,
+            int maximumPoolSize, long connectionTimeoutMillis) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        // Fail fast, a read falls back to the primary instead of waiting on a dead replica
+        dataSource.setConnectionTimeout(connectionTimeoutMillis);
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
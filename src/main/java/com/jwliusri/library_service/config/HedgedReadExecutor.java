@@ -0,0 +1,273 @@
+package com.jwliusri.library_service.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Hedged reads for latency sensitive queries. A query runs on the read replica, see
+ * {@link ReplicaRoutingDataSource}; when it hasn't answered within the recent p95 of the query on the
+ * replica, the same query also runs on the hedge target, a second replica or else the primary. The
+ * first result wins and the other statement is cancelled. Every read earns {@code max-ratio} of a hedge
+ * and a hedge spends a whole one, so hedging adds at most that share of load even when the replica is
+ * slow across the board. A replica attempt that fails before any hedge went out falls back to the hedge
+ * target without spending the budget, the failed attempt added no load.
+ *
+ * <p>A {@code holdback-ratio} share of reads is never hedged. {@code replica.hedged.reads} times reads
+ * tagged {@code hedging=on|off}, the gap between their p99 is what hedging buys.
+ * {@code replica.hedged.reads.replica} times the replica attempts the delay is taken from.
+ */
+public class HedgedReadExecutor implements AutoCloseable {
+
+    // Below this many reads the p95 is noise, the default delay applies
+    private static final long MIN_SAMPLES = 100;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // The budget counts thousandths of a hedge and holds a burst of up to 10 hedges
+    private static final long HEDGE_COST = 1000;
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final DataSource replica;
+    private final DataSource hedge;
+    private final JdbcTemplate primary;
+    private final ReplicaStickiness stickiness;
+    private final MeterRegistry meterRegistry;
+    private final long earnPerRead;
+    private final double holdbackRatio;
+    private final long defaultDelayNanos;
+    private final long minDelayNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong budget = new AtomicLong(MAX_BUDGET);
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+    public HedgedReadExecutor(DataSource primary, DataSource replica, DataSource hedge, ReplicaStickiness stickiness,
+            MeterRegistry meterRegistry, double maxRatio, double holdbackRatio, long defaultDelayMillis, long minDelayMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = replica;
+        this.hedge = hedge;
+        this.stickiness = stickiness;
+        this.meterRegistry = meterRegistry;
+        this.earnPerRead = Math.round(maxRatio * HEDGE_COST);
+        this.holdbackRatio = holdbackRatio;
+        this.defaultDelayNanos = TimeUnit.MILLISECONDS.toNanos(defaultDelayMillis);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    }
+
+    /** Runs the read-only {@code sql}, {@code name} tags its meters. */
+    public <T> T query(String name, String sql, ResultSetExtractor<T> extractor, Object... args) {
+        if (stickiness.isPinned()) {
+            // Read-your-writes, the replica may not have the user's last write yet
+            return primary.query(sql, extractor, args);
+        }
+        QueryStats query = stats.computeIfAbsent(name, QueryStats::new);
+        boolean hedging = holdbackRatio <= 0 || ThreadLocalRandom.current().nextDouble() >= holdbackRatio;
+        long start = System.nanoTime();
+        Attempt<T> first = submit(replica, sql, extractor, args);
+        first.result.thenRun(() -> first.time(query.replicaLatency));
+        Attempt<T> second = null;
+        try {
+            Attempt<T> winner = first;
+            if (hedging) {
+                budget.accumulateAndGet(earnPerRead, (current, earned) -> Math.min(current + earned, MAX_BUDGET));
+                try {
+                    first.result.get(query.delayNanos(), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    // The replica failed fast, it falls back below
+                } catch (TimeoutException e) {
+                    if (budget.getAndUpdate(current -> current >= HEDGE_COST ? current - HEDGE_COST : current) >= HEDGE_COST) {
+                        second = submit(hedge, sql, extractor, args);
+                        winner = firstSuccessful(first, second);
+                        if (winner == second) {
+                            // A lower bound, the replica took at least this long
+                            first.time(query.replicaLatency);
+                        }
+                        (winner == first ? second : first).cancel();
+                        (winner == first ? query.lost : query.won).increment();
+                    } else {
+                        query.throttled.increment();
+                    }
+                }
+            }
+            T result;
+            try {
+                result = winner.result.get();
+            } catch (ExecutionException e) {
+                if (second != null) {
+                    throw e;
+                }
+                second = submit(hedge, sql, extractor, args);
+                query.fallbacks.increment();
+                result = second.result.get();
+            }
+            (hedging ? query.hedged : query.unhedged).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            first.cancel();
+            if (second != null) {
+                second.cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while reading " + name, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> Attempt<T> submit(DataSource dataSource, String sql, ResultSetExtractor<T> extractor, Object[] args) {
+        Attempt<T> attempt = new Attempt<>();
+        executor.execute(() -> {
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement statement = connection.prepareStatement(sql)) {
+                attempt.statement = statement;
+                if (attempt.cancelled) {
+                    attempt.result.cancel(false);
+                    return;
+                }
+                new ArgumentPreparedStatementSetter(args).setValues(statement);
+                try (ResultSet rs = statement.executeQuery()) {
+                    attempt.result.complete(extractor.extractData(rs));
+                }
+            } catch (SQLException e) {
+                DataAccessException translated = primary.getExceptionTranslator().translate("Hedged read", sql, e);
+                attempt.result.completeExceptionally(translated != null ? translated : new UncategorizedSQLException("Hedged read", sql, e));
+            } catch (RuntimeException e) {
+                attempt.result.completeExceptionally(e);
+            }
+        });
+        return attempt;
+    }
+
+    // Fails only when both attempts fail, with the failure of the last one
+    private static <T> Attempt<T> firstSuccessful(Attempt<T> first, Attempt<T> second)
+            throws ExecutionException, InterruptedException {
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (Attempt<T> attempt : List.of(first, second)) {
+            attempt.result.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    winner.complete(attempt);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(failure);
+                }
+            });
+        }
+        return winner.get();
+    }
+
+    private static final class Attempt<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean timed = new AtomicBoolean();
+        private volatile Statement statement;
+        private volatile boolean cancelled;
+
+        // Once, either when the attempt answers or when it loses to the hedge
+        void time(Timer timer) {
+            if (timed.compareAndSet(false, true)) {
+                timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // The flag and the statement are both volatile, either the query sees the flag or this sees the statement
+        void cancel() {
+            cancelled = true;
+            Statement running = statement;
+            if (running != null && !result.isDone()) {
+                try {
+                    running.cancel();
+                } catch (SQLException e) {
+                    // The statement finished or its connection is gone, nothing left to cancel
+                }
+            }
+        }
+    }
+
+    private final class QueryStats {
+        private final Timer hedged;
+        private final Timer unhedged;
+        private final Timer replicaLatency;
+        private final Counter won;
+        private final Counter lost;
+        private final Counter throttled;
+        private final Counter fallbacks;
+        private volatile long delayNanos = defaultDelayNanos;
+        private volatile long delayRefreshedAt = System.nanoTime();
+
+        QueryStats(String name) {
+            hedged = timer(name, "on");
+            unhedged = timer(name, "off");
+            replicaLatency = Timer.builder("replica.hedged.reads.replica")
+                    .tag("query", name)
+                    .publishPercentiles(0.95)
+                    .register(meterRegistry);
+            won = hedges(name, "won");
+            lost = hedges(name, "lost");
+            throttled = hedges(name, "throttled");
+            fallbacks = hedges(name, "fallback");
+        }
+
+        // From the replica attempts alone, the end-to-end time of hedged reads would fall with every hedge that wins
+        long delayNanos() {
+            long now = System.nanoTime();
+            if (now - delayRefreshedAt >= DELAY_REFRESH_NANOS) {
+                delayRefreshedAt = now;
+                if (replicaLatency.count() >= MIN_SAMPLES) {
+                    for (ValueAtPercentile percentile : replicaLatency.takeSnapshot().percentileValues()) {
+                        if (percentile.percentile() == 0.95) {
+                            delayNanos = Math.max(minDelayNanos, (long) percentile.value(TimeUnit.NANOSECONDS));
+                        }
+                    }
+                }
+            }
+            return delayNanos;
+        }
+
+        private Timer timer(String name, String hedging) {
+            return Timer.builder("replica.hedged.reads")
+                    .tag("query", name)
+                    .tag("hedging", hedging)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+
+        private Counter hedges(String name, String outcome) {
+            return Counter.builder("replica.hedged.reads.hedges")
+                    .tag("query", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jwliusri.library_service.config;
+
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Caffeine backed JCache regions for the Hibernate second-level cache. Entity and query result
+ * regions hold at most {@code hibernate.cache.max-entries} entries each and expire
+ * {@code hibernate.cache.expire-minutes} after write. The update timestamps region stays unbounded,
+ * as Hibernate requires; it holds one entry per table.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String USERS_REGION = "users";
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(
+            @Value("${hibernate.cache.max-entries:10000}") long maxEntries,
+            @Value("${hibernate.cache.expire-minutes:30}") long expireMinutes) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate"), getClass().getClassLoader());
+        for (String region : List.of(USERS_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                    .setMaximumSize(OptionalLong.of(maxEntries))
+                    .setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(expireMinutes)));
+            create(cacheManager, region, configuration);
+        }
+        create(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void create(CacheManager cacheManager, String region, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(region) == null) {
+            // Hibernate keeps its own copies, storing by reference avoids serializing every entry
+            cacheManager.createCache(region, configuration.setStoreByValue(false).setStatisticsEnabled(true));
+        }
+    }
+}
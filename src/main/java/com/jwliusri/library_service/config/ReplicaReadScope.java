@@ -0,0 +1,79 @@
+package com.jwliusri.library_service.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Marks the reads that may run on the read replica, see {@link ReplicaRoutingDataSource}: methods of this
+ * application annotated {@code @Transactional(readOnly = true)}. Every other read-only transaction, such
+ * as Spring Data's default ones behind logins, lockout checks and the permission checks of updates, stays
+ * on the primary.
+ * <p>
+ * A replica read only gets from the second-level cache and never puts into it, so a row the replica
+ * hasn't caught up on can't be cached for everyone else.
+ */
+@Aspect
+// Just outside the transaction advice, which has the lowest precedence, so the mark is set before it begins
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ReplicaReadScope {
+
+    private static final String STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ReplicaReadScope(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /** Whether the current thread is inside a replica read. */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /** Applied to the entity managers the transaction manager creates, see {@link DataSourceConfig}. */
+    public static void initialize(EntityManager entityManager) {
+        if (isActive()) {
+            entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+
+    @Around("within(com.jwliusri.library_service..*) && @annotation(transactional)")
+    public Object replicaRead(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly() || isActive()) {
+            return joinPoint.proceed();
+        }
+        // This runs before the transaction begins, an entity manager bound already is an open session in view
+        EntityManager entityManager = boundEntityManager();
+        Object storeMode = entityManager == null ? null : entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        if (entityManager != null) {
+            entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ACTIVE.remove();
+            if (entityManager != null) {
+                entityManager.setProperty(STORE_MODE, storeMode);
+            }
+        }
+    }
+
+    private EntityManager boundEntityManager() {
+        return TransactionSynchronizationManager.getResource(entityManagerFactory) instanceof EntityManagerHolder holder
+                ? holder.getEntityManager()
+                : null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.jwliusri.library_service.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Connections for read-only transactions, see {@link DataSourceConfig}. They come from the replica
+ * pool only inside a read marked by {@link ReplicaReadScope}, and not even then when the current user
+ * is pinned to the primary by {@link ReplicaStickiness} or the replica is unhealthy. A replica is
+ * unhealthy when it can't hand out a connection, or when the scheduled check finds it more than
+ * {@code datasource.replica.max-lag-seconds} behind; the check brings it back once it has caught up.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    // Replay lag only counts while WAL is pending, an idle primary would otherwise look like growing lag
+    private static final String LAG_QUERY = "select case when pg_is_in_recovery() and pg_last_wal_receive_lsn() <> pg_last_wal_replay_lsn() "
+            + "then coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) else 0 end";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaStickiness stickiness;
+    private final double maxLagSeconds;
+    private volatile boolean healthy = true;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaStickiness stickiness, double maxLagSeconds) {
+        this.primary = primary;
+        this.replica = replica;
+        this.stickiness = stickiness;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(ReplicaReadScope.isActive(), null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(ReplicaReadScope.isActive(), username, password);
+    }
+
+    /** Connections for callers that read from the replica by design and run outside a marked read. */
+    public DataSource replicaReads() {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return connect(true, null, null);
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return connect(true, username, password);
+            }
+        };
+    }
+
+    private Connection connect(boolean replicaRead, String username, String password) throws SQLException {
+        if (replicaRead && useReplica()) {
+            try {
+                return username == null ? replica.getConnection() : replica.getConnection(username, password);
+            } catch (SQLException e) {
+                markUnhealthy("can't connect", e);
+            }
+        }
+        return username == null ? primary.getConnection() : primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.health-check-millis:5000}")
+    public void checkHealth() {
+        try (Connection connection = replica.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            double lag = rs.next() ? rs.getDouble(1) : 0;
+            if (lag > maxLagSeconds) {
+                markUnhealthy("lags " + lag + "s behind", null);
+            } else if (!healthy) {
+                healthy = true;
+                log.info("Read replica is back, routing read-only transactions to it");
+            }
+        } catch (SQLException e) {
+            markUnhealthy("failed its health check", e);
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    private boolean useReplica() {
+        return healthy && !stickiness.isPinned();
+    }
+
+    private void markUnhealthy(String reason, SQLException cause) {
+        if (healthy) {
+            healthy = false;
+            log.warn("Read replica {}, routing read-only transactions to the primary: {}", reason,
+                    cause == null ? "" : cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.jwliusri.library_service.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Read-your-writes for replica routing. Spring Boot registers this listener on the transaction
+ * manager; every committed read-write transaction pins the current user to the primary for
+ * {@code datasource.replica.sticky-seconds}, so their next reads can't miss their own write on a
+ * lagging replica. Requests without an authenticated user are not tracked.
+ */
+public class ReplicaStickiness implements TransactionExecutionListener {
+
+    // Past this many pinned users the coldest are unpinned early and may read a lagging replica
+    private static final int MAX_PINNED = 100_000;
+
+    private final long stickyNanos;
+    private final Cache<String, Long> pinnedUntil;
+
+    public ReplicaStickiness(int stickySeconds) {
+        this(stickySeconds, MAX_PINNED);
+    }
+
+    ReplicaStickiness(int stickySeconds, int maxPinned) {
+        this.stickyNanos = TimeUnit.SECONDS.toNanos(stickySeconds);
+        this.pinnedUntil = Caffeine.newBuilder()
+                .maximumSize(maxPinned)
+                .expireAfterWrite(Duration.ofSeconds(stickySeconds))
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            String username = currentUsername();
+            if (username != null) {
+                pin(username, System.nanoTime());
+            }
+        }
+    }
+
+    /** Whether the current user wrote recently and must read from the primary. */
+    public boolean isPinned() {
+        String username = currentUsername();
+        return username != null && isPinned(username, System.nanoTime());
+    }
+
+    void pin(String username, long nowNanos) {
+        pinnedUntil.put(username, nowNanos + stickyNanos);
+    }
+
+    // The cache expires entries on its own clock, the deadline keeps a check exact between its sweeps
+    boolean isPinned(String username, long nowNanos) {
+        Long until = pinnedUntil.getIfPresent(username);
+        return until != null && until - nowNanos >= 0;
+    }
+
+    long getPinnedCount() {
+        pinnedUntil.cleanUp();
+        return pinnedUntil.estimatedSize();
+    }
+
+    private static String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || !auth.isAuthenticated() ? null : auth.getName();
+    }
+}
@@ -68,6 +68,8 @@ public class WebSecurityConfig {
                 .requestMatchers(SWAGGER_WHITELIST).permitAll()
                 .requestMatchers("/api/users/**").hasRole("SUPER_ADMIN")
                 .requestMatchers("/api/audit-logs/**").hasRole("SUPER_ADMIN")
+                .requestMatchers("/actuator/auditmetrics/**").hasRole("SUPER_ADMIN")
+                .requestMatchers("/actuator/metrics/**").hasRole("SUPER_ADMIN")
                 .requestMatchers("/api/auth/**").permitAll()
                 .anyRequest().authenticated()
             )
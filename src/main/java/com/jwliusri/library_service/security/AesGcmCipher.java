@@ -0,0 +1,73 @@
+package com.jwliusri.library_service.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-256-GCM authenticated encryption. Output is {@code iv || ciphertext || tag}, so a tampered
+ * or foreign message fails {@link #decrypt} instead of yielding garbage.
+ */
+public class AesGcmCipher {
+
+    public static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKeySpec key;
+
+    public AesGcmCipher(byte[] key) {
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    public byte[] encrypt(byte[] plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            return ByteBuffer.allocate(IV_LENGTH + cipher.getOutputSize(plaintext.length))
+                    .put(iv)
+                    .put(cipher.doFinal(plaintext))
+                    .array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM encryption failed", e);
+        }
+    }
+
+    public byte[] decrypt(byte[] sealed) throws GeneralSecurityException {
+        if (sealed.length < IV_LENGTH + TAG_BITS / 8) {
+            throw new GeneralSecurityException("Sealed message is too short");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+        return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
+
+    /**
+     * Derives an independent 256-bit key for {@code purpose} from a shared secret, so one configured
+     * secret can back several ciphers and MACs without reusing key material.
+     */
+    public static byte[] deriveKey(String secret, String purpose) {
+        return hmacSha256(secret.getBytes(StandardCharsets.UTF_8), purpose.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] hmacSha256(byte[] key, byte[]... parts) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            for (byte[] part : parts) {
+                mac.update(part);
+            }
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.jwliusri.library_service.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -40,6 +41,10 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
             throw new BadCredentialsException("Invalid credential.");
         }
 
+        if (!user.isEnabled()) {
+            throw new DisabledException("Your account is disabled.");
+        }
+
         // Check if the user is blocked due to too many failed login attempts
         if (loginAttemptService.isLocked(user.getUsername())) {
             throw new LockedException("You have been temporarily locked due to too many failed login attempts.");
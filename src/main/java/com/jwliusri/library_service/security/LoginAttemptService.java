@@ -28,7 +28,7 @@ public class LoginAttemptService {
     }
 
     public void loginFailed(String usernameOrEmail) {
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
+        User user = userRepository.findByUsernameOrEmail(usernameOrEmail)
             .orElseThrow();
         
         if (user.isAccountNonLocked()) {
@@ -53,6 +53,10 @@ public class LoginAttemptService {
     public void resetAttempts(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow();
+        // Every login ends here, don't write (and invalidate the user caches) when there is nothing to reset
+        if (user.getFailedAttempt() == 0 && user.isAccountNonLocked() && user.getLockTime() == null && user.getFailedAttemptTime() == null) {
+            return;
+        }
         user.setFailedAttempt(0);
         user.setAccountNonLocked(true);
         user.setLockTime(null);
@@ -7,7 +7,9 @@ import org.springframework.web.server.ResponseStatusException;
 import com.jwliusri.library_service.audit.Auditable;
 import com.jwliusri.library_service.security.JwtUtil;
 import com.jwliusri.library_service.security.mfa.MfaOtpService;
+import com.jwliusri.library_service.security.mfa.TotpService;
 import com.jwliusri.library_service.user.User;
+import com.jwliusri.library_service.user.UserAvailabilityDto;
 import com.jwliusri.library_service.user.UserRequestDto;
 import com.jwliusri.library_service.user.UserResponseDto;
 import com.jwliusri.library_service.user.UserService;
@@ -21,6 +23,7 @@ import org.springframework.security.core.Authentication;
 import java.util.NoSuchElementException;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -30,6 +33,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 @RestController
@@ -45,16 +49,19 @@ public class AuthController {
 
     private final JwtUtil jwtUtil;
 
-    AuthController(JwtUtil jwtUtil, AuthenticationManager authenticationManager, UserService userService, MfaOtpService mfaOtpService) {
+    private final TotpService totpService;
+
+    AuthController(JwtUtil jwtUtil, AuthenticationManager authenticationManager, UserService userService, MfaOtpService mfaOtpService, TotpService totpService) {
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
         this.userService = userService;
         this.mfaOtpService = mfaOtpService;
+        this.totpService = totpService;
     }
 
     @PostMapping("login")
-    @Auditable(action = "USER_LOGIN", entityType = "AUTH")
-    @Operation(summary = "Login", description = "Login with username or email, successfull login will return a MFA OTP requestId and an email is containing the OTP code is sent to the user's email.")
+    @Auditable(action = "USER_LOGIN", entityType = "AUTH", successSampleRate = 0.1, perUserPerMinute = 10)
+    @Operation(summary = "Login", description = "Login with username or email, successfull login will return a MFA OTP requestId and an email is containing the OTP code is sent to the user's email. Users with TOTP enabled (mfaMethod TOTP) validate with their authenticator app code instead.")
     public LoginResponseDto login(@Valid @RequestBody LoginRequestDto request) {
         try {
             Authentication authentication = authenticationManager.authenticate(
@@ -66,7 +73,8 @@ public class AuthController {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             User user = userService.getAuthUser(authentication);
 
-            return new LoginResponseDto(user.getId(), mfaOtpService.generateOtp(userDetails.getUsername()));
+            String mfaMethod = user.isTotpEnabled() ? "TOTP" : "EMAIL";
+            return new LoginResponseDto(user.getId(), mfaOtpService.generateOtp(userDetails.getUsername()), mfaMethod);
         } catch (BadCredentialsException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (LockedException e) {
@@ -77,12 +85,13 @@ public class AuthController {
     }
 
     @PostMapping("validate")
-    @Auditable(action = "USER_VALIDATE", entityType = "AUTH")
-    @Operation(summary = "Validate MFA OTP ", description = "Validate MFA OTP, successfull validation will return JWT token.")
+    @Auditable(action = "USER_VALIDATE", entityType = "AUTH", successSampleRate = 0.1, perUserPerMinute = 10)
+    @Operation(summary = "Validate MFA OTP ", description = "Validate MFA OTP or TOTP code, successfull validation will return JWT token.")
     public ValidateResponseDto validate(@Valid @RequestBody ValidateRequestDto request) {
         try {
+            // Read before validating, a stored challenge is deleted once answered
+            String username = mfaOtpService.getUsernameFromOtp(request.getRequestId());
             if (mfaOtpService.validateOtp(request.getRequestId(), request.getOtp())) {
-                String username = mfaOtpService.getUsernameFromOtp(request.getRequestId());
                 User user = userService.getUserByUsername(username);
                 return new ValidateResponseDto(user.getId(), jwtUtil.generateToken(username));
             }
@@ -108,6 +117,40 @@ public class AuthController {
        return userService.createUser(userRequest);
     }
 
+    @GetMapping("availability")
+    @Operation(summary = "Check username and email availability", description = "Whether a username and/or email can still be registered, case insensitive. Free names are usually answered from memory.")
+    public UserAvailabilityDto checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "username or email is required");
+        }
+        return userService.checkAvailability(username, email);
+    }
+
+    @PostMapping("totp")
+    @PreAuthorize("isAuthenticated()")
+    @Auditable(action = "TOTP_ENROLL", entityType = "AUTH")
+    @Operation(summary = "Enroll TOTP authenticator", description = "Generate a new TOTP secret, it becomes active once a code is confirmed.")
+    public TotpEnrollmentResponseDto enrollTotp(Authentication auth) {
+        return totpService.enroll(auth.getName());
+    }
+
+    @GetMapping(value = "totp/qr", produces = MediaType.IMAGE_PNG_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get TOTP provisioning QR code")
+    public byte[] getTotpQrCode(Authentication auth) {
+        return totpService.qrCode(auth.getName());
+    }
+
+    @PostMapping("totp/confirm")
+    @PreAuthorize("isAuthenticated()")
+    @Auditable(action = "TOTP_CONFIRM", entityType = "AUTH")
+    @Operation(summary = "Confirm TOTP enrollment", description = "Confirm the enrollment with a code from the authenticator app, later logins will be validated with TOTP codes.")
+    public void confirmTotp(@Valid @RequestBody TotpConfirmRequestDto request, Authentication auth) {
+        totpService.confirm(auth.getName(), request.getCode());
+    }
+
     @GetMapping("me")
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "Get JWT token username")
@@ -1,11 +1,20 @@
 package com.jwliusri.library_service.security.auth;
 
+import com.jwliusri.library_service.audit.AuditEntity;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+@AuditEntity
 @Data
 @AllArgsConstructor
 public class LoginResponseDto {
     private Long id;
     private String requestId;
+    // EMAIL when the OTP was mailed, TOTP when it comes from the user's authenticator app
+    private String mfaMethod;
+
+    public LoginResponseDto(Long id, String requestId) {
+        this(id, requestId, "EMAIL");
+    }
 }
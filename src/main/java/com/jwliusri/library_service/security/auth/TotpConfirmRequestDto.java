@@ -0,0 +1,12 @@
+package com.jwliusri.library_service.security.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TotpConfirmRequestDto {
+    private int code;
+}
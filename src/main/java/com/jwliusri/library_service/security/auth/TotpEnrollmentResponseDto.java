@@ -0,0 +1,11 @@
+package com.jwliusri.library_service.security.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TotpEnrollmentResponseDto {
+    private String secret;
+    private String otpauthUri;
+}
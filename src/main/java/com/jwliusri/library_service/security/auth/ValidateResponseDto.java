@@ -1,8 +1,11 @@
 package com.jwliusri.library_service.security.auth;
 
+import com.jwliusri.library_service.audit.AuditEntity;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+@AuditEntity
 @Data
 @AllArgsConstructor
 public class ValidateResponseDto {
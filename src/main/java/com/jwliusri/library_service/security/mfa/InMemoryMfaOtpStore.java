@@ -0,0 +1,174 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Process-local OTP store for single-node deployments that don't run Redis.
+ * Expiry is driven by a {@link TimingWheel} ticking once per second, and the entries can be
+ * snapshotted to a local file on shutdown so pending challenges survive a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "security.mfa-otp-store", havingValue = "memory")
+public class InMemoryMfaOtpStore implements MfaOtpStore {
+
+    private static final long TICK_MILLIS = 1000;
+    // Bumped with each change to the entry layout, an older snapshot is ignored
+    private static final int SNAPSHOT_MAGIC = 0x4d464133;
+
+    private record Entry(MfaOtp mfaOtp, long expiresAt) {}
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final TimingWheel<String> expiryWheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final String snapshotFile;
+    private ScheduledExecutorService ticker;
+
+    InMemoryMfaOtpStore(
+            @Value("${security.mfa-otp-minutes}") long ttlMinutes,
+            @Value("${security.mfa-otp-memory.max-entries:100000}") int maxEntries,
+            @Value("${security.mfa-otp-memory.snapshot-file:}") String snapshotFile) {
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.maxEntries = maxEntries;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        restoreSnapshot();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mfa-otp-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> expire(System.currentTimeMillis()), TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        writeSnapshot();
+    }
+
+    @Override
+    public MfaOtp save(MfaOtp mfaOtp) {
+        long now = System.currentTimeMillis();
+        // Saves take turns so two of them can't both pass the capacity check; removals only shrink the map
+        synchronized (this) {
+            if (entries.size() >= maxEntries && !entries.containsKey(mfaOtp.getId())) {
+                expire(now);
+                if (entries.size() >= maxEntries) {
+                    throw new MfaOtpStoreFullException(maxEntries);
+                }
+            }
+            put(mfaOtp, now + ttlMillis);
+        }
+        return mfaOtp;
+    }
+
+    @Override
+    public Optional<MfaOtp> findById(String id) {
+        Entry entry = entries.get(id);
+        // The wheel only ticks once per second, so check the deadline on read as well
+        if (entry == null || entry.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.mfaOtp());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        entries.remove(id);
+    }
+
+    @Override
+    public int recordFailure(String id) {
+        Entry entry = entries.computeIfPresent(id, (key, current) -> {
+            current.mfaOtp().setAttempts(current.mfaOtp().getAttempts() + 1);
+            return current;
+        });
+        return entry == null ? 0 : entry.mfaOtp().getAttempts();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    void expire(long now) {
+        for (String id : expiryWheel.advance(now)) {
+            Entry entry = entries.get(id);
+            // A re-saved id has a later deadline and its own timer, leave it in place
+            if (entry != null && entry.expiresAt() <= now) {
+                entries.remove(id, entry);
+            }
+        }
+    }
+
+    private void put(MfaOtp mfaOtp, long expiresAt) {
+        entries.put(mfaOtp.getId(), new Entry(mfaOtp, expiresAt));
+        expiryWheel.schedule(mfaOtp.getId(), expiresAt);
+    }
+
+    private void restoreSnapshot() throws IOException {
+        if (snapshotFile.isBlank() || !Files.exists(Path.of(snapshotFile))) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(Path.of(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                MfaOtp mfaOtp = new MfaOtp(in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean());
+                mfaOtp.setAttempts(in.readInt());
+                long expiresAt = in.readLong();
+                if (expiresAt > now && entries.size() < maxEntries) {
+                    put(mfaOtp, expiresAt);
+                }
+            }
+        }
+        Files.delete(Path.of(snapshotFile));
+    }
+
+    private void writeSnapshot() throws IOException {
+        if (snapshotFile.isBlank()) {
+            return;
+        }
+        Path target = Path.of(snapshotFile);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            var live = entries.values().stream().filter(e -> e.expiresAt() > System.currentTimeMillis()).toList();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(live.size());
+            for (Entry entry : live) {
+                out.writeUTF(entry.mfaOtp().getId());
+                out.writeUTF(entry.mfaOtp().getUsername());
+                out.writeInt(entry.mfaOtp().getOtp());
+                out.writeBoolean(entry.mfaOtp().isTotp());
+                out.writeInt(entry.mfaOtp().getAttempts());
+                out.writeLong(entry.expiresAt());
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
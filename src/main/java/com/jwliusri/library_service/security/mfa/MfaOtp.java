@@ -1,15 +1,14 @@
 package com.jwliusri.library_service.security.mfa;
 
 import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
 
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @RedisHash("mfa_sessions")
 public class MfaOtp {
 
@@ -17,4 +16,22 @@ public class MfaOtp {
     private String id;
     private String username;
     private int otp;
+    // Challenge is answered with an authenticator app code instead of the emailed otp
+    private boolean totp;
+    // Wrong answers so far, counted by MfaOtpStore#recordFailure
+    private int attempts;
+    // Set by RedisMfaOtpStore, the in-memory store keeps its own deadlines
+    @TimeToLive
+    private Long ttlSeconds;
+
+    public MfaOtp(String id, String username, int otp) {
+        this(id, username, otp, false);
+    }
+
+    public MfaOtp(String id, String username, int otp, boolean totp) {
+        this.id = id;
+        this.username = username;
+        this.otp = otp;
+        this.totp = totp;
+    }
 }
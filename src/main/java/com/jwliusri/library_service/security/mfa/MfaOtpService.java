@@ -3,56 +3,135 @@ package com.jwliusri.library_service.security.mfa;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import com.jwliusri.library_service.email.EmailDetail;
 import com.jwliusri.library_service.email.EmailService;
 import com.jwliusri.library_service.user.User;
 import com.jwliusri.library_service.user.UserRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class MfaOtpService {
 
+    private static final String STATELESS_MODE = "stateless";
+
     private final UserRepository userRepository;
 
     private final EmailService emailService;
 
-    private final MfaOtpRepository mfaOtpRepository;
+    private final MfaOtpStore mfaOtpStore;
+
+    private final OtpChallengeSealer otpChallengeSealer;
+
+    private final TotpService totpService;
+
+    @Value("${security.mfa-otp-mode:stored}")
+    private String otpMode;
 
-    MfaOtpService(MfaOtpRepository mfaOtpRepository, EmailService emailService, UserRepository userRepository) {
-        this.mfaOtpRepository = mfaOtpRepository;
+    @Value("${security.mfa-otp-minutes}")
+    private long otpMinutes;
+
+    @Value("${security.mfa-otp-max-attempts:5}")
+    private int maxAttempts;
+
+    MfaOtpService(MfaOtpStore mfaOtpStore, EmailService emailService, UserRepository userRepository, OtpChallengeSealer otpChallengeSealer, TotpService totpService) {
+        this.mfaOtpStore = mfaOtpStore;
         this.emailService = emailService;
         this.userRepository = userRepository;
+        this.otpChallengeSealer = otpChallengeSealer;
+        this.totpService = totpService;
     }
 
     public String generateOtp(String username) {
         User user = userRepository.findByUsername(username)
             .orElseThrow();
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(otpMinutes);
+
+        // Authenticator app users answer with a TOTP code, nothing is sent
+        if (user.isTotpEnabled()) {
+            if (isStateless()) {
+                return otpChallengeSealer.sealTotp(username, expiresAt);
+            }
+            return save(new MfaOtp(UUID.randomUUID().toString(), username, 0, true)).getId();
+        }
 
         Random random = new Random();
         int otp = 100000 + random.nextInt(900000);
-        String requestId = UUID.randomUUID().toString();
+        String requestId;
+
+        if (isStateless()) {
+            requestId = otpChallengeSealer.seal(username, otp, expiresAt);
+        } else {
+            requestId = UUID.randomUUID().toString();
+            MfaOtp mfaOtp = new MfaOtp(requestId, username, otp);
+            otp = save(mfaOtp).getOtp();
+        }
 
-        MfaOtp mfaOtp = new MfaOtp(requestId, username, otp);
-        mfaOtp = mfaOtpRepository.save(mfaOtp);
-        
         // send email
-        emailService.sendSimpleMail(new EmailDetail(user.getEmail(), "OTP: "+mfaOtp.getOtp(), "Library Service OTP"));
+        emailService.sendSimpleMail(new EmailDetail(user.getEmail(), "OTP: "+otp, "Library Service OTP"));
 
         return requestId;
     }
 
     public boolean validateOtp(String requestId, int otp) throws NoSuchElementException {
-        MfaOtp mfaOtp = mfaOtpRepository.findById(requestId)
+        if (isStateless()) {
+            OtpChallengeSealer.Challenge challenge = openChallenge(requestId);
+            if (challenge.expiresAt() <= System.currentTimeMillis()) {
+                throw new NoSuchElementException("OTP request expired");
+            }
+            boolean valid = challenge.totp()
+                ? totpService.verify(challenge.username(), otp)
+                : otpChallengeSealer.matches(challenge, otp);
+            if (!valid) {
+                otpChallengeSealer.fail(challenge);
+                return false;
+            }
+            return otpChallengeSealer.consume(challenge);
+        }
+
+        MfaOtp mfaOtp = mfaOtpStore.findById(requestId)
             .orElseThrow();
 
-        return mfaOtp.getOtp() == otp;
+        boolean valid = mfaOtp.isTotp()
+            ? totpService.verify(mfaOtp.getUsername(), otp)
+            : mfaOtp.getOtp() == otp;
+        // A challenge answers once, and is burnt after too many wrong answers so it can't be guessed
+        if (valid || mfaOtpStore.recordFailure(requestId) >= maxAttempts) {
+            mfaOtpStore.deleteById(requestId);
+        }
+        return valid;
     }
 
     public String getUsernameFromOtp(String requestId) {
-        MfaOtp mfaOtp = mfaOtpRepository.findById(requestId)
+        if (isStateless()) {
+            return openChallenge(requestId).username();
+        }
+
+        MfaOtp mfaOtp = mfaOtpStore.findById(requestId)
             .orElseThrow();
 
         return mfaOtp.getUsername();
     }
+
+    private OtpChallengeSealer.Challenge openChallenge(String requestId) {
+        return otpChallengeSealer.open(requestId)
+            .orElseThrow();
+    }
+
+    private MfaOtp save(MfaOtp mfaOtp) {
+        try {
+            return mfaOtpStore.save(mfaOtp);
+        } catch (MfaOtpStoreFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending OTP requests");
+        }
+    }
+
+    private boolean isStateless() {
+        return STATELESS_MODE.equals(otpMode);
+    }
 }
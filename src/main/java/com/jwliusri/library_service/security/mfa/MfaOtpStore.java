@@ -0,0 +1,27 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.Optional;
+
+/**
+ * Storage for pending MFA OTP challenges. Entries expire after {@code security.mfa-otp-minutes}.
+ * The backend is selected with {@code security.mfa-otp-store} ({@code redis} or {@code memory}).
+ */
+public interface MfaOtpStore {
+
+    /**
+     * Stores the challenge until it expires.
+     *
+     * @throws MfaOtpStoreFullException when the store already holds as many challenges as it may
+     */
+    MfaOtp save(MfaOtp mfaOtp);
+
+    Optional<MfaOtp> findById(String id);
+
+    void deleteById(String id);
+
+    /**
+     * Counts a wrong answer to the challenge without extending its expiry, and returns the wrong answers
+     * so far, or 0 when the challenge is gone.
+     */
+    int recordFailure(String id);
+}
@@ -0,0 +1,11 @@
+package com.jwliusri.library_service.security.mfa;
+
+/**
+ * Thrown by a {@link MfaOtpStore} that holds as many pending challenges as it is allowed to.
+ */
+public class MfaOtpStoreFullException extends RuntimeException {
+
+    public MfaOtpStoreFullException(int maxEntries) {
+        super("OTP store is full with " + maxEntries + " pending challenges");
+    }
+}
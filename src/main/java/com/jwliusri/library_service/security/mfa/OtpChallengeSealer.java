@@ -0,0 +1,123 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.jwliusri.library_service.security.AesGcmCipher;
+
+/**
+ * Seals an OTP challenge into an encrypted, authenticated {@code requestId} so it can be validated
+ * without any server-side storage. The envelope carries the username, an HMAC digest of the OTP
+ * (never the OTP itself) and the expiry; only a small replay cache of consumed challenges is kept.
+ */
+@Component
+public class OtpChallengeSealer {
+
+    private static final byte VERSION = 2;
+    private static final byte FLAG_TOTP = 1;
+    private static final int NONCE_LENGTH = 16;
+    private static final int DIGEST_LENGTH = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public record Challenge(String id, String username, byte[] otpDigest, long expiresAt, boolean totp) {}
+
+    private final AesGcmCipher cipher;
+    private final byte[] macKey;
+    private final OtpReplayCache replayCache = new OtpReplayCache();
+    private final int maxAttempts;
+
+    OtpChallengeSealer(
+            @Value("${security.mfa-otp-secret}") String secret,
+            @Value("${security.mfa-otp-max-attempts:5}") int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        this.cipher = new AesGcmCipher(AesGcmCipher.deriveKey(secret, "mfa-otp-envelope"));
+        this.macKey = AesGcmCipher.deriveKey(secret, "mfa-otp-digest");
+    }
+
+    public String seal(String username, int otp, long expiresAt) {
+        return seal(username, otp, expiresAt, (byte) 0);
+    }
+
+    /**
+     * Seals a challenge that is answered with an authenticator app code, so it carries no OTP digest.
+     */
+    public String sealTotp(String username, long expiresAt) {
+        return seal(username, 0, expiresAt, FLAG_TOTP);
+    }
+
+    private String seal(String username, int otp, long expiresAt, byte flags) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        byte[] plaintext = ByteBuffer.allocate(2 + NONCE_LENGTH + Long.BYTES + DIGEST_LENGTH + name.length)
+                .put(VERSION)
+                .put(flags)
+                .put(nonce)
+                .putLong(expiresAt)
+                .put(digest(nonce, username, otp))
+                .put(name)
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cipher.encrypt(plaintext));
+    }
+
+    /**
+     * Opens an envelope, returning empty when it was not issued by us, was tampered with or is malformed.
+     */
+    public Optional<Challenge> open(String requestId) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(cipher.decrypt(Base64.getUrlDecoder().decode(requestId)));
+            if (buffer.get() != VERSION) {
+                return Optional.empty();
+            }
+            byte flags = buffer.get();
+            byte[] nonce = new byte[NONCE_LENGTH];
+            buffer.get(nonce);
+            long expiresAt = buffer.getLong();
+            byte[] otpDigest = new byte[DIGEST_LENGTH];
+            buffer.get(otpDigest);
+            byte[] name = new byte[buffer.remaining()];
+            buffer.get(name);
+            String id = Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
+            return Optional.of(new Challenge(id, new String(name, StandardCharsets.UTF_8), otpDigest, expiresAt,
+                    (flags & FLAG_TOTP) != 0));
+        } catch (GeneralSecurityException | IllegalArgumentException | BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    public boolean matches(Challenge challenge, int otp) {
+        byte[] nonce = Base64.getUrlDecoder().decode(challenge.id());
+        return MessageDigest.isEqual(challenge.otpDigest(), digest(nonce, challenge.username(), otp));
+    }
+
+    /**
+     * Marks the challenge as used, returning {@code false} if it was already consumed.
+     */
+    public boolean consume(Challenge challenge) {
+        return replayCache.consume(challenge.id(), challenge.expiresAt());
+    }
+
+    /**
+     * Records a wrong answer, after {@code security.mfa-otp-max-attempts} of them the challenge is consumed.
+     */
+    public void fail(Challenge challenge) {
+        replayCache.fail(challenge.id(), challenge.expiresAt(), maxAttempts);
+    }
+
+    private byte[] digest(byte[] nonce, String username, int otp) {
+        byte[] mac = AesGcmCipher.hmacSha256(macKey, nonce,
+                ByteBuffer.allocate(Integer.BYTES).putInt(otp).array(),
+                username.getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(mac, DIGEST_LENGTH);
+    }
+}
@@ -0,0 +1,55 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers consumed stateless challenges, and wrong answers to open ones, until they expire on
+ * their own, after which the envelope is rejected anyway. The expiry wheel is advanced lazily on
+ * each call, so there is no background thread.
+ */
+class OtpReplayCache {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final ConcurrentHashMap<String, Long> consumed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> failures = new ConcurrentHashMap<>();
+    private final TimingWheel<String> expiryWheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+
+    /**
+     * Returns {@code true} the first time a challenge is consumed and {@code false} for any replay.
+     */
+    public boolean consume(String challengeId, long expiresAt) {
+        expire(System.currentTimeMillis());
+        if (consumed.putIfAbsent(challengeId, expiresAt) != null) {
+            return false;
+        }
+        failures.remove(challengeId);
+        expiryWheel.schedule(challengeId, expiresAt);
+        return true;
+    }
+
+    /**
+     * Counts a wrong answer. The challenge is consumed at {@code maxFailures}, so guessing can't go
+     * on until it expires.
+     */
+    public void fail(String challengeId, long expiresAt, int maxFailures) {
+        expire(System.currentTimeMillis());
+        int count = failures.merge(challengeId, 1, Integer::sum);
+        if (count >= maxFailures) {
+            consume(challengeId, expiresAt);
+        } else if (count == 1) {
+            expiryWheel.schedule(challengeId, expiresAt);
+        }
+    }
+
+    private void expire(long now) {
+        for (String expired : expiryWheel.advance(now)) {
+            consumed.remove(expired);
+            failures.remove(expired);
+        }
+    }
+
+    public int size() {
+        return consumed.size();
+    }
+}
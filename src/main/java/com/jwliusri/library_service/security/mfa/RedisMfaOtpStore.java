@@ -0,0 +1,60 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/** Redis backed store, every saved challenge gets a key TTL of {@code security.mfa-otp-minutes}. */
+@Component
+@ConditionalOnProperty(name = "security.mfa-otp-store", havingValue = "redis", matchIfMissing = true)
+public class RedisMfaOtpStore implements MfaOtpStore {
+
+    // Key prefix of the @RedisHash of MfaOtp
+    private static final String KEYSPACE = "mfa_sessions";
+
+    // The hash of a challenge is only counted while it exists, a failure must not recreate it without a TTL
+    private static final RedisScript<Long> RECORD_FAILURE = RedisScript.of(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end "
+                    + "return redis.call('hincrby', KEYS[1], 'attempts', 1)", Long.class);
+
+    private final MfaOtpRepository mfaOtpRepository;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final long ttlSeconds;
+
+    RedisMfaOtpStore(MfaOtpRepository mfaOtpRepository, StringRedisTemplate redisTemplate,
+            @Value("${security.mfa-otp-minutes}") long ttlMinutes) {
+        this.mfaOtpRepository = mfaOtpRepository;
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = TimeUnit.MINUTES.toSeconds(ttlMinutes);
+    }
+
+    @Override
+    public MfaOtp save(MfaOtp mfaOtp) {
+        mfaOtp.setTtlSeconds(ttlSeconds);
+        return mfaOtpRepository.save(mfaOtp);
+    }
+
+    @Override
+    public Optional<MfaOtp> findById(String id) {
+        return mfaOtpRepository.findById(id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        mfaOtpRepository.deleteById(id);
+    }
+
+    @Override
+    public int recordFailure(String id) {
+        Long attempts = redisTemplate.execute(RECORD_FAILURE, List.of(KEYSPACE + ":" + id));
+        return attempts == null ? 0 : attempts.intValue();
+    }
+}
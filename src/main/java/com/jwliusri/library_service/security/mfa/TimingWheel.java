@@ -0,0 +1,89 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel (4 levels of 64 slots). Scheduling and expiring a key are O(1);
+ * far deadlines are cascaded down a level each time the lower wheel wraps.
+ * Cancelled keys are not removed, callers should ignore stale expirations.
+ */
+class TimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private record Timer<K>(K key, long deadlineTick) {}
+
+    private final long tickMillis;
+    private final List<List<Timer<K>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        place(new Timer<>(key, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns every key whose deadline has passed.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Timer<K>> due = slot(0, currentTick);
+            for (Timer<K> timer : due) {
+                expired.add(timer.key());
+            }
+            size -= due.size();
+            due.clear();
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade() {
+        // Higher levels first so their timers can land in a lower slot that is about to be cascaded too
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            List<Timer<K>> bucket = slot(level, currentTick >> (SLOT_BITS * level));
+            List<Timer<K>> moved = new ArrayList<>(bucket);
+            bucket.clear();
+            moved.forEach(this::place);
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        long effective = Math.min(timer.deadlineTick(), currentTick + SPAN - 1);
+        long delta = effective - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        slot(level, effective >> (SLOT_BITS * level)).add(timer);
+    }
+
+    private List<Timer<K>> slot(int level, long index) {
+        return slots.get(level * SLOTS + (int) (index & SLOT_MASK));
+    }
+}
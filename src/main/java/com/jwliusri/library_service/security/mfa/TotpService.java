@@ -0,0 +1,192 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.jwliusri.library_service.security.AesGcmCipher;
+import com.jwliusri.library_service.security.auth.TotpEnrollmentResponseDto;
+import com.jwliusri.library_service.user.User;
+import com.jwliusri.library_service.user.UserRepository;
+
+/**
+ * RFC 6238 TOTP (HMAC-SHA1, 6 digits, 30 second steps) for authenticator apps.
+ * Secrets are stored AES-GCM encrypted on {@link User} and codes are checked within
+ * {@code security.totp-skew-steps} steps of the current time. A code is accepted once per user and
+ * time step, so an intercepted code can't be replayed while it is still in the window.
+ */
+@Service
+public class TotpService {
+
+    private static final int SECRET_LENGTH = 20;
+    private static final long STEP_SECONDS = 30;
+    private static final int DIGITS_MODULO = 1_000_000;
+    private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final UserRepository userRepository;
+
+    private final AesGcmCipher secretCipher;
+
+    // username:step of accepted codes, kept until the step has left the skew window
+    private final OtpReplayCache usedSteps = new OtpReplayCache();
+
+    @Value("${security.totp-issuer}")
+    private String issuer;
+
+    @Value("${security.totp-skew-steps}")
+    private int skewSteps;
+
+    TotpService(UserRepository userRepository, @Value("${security.mfa-otp-secret}") String secret) {
+        this.userRepository = userRepository;
+        this.secretCipher = new AesGcmCipher(AesGcmCipher.deriveKey(secret, "totp-secret"));
+    }
+
+    /**
+     * Generates a new pending secret for the user. It only replaces the active secret once a code
+     * is confirmed, so a half-finished enrollment can't lock the user out or downgrade their MFA.
+     */
+    public TotpEnrollmentResponseDto enroll(String username) {
+        User user = getUser(username);
+
+        byte[] secret = new byte[SECRET_LENGTH];
+        RANDOM.nextBytes(secret);
+        user.setTotpPendingSecret(Base64.getEncoder().encodeToString(secretCipher.encrypt(secret)));
+        userRepository.save(user);
+
+        return new TotpEnrollmentResponseDto(base32(secret), provisioningUri(user.getUsername(), secret));
+    }
+
+    public void confirm(String username, int code) {
+        User user = getUser(username);
+        if (user.getTotpPendingSecret() == null || !accept(username, decryptSecret(user.getTotpPendingSecret()), code)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid TOTP code");
+        }
+        user.setTotpSecret(user.getTotpPendingSecret());
+        user.setTotpPendingSecret(null);
+        user.setTotpEnabled(true);
+        userRepository.save(user);
+    }
+
+    /** Renders the pending enrollment, or the active secret when there is none. */
+    public byte[] qrCode(String username) {
+        User user = getUser(username);
+        String encrypted = user.getTotpPendingSecret() != null ? user.getTotpPendingSecret() : user.getTotpSecret();
+        if (encrypted == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "TOTP is not enrolled");
+        }
+        String uri = provisioningUri(user.getUsername(), decryptSecret(encrypted));
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            BitMatrix matrix = new QRCodeWriter().encode(uri, BarcodeFormat.QR_CODE, 240, 240);
+            BufferedImage image = new BufferedImage(matrix.getWidth(), matrix.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                for (int y = 0; y < matrix.getHeight(); y++) {
+                    image.setRGB(x, y, matrix.get(x, y) ? 0x000000 : 0xFFFFFF);
+                }
+            }
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (WriterException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to render QR code");
+        }
+    }
+
+    public boolean verify(String username, int code) {
+        User user = getUser(username);
+        return user.isTotpEnabled() && accept(username, decryptSecret(user.getTotpSecret()), code);
+    }
+
+    boolean matches(byte[] secret, int code, long nowMillis) {
+        return matchingStep(secret, code, nowMillis) != null;
+    }
+
+    private boolean accept(String username, byte[] secret, int code) {
+        Long step = matchingStep(secret, code, System.currentTimeMillis());
+        return step != null
+                && usedSteps.consume(username + ':' + step, (step + skewSteps + 1) * STEP_SECONDS * 1000);
+    }
+
+    private Long matchingStep(byte[] secret, int code, long nowMillis) {
+        long step = nowMillis / 1000 / STEP_SECONDS;
+        for (long i = -skewSteps; i <= skewSteps; i++) {
+            if (generateCode(secret, step + i) == code) {
+                return step + i;
+            }
+        }
+        return null;
+    }
+
+    static int generateCode(byte[] secret, long step) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(new SecretKeySpec(secret, "HmacSHA1"));
+            byte[] hash = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(step).array());
+            int offset = hash[hash.length - 1] & 0x0f;
+            int binary = ((hash[offset] & 0x7f) << 24)
+                    | ((hash[offset + 1] & 0xff) << 16)
+                    | ((hash[offset + 2] & 0xff) << 8)
+                    | (hash[offset + 3] & 0xff);
+            return binary % DIGITS_MODULO;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA1 is not available", e);
+        }
+    }
+
+    static String base32(byte[] data) {
+        StringBuilder sb = new StringBuilder((data.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : data) {
+            buffer = (buffer << 8) | (b & 0xff);
+            bits += 8;
+            while (bits >= 5) {
+                sb.append(BASE32[(buffer >> (bits - 5)) & 0x1f]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            sb.append(BASE32[(buffer << (5 - bits)) & 0x1f]);
+        }
+        return sb.toString();
+    }
+
+    private String provisioningUri(String username, byte[] secret) {
+        String label = URLEncoder.encode(issuer + ":" + username, StandardCharsets.UTF_8).replace("+", "%20");
+        return "otpauth://totp/" + label
+                + "?secret=" + base32(secret)
+                + "&issuer=" + URLEncoder.encode(issuer, StandardCharsets.UTF_8).replace("+", "%20")
+                + "&algorithm=SHA1&digits=6&period=" + STEP_SECONDS;
+    }
+
+    private byte[] decryptSecret(String encrypted) {
+        try {
+            return secretCipher.decrypt(Base64.getDecoder().decode(encrypted));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Stored TOTP secret can't be decrypted", e);
+        }
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+            .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+}
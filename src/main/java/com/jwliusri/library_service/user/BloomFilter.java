@@ -0,0 +1,80 @@
+package com.jwliusri.library_service.user;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings, sized for an expected number of entries and a false positive
+ * rate. Bits are set with CAS, so adds and lookups can run concurrently. Entries can't be removed.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(1, expectedEntries);
+        long size = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (size + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / entries * Math.log(2)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+            } while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask));
+        }
+    }
+
+    /** False means the value was never added, true means it probably was. */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bits;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    // FNV-1a over the UTF-8 bytes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Murmur3 finalizer, spreads FNV's weak low bits
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -2,6 +2,8 @@ package com.jwliusri.library_service.user;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -13,6 +15,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+
+import com.jwliusri.library_service.config.HibernateCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +24,8 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "users")
+// Read on every authenticated request and with every article author, written rarely
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
 @Data
 @Builder
 @NoArgsConstructor
@@ -46,6 +52,18 @@ public class User {
     private int failedAttempt = 0;
     private LocalDateTime failedAttemptTime;
     private LocalDateTime lockTime;
+    // Cleared as soon as a deletion starts, see UserDeletionService
+    @ColumnDefault("true")
+    @Builder.Default
+    private boolean enabled = true;
+
+    // TOTP authenticator secret, AES-GCM encrypted by TotpService
+    private String totpSecret;
+    // Secret of an enrollment that waits for its first code, the active one stays in use until then
+    private String totpPendingSecret;
+    @ColumnDefault("false")
+    @Builder.Default
+    private boolean totpEnabled = false;
     
     @CreationTimestamp
     private LocalDateTime createdAt;
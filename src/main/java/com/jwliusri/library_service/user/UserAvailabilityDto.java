@@ -0,0 +1,14 @@
+package com.jwliusri.library_service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserAvailabilityDto {
+    // Null when not asked for
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+}
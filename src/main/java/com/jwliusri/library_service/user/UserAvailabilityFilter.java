@@ -0,0 +1,122 @@
+package com.jwliusri.library_service.user;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory {@link BloomFilter} over the lowercased usernames and emails of all users, so an
+ * availability check for a free name is answered without a query. Only a possible hit is confirmed
+ * against the database.
+ * <p>
+ * The filter is built by streaming the users table at startup and rebuilt on
+ * {@code user.availability.rebuild-cron}; {@link UserService} adds names as users are created or
+ * renamed. Bloom filters can't forget, so names freed by a rename or delete keep costing a
+ * confirmation query until the next rebuild. Until the first build every check goes to the database.
+ */
+@Slf4j
+@Component
+public class UserAvailabilityFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final int fetchSize;
+    private volatile BloomFilter filter;
+    // Adds that happen while a rebuild streams the table go to both filters
+    private volatile BloomFilter next;
+
+    UserAvailabilityFilter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${user.availability.expected-users:1000000}") long expectedUsers,
+            @Value("${user.availability.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${user.availability.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.fetchSize = fetchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${user.availability.rebuild-cron:0 30 3 * * *}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        try {
+            Long users = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+            // Two names per user, with room to double until the next rebuild
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedUsers, users * 2) * 2, falsePositiveRate);
+            next = rebuilt;
+            // Read-only transaction, so the driver streams the rows with a cursor
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("select username, email from users");
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, rs -> {
+                addTo(rebuilt, usernameKey(rs.getString("username")));
+                addTo(rebuilt, emailKey(rs.getString("email")));
+            });
+            filter = rebuilt;
+            log.info("User availability filter rebuilt for {} users, {} bits, {} hashes", users, rebuilt.bitCount(), rebuilt.hashCount());
+        } catch (DataAccessException e) {
+            // The previous filter, or the database when there is none, keeps answering
+            log.error("Failed to rebuild user availability filter", e);
+        } finally {
+            next = null;
+        }
+    }
+
+    public void add(String username, String email) {
+        add(usernameKey(username));
+        add(emailKey(email));
+    }
+
+    /** False only when no user has this username, case insensitive. */
+    public boolean mightContainUsername(String username) {
+        return mightContain(usernameKey(username));
+    }
+
+    /** False only when no user has this email, case insensitive. */
+    public boolean mightContainEmail(String email) {
+        return mightContain(emailKey(email));
+    }
+
+    boolean isReady() {
+        return filter != null;
+    }
+
+    // Next first: a name that misses it was committed before the rebuild's snapshot, so the rebuild reads it,
+    // and once next is cleared the rebuilt filter is the current one
+    private void add(String key) {
+        addTo(next, key);
+        addTo(filter, key);
+    }
+
+    private boolean mightContain(String key) {
+        BloomFilter current = filter;
+        return key == null || current == null || current.mightContain(key);
+    }
+
+    private static void addTo(BloomFilter target, String key) {
+        if (target != null && key != null) {
+            target.add(key);
+        }
+    }
+
+    // Usernames and emails share the filter, the prefix keeps them apart
+    private static String usernameKey(String username) {
+        return username == null ? null : "u:" + username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : "e:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.jwliusri.library_service.user;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based updates for {@code PATCH /api/users/_bulk}: one {@code update ... returning id} for the
+ * whole selection, with the same filter semantics as {@link UserSearchRepositoryImpl}. Rows already in
+ * the requested state are left out of the update, so repeating a request writes nothing.
+ */
+@Repository
+class UserBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Applies the changes and returns the ids of the users that changed. */
+    List<Long> update(UserBulkUpdateDto request) {
+        List<String> sets = new ArrayList<>();
+        List<Object> setArgs = new ArrayList<>();
+        // At least one of the requested changes must be new for the row
+        List<String> changes = new ArrayList<>();
+        List<Object> changeArgs = new ArrayList<>();
+        if (request.getRole() != null) {
+            sets.add("role = ?");
+            setArgs.add(request.getRole().name());
+            changes.add("role <> ?");
+            changeArgs.add(request.getRole().name());
+        }
+        if (request.isUnlock()) {
+            sets.add("account_non_locked = true, failed_attempt = 0, failed_attempt_time = null, lock_time = null");
+            changes.add("account_non_locked = false or failed_attempt <> 0");
+        }
+        if (request.isDisable()) {
+            sets.add("enabled = false");
+            changes.add("enabled");
+        }
+        sets.add("updated_at = ?");
+        setArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+
+        List<String> where = new ArrayList<>();
+        List<Object> whereArgs = new ArrayList<>();
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            where.add("id = any(?)");
+            whereArgs.add(request.getIds().toArray(Long[]::new));
+        }
+        UserFilterDto filter = request.getFilter();
+        if (filter != null && filter.getRole() != null) {
+            where.add("role = ?");
+            whereArgs.add(filter.getRole().name());
+        }
+        if (filter != null && filter.getLocked() != null) {
+            where.add("account_non_locked = ?");
+            whereArgs.add(!filter.getLocked());
+        }
+        if (filter != null && filter.getQ() != null && !filter.getQ().isBlank()) {
+            String term = UserSearchRepositoryImpl.escapeLike(filter.getQ().trim().toLowerCase());
+            where.add("(lower(username) like ? or lower(email) like ? or lower(full_name) like ?)");
+            whereArgs.add(term + "%");
+            whereArgs.add(term + "%");
+            whereArgs.add("%" + term + "%");
+        }
+        where.add("(" + String.join(" or ", changes) + ")");
+
+        List<Object> args = new ArrayList<>(setArgs);
+        args.addAll(whereArgs);
+        args.addAll(changeArgs);
+        return jdbcTemplate.queryForList("update users set " + String.join(", ", sets)
+                + " where " + String.join(" and ", where) + " returning id", Long.class, args.toArray());
+    }
+}
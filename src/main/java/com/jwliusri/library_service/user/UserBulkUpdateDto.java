@@ -0,0 +1,24 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBulkUpdateDto {
+    // Users to update: these ids, the users matching filter, or the ids that also match filter
+    private List<Long> ids;
+    // Only role, locked and q apply
+    private UserFilterDto filter;
+
+    private RoleEnum role;
+    // Clears the lock and the failed login attempts
+    private boolean unlock;
+    private boolean disable;
+}
@@ -0,0 +1,13 @@
+package com.jwliusri.library_service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBulkUpdateResultDto {
+    // Users that changed, users already in the requested state are not counted
+    private int updated;
+}
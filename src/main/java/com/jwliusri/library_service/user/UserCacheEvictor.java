@@ -0,0 +1,53 @@
+package com.jwliusri.library_service.user;
+
+import java.util.Collection;
+
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps the second-level cache in line with the JDBC writes to users (imports, bulk updates and
+ * deletions), which Hibernate doesn't see. Evictions run after commit, so a concurrent read can't
+ * put the old row back into the cache before the write is visible.
+ */
+@Component
+class UserCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    UserCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /** For changed users whose username and email stay the same. */
+    void evictUsers(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            afterCommit(() -> ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id)));
+        }
+    }
+
+    /** For inserted or deleted users, cached username and email lookups may now be wrong. */
+    void evictLookups(Collection<Long> ids) {
+        afterCommit(() -> {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        });
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.jwliusri.library_service.user;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.jwliusri.library_service.audit.AuditId;
 import com.jwliusri.library_service.audit.Auditable;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,14 +16,16 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
-import java.util.List;
-
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 
 @RestController
@@ -27,15 +35,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserDeletionService userDeletionService;
 
-    UserController(UserService userService) {
+    UserController(UserService userService, UserImportService userImportService, UserDeletionService userDeletionService) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userDeletionService = userDeletionService;
     }
 
     @GetMapping
-    @Operation(summary = "Get all users")
-    public List<UserResponseDto> getAllUsers() {
-        return userService.getAllUsers();
+    @Operation(summary = "Get users", description = "Filtered by role, lock status and a search term on username, email or full name, sorted and paged by cursor. Pass nextCursor from the previous page as cursor.")
+    public UserPageDto getUsers(@ParameterObject UserFilterDto filter) {
+        return userService.getUsers(filter);
     }
     
     @GetMapping("/{id}")
@@ -54,15 +66,55 @@ public class UserController {
     @PutMapping("/{id}")
     @Auditable(action = "UPDATE_USER", entityType = "USER")
     @Operation(summary = "Update an user")
-    public UserResponseDto updateUser(@PathVariable Long id, @Valid @RequestBody UserRequestDto request) {
+    public UserResponseDto updateUser(@AuditId @PathVariable Long id, @Valid @RequestBody UserRequestDto request) {
         return userService.updateUser(id, request);
     }
 
+    @PatchMapping("/_bulk")
+    @Auditable(action = "BULK_UPDATE_USERS", entityType = "USER")
+    @Operation(summary = "Update users in bulk", description = "Sets the role, unlocks or disables the users given by ids, by filter, or the ids that also match filter, with one update. Audited once.")
+    public UserBulkUpdateResultDto bulkUpdate(@RequestBody UserBulkUpdateDto request) {
+        return userService.bulkUpdate(request);
+    }
+
     @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
     @Auditable(action = "DELETE_USER", entityType = "USER")
-    @Operation(summary = "Delete an user")
-    public void deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
+    @Operation(summary = "Delete an user", description = "Disables the user at once and deletes it in the background, moving its articles to reassignTo or deleting them. Poll the returned job for progress.")
+    public UserDeletionJobDto deleteUser(@AuditId @PathVariable Long id, @RequestParam(required = false) Long reassignTo) {
+        return userDeletionService.start(id, reassignTo);
+    }
+
+    @GetMapping("/_deletion/{jobId}")
+    @Operation(summary = "Get user deletion job")
+    public UserDeletionJobDto getDeletionJob(@PathVariable UUID jobId) {
+        return userDeletionService.getJob(jobId);
+    }
+
+    @PostMapping("/_deletion/{jobId}/resume")
+    @Operation(summary = "Resume a failed user deletion job")
+    public UserDeletionJobDto resumeDeletion(@PathVariable UUID jobId) {
+        return userDeletionService.resume(jobId);
+    }
+
+    @PostMapping("/_import")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Auditable(action = "IMPORT_USERS", entityType = "USER")
+    @Operation(summary = "Import users", description = "Imports a CSV (header fullName,username,email,password and optionally role) or NDJSON body in the background. Poll the returned job for progress and row errors.")
+    public UserImportJobDto importUsers(@RequestParam(defaultValue = "csv") String format, InputStream body) throws IOException {
+        return userImportService.start(format, body);
+    }
+
+    @GetMapping("/_import/{jobId}")
+    @Operation(summary = "Get user import job", description = "Progress of an import job with up to errors row errors, by line.")
+    public UserImportJobDto getImportJob(@PathVariable UUID jobId, @RequestParam(defaultValue = "100") int errors) {
+        return userImportService.getJob(jobId, errors);
+    }
+
+    @PostMapping("/_import/{jobId}/resume")
+    @Operation(summary = "Resume a failed user import job", description = "Continues after the last imported batch.")
+    public UserImportJobDto resumeImport(@PathVariable UUID jobId) {
+        return userImportService.resume(jobId);
     }
     
 }
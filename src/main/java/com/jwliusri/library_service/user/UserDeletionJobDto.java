@@ -0,0 +1,29 @@
+package com.jwliusri.library_service.user;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserDeletionJobDto {
+    private UUID id;
+    private Long userId;
+    private String username;
+    // Articles go to this user, or are deleted when null
+    private Long reassignTo;
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String status;
+    private long totalArticles;
+    private long processedArticles;
+    // Why a FAILED job stopped, it can be resumed
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
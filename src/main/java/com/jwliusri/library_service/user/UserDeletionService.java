@@ -0,0 +1,184 @@
+package com.jwliusri.library_service.user;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jwliusri.library_service.user.UserJobRunner.Status;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes users as background jobs. Starting a deletion disables the account at once, so it can no
+ * longer log in or use its tokens, and returns the queued job. The job then moves the user's articles
+ * to another user, or deletes them, {@code user.deletion.batch-size} at a time, each batch in its own
+ * short transaction that also advances the job, and finally deletes the user row. No transaction
+ * holds more than a batch of article locks, and a job interrupted by a restart or failure continues
+ * with the articles that are left.
+ * <p>
+ * Audit logs name users through the audit dictionary rather than a foreign key and stay as the
+ * record of what the user did.
+ */
+@Slf4j
+@Service
+public class UserDeletionService {
+
+    private record Started(UUID id, boolean created) {}
+
+    private static final String REASSIGN_ARTICLES = "update articles set author_id = ? "
+            + "where id in (select id from articles where author_id = ? order by id limit ?)";
+    private static final String DELETE_ARTICLES = "delete from articles "
+            + "where id in (select id from articles where author_id = ? order by id limit ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCacheEvictor cacheEvictor;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final UserJobRunner jobs;
+
+    UserDeletionService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            UserCacheEvictor cacheEvictor,
+            @Value("${user.deletion.batch-size:500}") int batchSize,
+            @Value("${user.deletion.batch-pause-millis:20}") long batchPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheEvictor = cacheEvictor;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.jobs = new UserJobRunner(jdbcTemplate, "deletion", this::run);
+    }
+
+    /** Disables the user and queues its deletion, or returns the deletion already under way. */
+    public UserDeletionJobDto start(Long userId, Long reassignTo) {
+        if (userId.equals(reassignTo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Articles can't be reassigned to the deleted user");
+        }
+        Started started = transactionTemplate.execute(status -> {
+            List<UUID> active = jdbcTemplate.queryForList(
+                    "select id from user_deletion_jobs where user_id = ? and status <> 'COMPLETED'", UUID.class, userId);
+            if (!active.isEmpty()) {
+                return new Started(active.get(0), false);
+            }
+            List<String> usernames = jdbcTemplate.queryForList("select username from users where id = ? for update", String.class, userId);
+            if (usernames.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            }
+            if (reassignTo != null && jdbcTemplate.queryForObject(
+                    "select count(*) from users where id = ? and enabled", Long.class, reassignTo) == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User to reassign articles to not found");
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update("update users set enabled = false, updated_at = ? where id = ?", now, userId);
+            cacheEvictor.evictUsers(List.of(userId));
+            UUID jobId = UUID.randomUUID();
+            jdbcTemplate.update("insert into user_deletion_jobs "
+                    + "(id, user_id, username, reassign_to, status, total_articles, processed_articles, created_at, updated_at) "
+                    + "values (?, ?, ?, ?, ?, (select count(*) from articles where author_id = ?), 0, ?, ?)",
+                    jobId, userId, usernames.get(0), reassignTo, Status.QUEUED.name(), userId, now, now);
+            return new Started(jobId, true);
+        });
+        if (started.created()) {
+            jobs.submit(started.id());
+            return getJob(started.id());
+        }
+        // Deleting again retries a deletion that failed
+        return resume(started.id());
+    }
+
+    public UserDeletionJobDto getJob(UUID id) {
+        try {
+            return jdbcTemplate.queryForObject("select * from user_deletion_jobs where id = ?", (rs, rowNum) -> UserDeletionJobDto.builder()
+                    .id(rs.getObject("id", UUID.class))
+                    .userId(rs.getLong("user_id"))
+                    .username(rs.getString("username"))
+                    .reassignTo(rs.getObject("reassign_to", Long.class))
+                    .status(rs.getString("status"))
+                    .totalArticles(rs.getLong("total_articles"))
+                    .processedArticles(rs.getLong("processed_articles"))
+                    .message(rs.getString("message"))
+                    .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                    .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                    .build(), id);
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Deletion job not found");
+        }
+    }
+
+    public UserDeletionJobDto resume(UUID id) {
+        jobs.resume(id, getJob(id).getStatus());
+        return getJob(id);
+    }
+
+    /** Picks up deletions that were queued or running when the application last stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        jobs.resumeUnfinished();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        jobs.stop();
+    }
+
+    void run(UUID id) {
+        try {
+            UserDeletionJobDto job = getJob(id);
+            if (Status.valueOf(job.getStatus()) == Status.COMPLETED) {
+                return;
+            }
+            jobs.updateStatus(id, Status.RUNNING, null);
+            int moved;
+            do {
+                if (jobs.isStopping()) {
+                    return;
+                }
+                moved = moveArticles(job);
+                if (moved > 0 && batchPauseMillis > 0) {
+                    // Let foreground writes to articles in between batches
+                    Thread.sleep(batchPauseMillis);
+                }
+            } while (moved > 0);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                // Articles created after the last batch fail the delete, the job can be resumed
+                jdbcTemplate.update("delete from users where id = ?", job.getUserId());
+                cacheEvictor.evictLookups(List.of(job.getUserId()));
+                jobs.updateStatus(id, Status.COMPLETED, null);
+            });
+            log.info("User {} deleted", job.getUserId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            jobs.fail(id, e);
+        }
+    }
+
+    int moveArticles(UserDeletionJobDto job) {
+        Integer moved = transactionTemplate.execute(status -> {
+            int count = job.getReassignTo() == null
+                    ? jdbcTemplate.update(DELETE_ARTICLES, job.getUserId(), batchSize)
+                    : jdbcTemplate.update(REASSIGN_ARTICLES, job.getReassignTo(), job.getUserId(), batchSize);
+            if (count > 0) {
+                jdbcTemplate.update("update user_deletion_jobs set processed_articles = processed_articles + ?, updated_at = ? where id = ?",
+                        count, Timestamp.valueOf(LocalDateTime.now()), job.getId());
+            }
+            return count;
+        });
+        return moved == null ? 0 : moved;
+    }
+}
@@ -0,0 +1,23 @@
+package com.jwliusri.library_service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserFilterDto {
+    private RoleEnum role;
+    private Boolean locked;
+    // Prefix of username or email, or any part of the full name, at least 3 characters
+    private String q;
+    // id, username or createdAt
+    private String sort;
+    // asc or desc
+    private String direction;
+    private String cursor;
+    private Integer size;
+}
@@ -0,0 +1,14 @@
+package com.jwliusri.library_service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportErrorDto {
+    // Line of the import file
+    private long line;
+    private String message;
+}
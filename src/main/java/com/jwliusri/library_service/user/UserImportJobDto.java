@@ -0,0 +1,30 @@
+package com.jwliusri.library_service.user;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportJobDto {
+    private UUID id;
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String status;
+    private String format;
+    private long totalRows;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    // Why a FAILED job stopped, it can be resumed
+    private String message;
+    private List<UserImportErrorDto> errors;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
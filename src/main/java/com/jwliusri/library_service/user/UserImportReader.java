@@ -0,0 +1,150 @@
+package com.jwliusri.library_service.user;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Reads an import file one line per user: CSV with a header naming the {@link UserRequestDto}
+ * fields in any order, or NDJSON objects with the same fields. CSV fields may be quoted but can't
+ * span lines, so a line is always a row and a job can resume by skipping lines.
+ */
+class UserImportReader {
+
+    enum Format { CSV, NDJSON }
+
+    /** A parsed row, or the reason it couldn't be parsed. {@code line} is the 1-based file line. */
+    record Row(long line, UserRequestDto user, String error) {}
+
+    private static final ObjectReader JSON = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(UserRequestDto.class);
+
+    private final BufferedReader reader;
+    private final Format format;
+    private Map<String, Integer> columns;
+    private long line;
+
+    UserImportReader(BufferedReader reader, Format format) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        if (format == Format.CSV) {
+            readHeader();
+        }
+    }
+
+    /** Skips rows already processed by an earlier run of the job. */
+    void skip(long rows) throws IOException {
+        for (long i = 0; i < rows && reader.readLine() != null; i++) {
+            line++;
+        }
+    }
+
+    /** The next row, or null at the end of the file. Blank lines come back as a row without user. */
+    Row next() throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            return null;
+        }
+        line++;
+        if (text.isBlank()) {
+            return new Row(line, null, null);
+        }
+        return format == Format.CSV ? parseCsv(text) : parseJson(text);
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        line++;
+        columns = new HashMap<>();
+        // Spreadsheet exports often start with a byte order mark
+        List<String> names = splitCsv(!header.isEmpty() && header.charAt(0) == '\uFEFF' ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : List.of("fullName", "username", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column " + required);
+            }
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields;
+        try {
+            fields = splitCsv(text);
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, e.getMessage());
+        }
+        String role = field(fields, "role");
+        RoleEnum parsedRole;
+        try {
+            parsedRole = role == null || role.isBlank() ? null : RoleEnum.valueOf(role.trim());
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, "Unknown role: " + role);
+        }
+        return new Row(line, UserRequestDto.builder()
+                .fullName(field(fields, "fullName"))
+                .username(field(fields, "username"))
+                .email(field(fields, "email"))
+                .password(field(fields, "password"))
+                .role(parsedRole)
+                .build(), null);
+    }
+
+    private Row parseJson(String text) {
+        try {
+            return new Row(line, JSON.readValue(text), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private String field(List<String> fields, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
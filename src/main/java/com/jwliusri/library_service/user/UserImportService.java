@@ -0,0 +1,359 @@
+package com.jwliusri.library_service.user;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jwliusri.library_service.user.UserImportReader.Format;
+import com.jwliusri.library_service.user.UserImportReader.Row;
+import com.jwliusri.library_service.user.UserJobRunner.Status;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk user imports as background jobs. The uploaded CSV or NDJSON body is spooled to
+ * {@code user.import.dir} and the request returns the queued job right away; jobs then run one at a
+ * time on a dedicated thread.
+ * <p>
+ * Rows are read in batches of {@code user.import.batch-size}. Each batch is validated, its passwords
+ * are hashed on a fork-join pool of {@code user.import.hash-parallelism} threads (all cores by default),
+ * and it is inserted with one JDBC batch. Rows that hit the unique username or email indexes are
+ * reported instead of failing the batch. The job's position, counts and row errors are written in
+ * the same transaction as the users, so a job interrupted by a restart resumes after its last
+ * committed batch, and a FAILED job can be resumed once the cause is fixed.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final String INSERT_USER = "insert into users "
+            + "(full_name, username, email, password, role, account_non_locked, failed_attempt, totp_enabled, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, true, 0, false, ?, ?) on conflict do nothing";
+    private static final String TAKEN = "Username or email already taken";
+    private static final String REJECTED = "Rejected by the database";
+    private static final int REJECTED_ROW = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final UserAvailabilityFilter availabilityFilter;
+    private final UserCacheEvictor cacheEvictor;
+    private final Path dir;
+    private final int batchSize;
+    private final int maxErrors;
+    private final ForkJoinPool hashPool;
+    private final UserJobRunner jobs;
+
+    /** Counts of the running job, they move together with its committed batches. */
+    static final class Progress {
+        long processed;
+        long imported;
+        long failed;
+    }
+
+    UserImportService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PasswordEncoder passwordEncoder,
+            Validator validator,
+            UserAvailabilityFilter availabilityFilter,
+            UserCacheEvictor cacheEvictor,
+            @Value("${user.import.dir:user-import}") String dir,
+            @Value("${user.import.batch-size:1000}") int batchSize,
+            @Value("${user.import.max-errors:1000}") int maxErrors,
+            @Value("${user.import.hash-parallelism:0}") int hashParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.availabilityFilter = availabilityFilter;
+        this.cacheEvictor = cacheEvictor;
+        this.dir = Path.of(dir);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.hashPool = new ForkJoinPool(hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors());
+        this.jobs = new UserJobRunner(jdbcTemplate, "import", this::run);
+    }
+
+    public UserImportJobDto start(String format, InputStream body) throws IOException {
+        Format importFormat = parseFormat(format);
+        UUID id = UUID.randomUUID();
+        Files.createDirectories(dir);
+        Path file = file(id, importFormat);
+        long lines = spool(body, file);
+        long rows = importFormat == Format.CSV ? lines - 1 : lines;
+        if (rows <= 0) {
+            Files.deleteIfExists(file);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import file has no rows");
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("insert into user_import_jobs "
+                + "(id, status, format, total_rows, processed_rows, imported_rows, failed_rows, created_at, updated_at) "
+                + "values (?, ?, ?, ?, 0, 0, 0, ?, ?)",
+                id, Status.QUEUED.name(), importFormat.name(), rows, now, now);
+        jobs.submit(id);
+        return getJob(id, 0);
+    }
+
+    public UserImportJobDto getJob(UUID id, int errorLimit) {
+        UserImportJobDto job;
+        try {
+            job = jdbcTemplate.queryForObject("select * from user_import_jobs where id = ?", (rs, rowNum) -> UserImportJobDto.builder()
+                    .id(rs.getObject("id", UUID.class))
+                    .status(rs.getString("status"))
+                    .format(rs.getString("format"))
+                    .totalRows(rs.getLong("total_rows"))
+                    .processedRows(rs.getLong("processed_rows"))
+                    .importedRows(rs.getLong("imported_rows"))
+                    .failedRows(rs.getLong("failed_rows"))
+                    .message(rs.getString("message"))
+                    .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                    .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                    .build(), id);
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job not found");
+        }
+        job.setErrors(errorLimit <= 0 ? List.of() : jdbcTemplate.query(
+                "select line, message from user_import_errors where job_id = ? order by line limit ?",
+                (rs, rowNum) -> new UserImportErrorDto(rs.getLong("line"), rs.getString("message")),
+                id, errorLimit));
+        return job;
+    }
+
+    public UserImportJobDto resume(UUID id) {
+        jobs.resume(id, getJob(id, 0).getStatus());
+        return getJob(id, 0);
+    }
+
+    /** Picks up jobs that were queued or running when the application last stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        jobs.resumeUnfinished();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        jobs.stop();
+        hashPool.shutdown();
+    }
+
+    void run(UUID id) {
+        try {
+            var job = jdbcTemplate.queryForMap("select format, processed_rows, imported_rows, failed_rows from user_import_jobs where id = ?", id);
+            Format format = Format.valueOf((String) job.get("format"));
+            Progress progress = new Progress();
+            progress.processed = ((Number) job.get("processed_rows")).longValue();
+            progress.imported = ((Number) job.get("imported_rows")).longValue();
+            progress.failed = ((Number) job.get("failed_rows")).longValue();
+            jobs.updateStatus(id, Status.RUNNING, null);
+
+            Path file = file(id, format);
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                UserImportReader reader = new UserImportReader(in, format);
+                reader.skip(progress.processed);
+                List<Row> batch = new ArrayList<>(batchSize);
+                for (Row row = reader.next(); row != null; row = reader.next()) {
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        importBatch(id, batch, progress);
+                        batch.clear();
+                        if (jobs.isStopping()) {
+                            return;
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    importBatch(id, batch, progress);
+                }
+            }
+            jobs.updateStatus(id, Status.COMPLETED, null);
+            Files.deleteIfExists(file);
+            log.info("User import {} completed, {} imported, {} failed", id, progress.imported, progress.failed);
+        } catch (IOException | RuntimeException e) {
+            jobs.fail(id, e);
+        }
+    }
+
+    void importBatch(UUID id, List<Row> rows, Progress progress) {
+        List<UserImportErrorDto> errors = new ArrayList<>();
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String problem = row.user() == null ? row.error() : validate(row.user());
+            if (problem != null) {
+                errors.add(new UserImportErrorDto(row.line(), problem));
+            } else if (row.user() != null) {
+                valid.add(row);
+            }
+        }
+
+        // bcrypt dominates an import, spread it over the pool
+        String[] hashes = hashPool.submit(() -> valid.parallelStream()
+                .map(row -> passwordEncoder.encode(row.user().getPassword()))
+                .toArray(String[]::new)).join();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Row> inserted = new ArrayList<>(valid.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] counts = valid.isEmpty() ? new int[0] : insertUsers(valid, hashes, now);
+            for (int i = 0; i < counts.length; i++) {
+                // Skipped by "on conflict do nothing", an existing user or an earlier row of this file
+                if (counts[i] == 0) {
+                    errors.add(new UserImportErrorDto(valid.get(i).line(), TAKEN));
+                } else if (counts[i] == REJECTED_ROW) {
+                    errors.add(new UserImportErrorDto(valid.get(i).line(), REJECTED));
+                } else {
+                    inserted.add(valid.get(i));
+                }
+            }
+
+            errors.sort(Comparator.comparingLong(UserImportErrorDto::getLine));
+            long stored = Math.min(progress.failed, maxErrors);
+            List<UserImportErrorDto> kept = errors.subList(0, (int) Math.min(errors.size(), Math.max(0, maxErrors - stored)));
+            if (!kept.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into user_import_errors (job_id, line, message) values (?, ?, ?)",
+                        kept.stream().map(error -> new Object[] {id, error.getLine(), error.getMessage()}).toList());
+            }
+            jdbcTemplate.update("update user_import_jobs set processed_rows = processed_rows + ?, imported_rows = imported_rows + ?, "
+                    + "failed_rows = failed_rows + ?, updated_at = ? where id = ?",
+                    rows.size(), inserted.size(), errors.size(), now, id);
+            if (!inserted.isEmpty()) {
+                // A login tried before the import may have cached "no such user"
+                cacheEvictor.evictLookups(List.of());
+            }
+        });
+
+        progress.processed += rows.size();
+        progress.imported += inserted.size();
+        progress.failed += errors.size();
+        for (Row row : inserted) {
+            availabilityFilter.add(row.user().getUsername(), row.user().getEmail());
+        }
+    }
+
+    /**
+     * One JDBC batch for the rows. When the database rejects a row the batch is rolled back to a savepoint
+     * and retried row by row, so only that row fails instead of the job, which would fail the same way on
+     * every resume. A rejected row counts as {@link #REJECTED_ROW}.
+     */
+    private int[] insertUsers(List<Row> rows, String[] hashes, Timestamp now) {
+        jdbcTemplate.execute("savepoint import_batch");
+        try {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setUser(ps, rows.get(i).user(), hashes[i], now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+            jdbcTemplate.execute("release savepoint import_batch");
+            return counts;
+        } catch (DataIntegrityViolationException e) {
+            jdbcTemplate.execute("rollback to savepoint import_batch");
+        }
+
+        int[] counts = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            UserRequestDto user = rows.get(i).user();
+            String hash = hashes[i];
+            jdbcTemplate.execute("savepoint import_row");
+            try {
+                counts[i] = jdbcTemplate.update(INSERT_USER, ps -> setUser(ps, user, hash, now));
+                jdbcTemplate.execute("release savepoint import_row");
+            } catch (DataIntegrityViolationException e) {
+                jdbcTemplate.execute("rollback to savepoint import_row");
+                log.warn("User import row {} rejected by the database", rows.get(i).line(), e);
+                counts[i] = REJECTED_ROW;
+            }
+        }
+        return counts;
+    }
+
+    private static void setUser(PreparedStatement ps, UserRequestDto user, String hash, Timestamp now) throws SQLException {
+        ps.setString(1, user.getFullName());
+        ps.setString(2, user.getUsername().trim());
+        ps.setString(3, user.getEmail().trim());
+        ps.setString(4, hash);
+        ps.setString(5, (user.getRole() == null ? RoleEnum.ROLE_VIEWER : user.getRole()).name());
+        ps.setTimestamp(6, now);
+        ps.setTimestamp(7, now);
+    }
+
+    private String validate(UserRequestDto user) {
+        Set<ConstraintViolation<UserRequestDto>> violations = validator.validate(user);
+        List<String> messages = new ArrayList<>(violations.stream().map(ConstraintViolation::getMessage).sorted().toList());
+        if (user.getPassword() == null || user.getPassword().isBlank()) {
+            messages.add("password is required");
+        }
+        return messages.isEmpty() ? null : messages.stream().collect(Collectors.joining(", "));
+    }
+
+    private Path file(UUID id, Format format) {
+        return dir.resolve(id + "." + format.name().toLowerCase());
+    }
+
+    /** Copies the upload to disk and returns its number of lines. */
+    static long spool(InputStream body, Path file) throws IOException {
+        long lines = 0;
+        int last = '\n';
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                out.write(buffer, 0, read);
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (read > 0) {
+                    last = buffer[read - 1];
+                }
+            }
+        }
+        // A last line without a line break
+        return last == '\n' ? lines : lines + 1;
+    }
+
+    static Format parseFormat(String value) {
+        try {
+            return Format.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported import format: " + value);
+        }
+    }
+}
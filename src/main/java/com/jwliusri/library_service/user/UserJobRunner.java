@@ -0,0 +1,100 @@
+package com.jwliusri.library_service.user;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lifecycle shared by the background user jobs. Each kind keeps its jobs in a {@code user_<kind>_jobs}
+ * table with a status column and runs them one at a time on its own thread. A FAILED job is queued
+ * again on request, QUEUED and RUNNING ones are picked up when the application starts, and stopping
+ * lets the running job finish its current batch.
+ */
+@Slf4j
+final class UserJobRunner {
+
+    enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String kind;
+    private final String table;
+    private final Consumer<UUID> job;
+    private final ExecutorService runner;
+    private volatile boolean stopping;
+
+    UserJobRunner(JdbcTemplate jdbcTemplate, String kind, Consumer<UUID> job) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kind = kind;
+        this.table = "user_" + kind + "_jobs";
+        this.job = job;
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-" + kind);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void submit(UUID id) {
+        runner.execute(() -> job.accept(id));
+    }
+
+    /** Queues a FAILED job again; a queued or running one is left alone. */
+    void resume(UUID id, String status) {
+        if (Status.valueOf(status) == Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    Character.toUpperCase(kind.charAt(0)) + kind.substring(1) + " job already completed");
+        }
+        if (Status.valueOf(status) == Status.FAILED) {
+            updateStatus(id, Status.QUEUED, null);
+            submit(id);
+        }
+    }
+
+    /** Picks up jobs that were queued or running when the application last stopped. */
+    void resumeUnfinished() {
+        try {
+            for (UUID id : jdbcTemplate.queryForList(
+                    "select id from " + table + " where status in ('QUEUED', 'RUNNING') order by created_at", UUID.class)) {
+                submit(id);
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to resume user {} jobs", kind, e);
+        }
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    void stop() throws InterruptedException {
+        // The running job stops after its current batch and resumes on the next start
+        stopping = true;
+        runner.shutdown();
+        runner.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    void updateStatus(UUID id, Status status, String message) {
+        jdbcTemplate.update("update " + table + " set status = ?, message = ?, updated_at = ? where id = ?",
+                status.name(), message, Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    void fail(UUID id, Exception e) {
+        log.error("User {} {} failed", kind, id, e);
+        try {
+            updateStatus(id, Status.FAILED, String.valueOf(e.getMessage()));
+        } catch (DataAccessException statusError) {
+            log.error("Failed to mark user {} {} as failed", kind, id, statusError);
+        }
+    }
+}
@@ -2,9 +2,34 @@ package com.jwliusri.library_service.user;
 
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsernameOrEmail(String username, String email);
-    Optional<User> findByUsername(String username);
+import jakarta.persistence.QueryHint;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository {
+
+    // Case insensitive, served by the unique lower() indexes in schema.sql. The auth lookups are
+    // query cached, a hit resolves to the cached entity without SQL
+    @Query("select u from User u where lower(u.username) = lower(:username)")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<User> findByUsername(@Param("username") String username);
+
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<User> findByEmail(@Param("email") String email);
+
+    @Query("select count(u) > 0 from User u where lower(u.username) = lower(:username)")
+    boolean existsByUsername(@Param("username") String username);
+
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
+
+    /** Usernames can't contain '@', so each login identifier hits exactly one unique index. */
+    default Optional<User> findByUsernameOrEmail(String usernameOrEmail) {
+        return usernameOrEmail.indexOf('@') >= 0 ? findByEmail(usernameOrEmail) : findByUsername(usernameOrEmail);
+    }
 }
@@ -1,6 +1,9 @@
 package com.jwliusri.library_service.user;
 
+import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,10 +15,16 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class UserRequestDto {
     @NotBlank(message = "fullName is required")
+    @Size(max = 255, message = "fullName must be at most 255 characters")
     private String fullName;
     @NotBlank(message = "username is required")
+    @Size(max = 255, message = "username must be at most 255 characters")
+    // '@' tells an email from a username at login
+    @Pattern(regexp = "[^@]*", message = "username must not contain @")
     private String username;
     @NotBlank(message = "email is required")
+    @Size(max = 255, message = "email must be at most 255 characters")
+    @Email(message = "email must be a valid email address")
     private String email;
 
     private String password;
@@ -2,10 +2,13 @@ package com.jwliusri.library_service.user;
 
 import java.time.LocalDateTime;
 
+import com.jwliusri.library_service.audit.AuditEntity;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+@AuditEntity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
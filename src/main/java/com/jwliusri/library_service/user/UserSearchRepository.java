@@ -0,0 +1,41 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public interface UserSearchRepository {
+
+    enum SortKey {
+        ID("id"), USERNAME("username"), CREATED_AT("createdAt");
+
+        private final String property;
+
+        SortKey(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public static SortKey parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            for (SortKey key : values()) {
+                if (key.property.equalsIgnoreCase(value)) {
+                    return key;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort: " + value);
+        }
+    }
+
+    /**
+     * Users matching the filter as response DTOs, ordered by (sort, id) and starting after the
+     * (afterValue, afterId) keyset position when given. Never reads the password or lockout columns.
+     */
+    List<UserResponseDto> search(UserFilterDto filter, SortKey sort, boolean ascending, Object afterValue, Long afterId, int limit);
+}
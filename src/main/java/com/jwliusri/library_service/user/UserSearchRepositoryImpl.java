@@ -0,0 +1,94 @@
+package com.jwliusri.library_service.user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Criteria query behind {@link UserSearchRepository}, selecting straight into {@link UserResponseDto}.
+ * The search term is matched as a prefix of {@code lower(username)} and {@code lower(email)} and as a
+ * substring of {@code lower(full_name)}, all served by the trigram indexes in schema.sql. Trigram indexes
+ * can't serve a term shorter than {@link #MIN_TERM_LENGTH}, so {@link UserService} rejects those.
+ */
+class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    static final int MIN_TERM_LENGTH = 3;
+    private static final char ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserResponseDto> search(UserFilterDto filter, SortKey sort, boolean ascending, Object afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDto> query = cb.createQuery(UserResponseDto.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.construct(UserResponseDto.class,
+                user.get("id"),
+                user.get("fullName"),
+                user.get("username"),
+                user.get("email"),
+                user.get("role"),
+                user.get("createdAt"),
+                user.get("updatedAt")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getRole() != null) {
+            predicates.add(cb.equal(user.get("role"), filter.getRole()));
+        }
+        if (filter.getLocked() != null) {
+            predicates.add(cb.equal(user.get("accountNonLocked"), !filter.getLocked()));
+        }
+        if (filter.getQ() != null && !filter.getQ().isBlank()) {
+            String term = escapeLike(filter.getQ().trim().toLowerCase());
+            predicates.add(cb.or(
+                    cb.like(cb.lower(user.get("username")), term + "%", ESCAPE),
+                    cb.like(cb.lower(user.get("email")), term + "%", ESCAPE),
+                    cb.like(cb.lower(user.get("fullName")), "%" + term + "%", ESCAPE)));
+        }
+
+        Expression<Comparable<Object>> key = user.get(sort.property());
+        Expression<Long> id = user.get("id");
+        if (afterId != null) {
+            predicates.add(sort == SortKey.ID
+                    ? (ascending ? cb.greaterThan(id, afterId) : cb.lessThan(id, afterId))
+                    : after(cb, key, id, afterValue, afterId, ascending));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(sort == SortKey.ID
+                ? List.of(ascending ? cb.asc(id) : cb.desc(id))
+                : List.of(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id)));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // The redundant bound on the key is the index range, the planner can't take one from the OR alone
+    @SuppressWarnings("unchecked")
+    static Predicate after(CriteriaBuilder cb, Expression<Comparable<Object>> key, Expression<Long> id,
+            Object afterValue, Long afterId, boolean ascending) {
+        Comparable<Object> value = (Comparable<Object>) afterValue;
+        return ascending
+                ? cb.and(cb.greaterThanOrEqualTo(key, value),
+                        cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, afterId))))
+                : cb.and(cb.lessThanOrEqualTo(key, value),
+                        cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, afterId))));
+    }
+
+    static String escapeLike(String term) {
+        StringBuilder escaped = new StringBuilder(term.length());
+        for (char c : term.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -1,13 +1,24 @@
 package com.jwliusri.library_service.user;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.jwliusri.library_service.audit.AuditChanges;
+import com.jwliusri.library_service.user.UserSearchRepository.SortKey;
+
 @Service
 public class UserService {
 
@@ -15,13 +26,63 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final UserAvailabilityFilter availabilityFilter;
+
+    private final UserBulkRepository userBulkRepository;
+
+    private final UserCacheEvictor cacheEvictor;
+
+    @Value("${user.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${user.query.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${user.bulk.max-ids:10000}")
+    private int maxBulkIds;
+
+    UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserAvailabilityFilter availabilityFilter,
+            UserBulkRepository userBulkRepository, UserCacheEvictor cacheEvictor) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.availabilityFilter = availabilityFilter;
+        this.userBulkRepository = userBulkRepository;
+        this.cacheEvictor = cacheEvictor;
     }
 
-    public List<UserResponseDto> getAllUsers() {
-        return userRepository.findAll().stream().map(this::mapToResponse).toList();
+    /**
+     * Keyset paging over the projected user columns. The cursor is the (sort value, id) of the last
+     * row of the previous page, so deep pages cost the same as the first one.
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto getUsers(UserFilterDto filter) {
+        requireSearchableTerm(filter);
+        int size = filter.getSize() == null ? defaultPageSize : Math.clamp(filter.getSize(), 1, maxPageSize);
+        SortKey sort = SortKey.parse(filter.getSort());
+        boolean ascending = filter.getDirection() == null || !filter.getDirection().equalsIgnoreCase("desc");
+        Cursor cursor = filter.getCursor() == null || filter.getCursor().isBlank()
+                ? null
+                : decodeCursor(filter.getCursor(), sort, ascending);
+
+        // Fetch one extra row to know whether there is a next page
+        List<UserResponseDto> rows = userRepository.search(filter, sort, ascending,
+                cursor == null ? null : cursor.value(),
+                cursor == null ? null : cursor.id(),
+                size + 1);
+        if (rows.size() <= size) {
+            return new UserPageDto(rows, null);
+        }
+        List<UserResponseDto> page = rows.subList(0, size);
+        return new UserPageDto(page, encodeCursor(sort, ascending, page.get(size - 1)));
+    }
+
+    // A shorter term would fall back to a sequential scan of users
+    private static void requireSearchableTerm(UserFilterDto filter) {
+        if (filter.getQ() != null && !filter.getQ().isBlank()
+                && filter.getQ().trim().length() < UserSearchRepositoryImpl.MIN_TERM_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "q must be at least " + UserSearchRepositoryImpl.MIN_TERM_LENGTH + " characters");
+        }
     }
 
     public UserResponseDto getUserById(Long Id) {
@@ -36,15 +97,24 @@ public class UserService {
             .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
+    /** A name the availability filter has never seen is free without asking the database. */
+    public UserAvailabilityDto checkAvailability(String username, String email) {
+        Boolean usernameAvailable = username == null ? null
+                : !availabilityFilter.mightContainUsername(username) || !userRepository.existsByUsername(username.trim());
+        Boolean emailAvailable = email == null ? null
+                : !availabilityFilter.mightContainEmail(email) || !userRepository.existsByEmail(email.trim());
+        return new UserAvailabilityDto(usernameAvailable, emailAvailable);
+    }
+
     public UserResponseDto createUser(UserRequestDto request) {
         User user = User.builder()
             .fullName(request.getFullName())
-            .username(request.getUsername())
-            .email(request.getEmail())
+            .username(request.getUsername().trim())
+            .email(request.getEmail().trim())
             .password(passwordEncoder.encode(request.getPassword()))
             .build();
 
-        user = userRepository.save(user);
+        user = save(user);
         return mapToResponse(user);
     }
 
@@ -52,9 +122,10 @@ public class UserService {
         User user = userRepository.findById(id)
             .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
+        UserResponseDto before = mapToResponse(user);
         user.setFullName(request.getFullName());
-        user.setUsername(request.getUsername());
-        user.setEmail(request.getEmail());
+        user.setUsername(request.getUsername().trim());
+        user.setEmail(request.getEmail().trim());
 
         if (request.getPassword() != null) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
@@ -63,15 +134,44 @@ public class UserService {
             user.setRole(request.getRole());
         }
 
-        user = userRepository.save(user);
-        return mapToResponse(user);
+        user = save(user);
+        UserResponseDto after = mapToResponse(user);
+        AuditChanges.record(before, after);
+        return after;
     }
 
-    public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-            .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    /**
+     * One set-based update for the whole selection instead of a load and save per user. The call is
+     * audited once, with the changes and the ids of the users that changed.
+     */
+    @Transactional
+    public UserBulkUpdateResultDto bulkUpdate(UserBulkUpdateDto request) {
+        UserFilterDto filter = request.getFilter();
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = filter != null
+                && (filter.getRole() != null || filter.getLocked() != null || (filter.getQ() != null && !filter.getQ().isBlank()));
+        if (!hasIds && !hasFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids or filter is required");
+        }
+        if (filter != null) {
+            requireSearchableTerm(filter);
+        }
+        if (hasIds && request.getIds().size() > maxBulkIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBulkIds + " ids are allowed");
+        }
+        if (request.getRole() == null && !request.isUnlock() && !request.isDisable()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+
+        List<Long> updated = userBulkRepository.update(request);
+        cacheEvictor.evictUsers(updated);
 
-        userRepository.delete(user);
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("role", request.getRole());
+        values.put("unlocked", request.isUnlock() ? true : null);
+        values.put("disabled", request.isDisable() ? true : null);
+        AuditChanges.recordBulk(values, updated);
+        return new UserBulkUpdateResultDto(updated.size());
     }
 
     public User getAuthUser(Authentication auth) {
@@ -79,6 +179,21 @@ public class UserService {
             .orElseThrow(() ->  new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
+    // The unique indexes decide, a check-then-insert would race concurrent requests
+    private User save(User user) {
+        try {
+            User saved = userRepository.saveAndFlush(user);
+            availabilityFilter.add(saved.getUsername(), saved.getEmail());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    cause.contains("uk_users_email") ? "Email already taken"
+                    : cause.contains("uk_users_username") ? "Username already taken"
+                    : "User conflicts with an existing user");
+        }
+    }
+
     public UserResponseDto mapToResponse(User user) {
         return new UserResponseDto(
             user.getId(),
@@ -90,4 +205,37 @@ public class UserService {
             user.getUpdatedAt()
         );
     }
+
+    record Cursor(Object value, Long id) {}
+
+    static String encodeCursor(SortKey sort, boolean ascending, UserResponseDto last) {
+        Object value = switch (sort) {
+            case ID -> last.getId();
+            case USERNAME -> last.getUsername();
+            case CREATED_AT -> last.getCreatedAt();
+        };
+        String cursor = sort.property() + "|" + (ascending ? "asc" : "desc") + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor, SortKey sort, boolean ascending) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefix = sort.property() + "|" + (ascending ? "asc" : "desc") + "|";
+            int idSeparator = decoded.lastIndexOf('|');
+            if (!decoded.startsWith(prefix) || idSeparator < prefix.length()) {
+                throw new IllegalArgumentException("Cursor of another sort");
+            }
+            // Usernames may contain the separator, the id is always after the last one
+            String value = decoded.substring(prefix.length(), idSeparator);
+            Long id = Long.valueOf(decoded.substring(idSeparator + 1));
+            return new Cursor(switch (sort) {
+                case ID -> id;
+                case USERNAME -> value;
+                case CREATED_AT -> LocalDateTime.parse(value);
+            }, id);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 }
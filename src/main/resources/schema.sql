@@ -0,0 +1,110 @@
+-- Runs after Hibernate has created the tables (spring.jpa.defer-datasource-initialization)
+
+-- Repeated audit strings (username, action, entity type, user agent) are stored once here
+-- and referenced by id from audit_logs, see AuditDictionary
+drop table if exists audit_dictionary;
+create table audit_dictionary (
+    id integer generated by default as identity primary key,
+    dimension smallint not null,
+    value varchar(512) not null,
+    constraint uk_audit_dictionary_value unique (dimension, value)
+);
+
+-- Hibernate creates audit_logs as a plain table, replace it with one range partitioned on timestamp.
+-- AuditLogPartitionManager creates the upcoming partitions and drops expired ones,
+-- the default partition only catches rows outside of them until their partition is created and they are moved into it.
+drop table if exists audit_logs;
+create table audit_logs (
+    id bigint generated by default as identity,
+    event_id uuid,
+    action_id integer,
+    entity_type_id integer,
+    entity_id bigint,
+    username_id integer,
+    user_agent_id integer,
+    ip_address varchar(255),
+    timestamp timestamp(6) not null,
+    success boolean not null,
+    error_message varchar(2000),
+    changes jsonb,
+    duration_micros bigint,
+    statement_count integer,
+    request_bytes bigint,
+    response_bytes bigint,
+    primary key (id, timestamp),
+    constraint uk_audit_logs_event_id unique (event_id, timestamp)
+) partition by range (timestamp);
+create table audit_logs_default partition of audit_logs default;
+
+-- Indexes on the parent are created on every partition. Each serves a filter of GET /api/audit-logs
+-- plus the (timestamp, id) keyset order
+create index idx_audit_logs_timestamp_id on audit_logs (timestamp, id);
+create index idx_audit_logs_username_timestamp on audit_logs (username_id, timestamp, id);
+create index idx_audit_logs_action_timestamp on audit_logs (action_id, timestamp, id);
+-- Entity history reads a page as one range of this index in its (timestamp desc, id desc) order, no sort
+create index idx_audit_logs_entity_timestamp on audit_logs (entity_type_id, entity_id, timestamp desc, id desc);
+-- Rows are appended in time order, so a BRIN index answers time range scans for a few pages of index
+create index idx_audit_logs_timestamp_brin on audit_logs using brin (timestamp);
+-- Failures are rare, keep them in a small partial index
+create index idx_audit_logs_failures on audit_logs (timestamp, id) where success = false;
+
+-- Logins and every authenticated request look a user up by username or email, case insensitive.
+-- The unique indexes also settle concurrent sign ups, see UserService
+create unique index uk_users_username on users (lower(username));
+create unique index uk_users_email on users (lower(email));
+
+-- GET /api/users. The search term is a LIKE on lower(username), lower(email) and lower(full_name);
+-- trigram indexes answer both prefix and substring patterns, also when the pattern is a bind parameter
+create extension if not exists pg_trgm;
+create index idx_users_username_trgm on users using gin (lower(username) gin_trgm_ops);
+create index idx_users_email_trgm on users using gin (lower(email) gin_trgm_ops);
+create index idx_users_full_name_trgm on users using gin (lower(full_name) gin_trgm_ops);
+-- Each keyset sort reads its (key, id) index in order, the role filter has its own
+create index idx_users_username_id on users (username, id);
+create index idx_users_created_at_id on users (created_at, id);
+create index idx_users_role_id on users (role, id);
+-- Locked accounts are rare, keep them in a small partial index
+create index idx_users_locked on users (id) where account_non_locked = false;
+
+-- Bulk user imports, see UserImportService. Progress moves in the same transaction as each
+-- imported batch, so processed_rows is where an interrupted job resumes
+drop table if exists user_import_errors;
+drop table if exists user_import_jobs;
+create table user_import_jobs (
+    id uuid primary key,
+    status varchar(16) not null,
+    format varchar(16) not null,
+    total_rows bigint not null,
+    processed_rows bigint not null,
+    imported_rows bigint not null,
+    failed_rows bigint not null,
+    message varchar(1000),
+    created_at timestamp not null,
+    updated_at timestamp not null
+);
+create table user_import_errors (
+    job_id uuid not null references user_import_jobs (id) on delete cascade,
+    line bigint not null,
+    message varchar(1000) not null,
+    primary key (job_id, line)
+);
+
+-- Article lists by author and user deletion both read articles by author_id
+create index idx_articles_author_id on articles (author_id, id);
+
+-- Background user deletions, see UserDeletionService. No foreign key to users, the job outlives the user.
+-- A user has at most one unfinished deletion
+drop table if exists user_deletion_jobs;
+create table user_deletion_jobs (
+    id uuid primary key,
+    user_id bigint not null,
+    username varchar(255) not null,
+    reassign_to bigint,
+    status varchar(16) not null,
+    total_articles bigint not null,
+    processed_articles bigint not null,
+    message varchar(1000),
+    created_at timestamp not null,
+    updated_at timestamp not null
+);
+create unique index uk_user_deletion_jobs_active on user_deletion_jobs (user_id) where status <> 'COMPLETED';
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -18,10 +20,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.jwliusri.library_service.config.HedgedReadExecutor;
 import com.jwliusri.library_service.user.RoleEnum;
 import com.jwliusri.library_service.user.User;
 import com.jwliusri.library_service.user.UserService;
@@ -38,6 +42,12 @@ class ArticleServiceTests {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private ObjectProvider<HedgedReadExecutor> hedgedReads;
+
+    @Mock
+    private HedgedReadExecutor hedgedReadExecutor;
+
     @InjectMocks
     private ArticleService articleService;
 
@@ -258,6 +268,38 @@ class ArticleServiceTests {
         assertEquals("Article not found", exception.getReason());
     }
 
+    @Test
+    void getArticleById_WithHedgedReads_ShouldReadThroughExecutor() {
+        // Arrange
+        ArticleResponseDto article = articleService.mapToResponse(testArticle);
+        when(hedgedReads.getIfAvailable()).thenReturn(hedgedReadExecutor);
+        when(hedgedReadExecutor.<Optional<ArticleResponseDto>>query(eq("article.get"), anyString(), any(), eq(testArticle.getId())))
+                .thenReturn(Optional.of(article));
+        when(userService.getAuthUser(authentication)).thenReturn(testViewer);
+
+        // Act
+        ArticleResponseDto result = articleService.getArticleById(testArticle.getId(), authentication);
+
+        // Assert
+        assertEquals(article, result);
+        verify(articleRepository, never()).findById(any());
+    }
+
+    @Test
+    void getArticleById_WithHedgedReadsAndPrivateArticle_ShouldThrowForbidden() {
+        // Arrange
+        when(hedgedReads.getIfAvailable()).thenReturn(hedgedReadExecutor);
+        when(hedgedReadExecutor.<Optional<ArticleResponseDto>>query(eq("article.get"), anyString(), any(), eq(testPrivateArticle.getId())))
+                .thenReturn(Optional.of(articleService.mapToResponse(testPrivateArticle)));
+        when(userService.getAuthUser(authentication)).thenReturn(testViewer);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> articleService.getArticleById(testPrivateArticle.getId(), authentication));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+    }
+
     @Test
     void createArticle_ShouldCreateAndReturnNewArticle() {
         // Arrange
@@ -0,0 +1,98 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.jwliusri.library_service.article.ArticleResponseDto;
+
+/**
+ * Entity id extraction of {@link AuditAspect} against the reflective lookup it replaced.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.jwliusri.library_service.audit.AuditAspectBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditAspectBenchmark {
+
+    private AuditAspect auditAspect;
+    private JoinPoint entityArgJoinPoint;
+    private Object[] entityArgs;
+    private ArticleResponseDto result;
+
+    @Setup
+    public void setUp() {
+        AuditEntityIdRegistry registry = new AuditEntityIdRegistry();
+        registry.init();
+        auditAspect = new AuditAspect(null, registry, null, null, null, null, null);
+        result = new ArticleResponseDto(1L, null, null, null, null, false, null, null);
+        entityArgs = new Object[]{"request", result};
+        entityArgJoinPoint = new ArgsJoinPoint(entityArgs);
+    }
+
+    @Benchmark
+    public Optional<Long> registryFromResult() {
+        return auditAspect.extractEntityId(entityArgJoinPoint, null, result);
+    }
+
+    @Benchmark
+    public Optional<Long> registryFromArgument() {
+        return auditAspect.extractEntityId(entityArgJoinPoint, null, null);
+    }
+
+    @Benchmark
+    public Optional<Long> reflectionFromArgument() {
+        // The lookup AuditAspect used before the registry
+        return Arrays.stream(entityArgs)
+                .filter(arg -> arg instanceof Long ||
+                        (arg != null && arg.getClass().isAnnotationPresent(AuditEntity.class)))
+                .findFirst()
+                .map(arg -> {
+                    if (arg instanceof Long) {
+                        return (Long) arg;
+                    }
+                    try {
+                        return (Long) arg.getClass().getMethod("getId").invoke(arg);
+                    } catch (Exception e) {
+                        return null;
+                    }
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AuditAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /** Only carries arguments, a mock would dominate the measurement. */
+    private record ArgsJoinPoint(Object[] args) implements JoinPoint {
+        @Override public Object[] getArgs() { return args; }
+        @Override public Signature getSignature() { return null; }
+        @Override public Object getThis() { return null; }
+        @Override public Object getTarget() { return null; }
+        @Override public SourceLocation getSourceLocation() { return null; }
+        @Override public String getKind() { return METHOD_EXECUTION; }
+        @Override public StaticPart getStaticPart() { return null; }
+        @Override public String toShortString() { return "benchmark"; }
+        @Override public String toLongString() { return "benchmark"; }
+    }
+}
@@ -4,13 +4,15 @@ import com.jwliusri.library_service.article.ArticleResponseDto;
 import com.jwliusri.library_service.security.auth.LoginResponseDto;
 import com.jwliusri.library_service.security.auth.ValidateResponseDto;
 import com.jwliusri.library_service.user.UserResponseDto;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -23,10 +25,15 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.argThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,10 +41,10 @@ import static org.mockito.Mockito.*;
 class AuditAspectTest {
 
     @Mock
-    private AuditLogRepository auditLogRepository;
+    private AuditLogWriter auditLogWriter;
 
     @Mock
-    private JoinPoint joinPoint;
+    private ProceedingJoinPoint joinPoint;
 
     @Mock
     private HttpServletRequest request;
@@ -45,6 +52,24 @@ class AuditAspectTest {
     @Mock
     private ServletRequestAttributes requestAttributes;
 
+    @Mock
+    private AuditSampler auditSampler;
+
+    @Mock
+    private AuditMetrics auditMetrics;
+
+    @Mock
+    private AuditStatementCounter statementCounter;
+
+    @Mock
+    private AuditLatencyHistograms latencyHistograms;
+
+    @Mock
+    private AuditTail auditTail;
+
+    @Spy
+    private AuditEntityIdRegistry entityIdRegistry = new AuditEntityIdRegistry();
+
     @InjectMocks
     private AuditAspect auditAspect;
 
@@ -67,20 +92,24 @@ class AuditAspectTest {
         when(request.getRemoteAddr()).thenReturn(ipAddress);
         when(requestAttributes.getRequest()).thenReturn(request);
         RequestContextHolder.setRequestAttributes(requestAttributes);
+
+        when(auditSampler.shouldRecord(any(), any(), anyBoolean())).thenReturn(true);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{});
     }
 
     @Test
-    void auditSuccessfulOperation_ShouldCreateSuccessLog() throws Exception {
+    void audit_ShouldCreateSuccessLogAndReturnResult() throws Throwable {
         // Arrange
         Auditable auditable = createTestAuditable();
         ArticleResponseDto response = new ArticleResponseDto(1L, null, null, null, null, false, null, null);
-        when(joinPoint.getArgs()).thenReturn(new Object[]{});
-        
+        when(joinPoint.proceed()).thenReturn(response);
+
         // Act
-        auditAspect.auditSuccessfulOperation(joinPoint, auditable, response);
+        Object result = auditAspect.audit(joinPoint, auditable);
 
         // Assert
-        verify(auditLogRepository).save(argThat(log ->
+        assertSame(response, result);
+        verify(auditLogWriter).submit(argThat(log ->
             log.getUsername().equals(testUsername) &&
             log.getUserAgent().equals(userAgent) &&
             log.getIpAddress().equals(ipAddress) &&
@@ -91,17 +120,19 @@ class AuditAspectTest {
     }
 
     @Test
-    void auditFailedOperation_ShouldCreateErrorLog() throws Exception {
+    void audit_WhenMethodThrows_ShouldCreateErrorLogAndRethrow() throws Throwable {
         // Arrange
         Auditable auditable = createTestAuditable();
         when(joinPoint.getArgs()).thenReturn(new Object[]{2L}); // Simulate ID in arguments
-        Exception ex = new RuntimeException("Test error");
+        RuntimeException ex = new RuntimeException("Test error");
+        when(joinPoint.proceed()).thenThrow(ex);
 
         // Act
-        auditAspect.auditFailedOperation(joinPoint, auditable, ex);
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> auditAspect.audit(joinPoint, auditable));
 
         // Assert
-        verify(auditLogRepository).save(argThat(log ->
+        assertSame(ex, thrown);
+        verify(auditLogWriter).submit(argThat(log ->
             !log.isSuccess() &&
             log.getErrorMessage().equals("Test error") &&
             log.getEntityId() == 2L
@@ -109,21 +140,125 @@ class AuditAspectTest {
     }
 
     @Test
-    void createAuditLog_WithAnonymousUser_ShouldUseAnonymousName() throws Exception {
+    void audit_ShouldRecordDurationAndStatementCount() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+        when(statementCounter.count()).thenReturn(10L, 13L);
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditLogWriter).submit(argThat(log ->
+            log.getStatementCount() == 3 &&
+            log.getDurationMicros() != null && log.getDurationMicros() >= 0
+        ));
+        verify(latencyHistograms).record(eq("TEST_ACTION"), anyLong());
+    }
+
+    @Test
+    void audit_ShouldPublishRecordedLogToTail() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditTail).publish(argThat(log -> log.getAction().equals("TEST_ACTION")));
+    }
+
+    @Test
+    void audit_WhenPayloadFilterIsActive_ShouldDeferSubmit() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+        List<AuditLog> pending = new ArrayList<>();
+        when(request.getAttribute(anyString())).thenReturn(pending);
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditLogWriter, never()).submit(any());
+        assertEquals(1, pending.size());
+    }
+
+    @Test
+    void audit_WithAnonymousUser_ShouldUseAnonymousName() throws Throwable {
         // Arrange
         SecurityContextHolder.clearContext();
         Auditable auditable = createTestAuditable();
-        when(joinPoint.getArgs()).thenReturn(new Object[]{});
 
         // Act
-        auditAspect.auditSuccessfulOperation(joinPoint, auditable, null);
+        auditAspect.audit(joinPoint, auditable);
 
         // Assert
-        verify(auditLogRepository).save(argThat(log ->
+        verify(auditLogWriter).submit(argThat(log ->
             log.getUsername().equals("ANONYMOUS")
         ));
     }
 
+    @Test
+    void audit_WhenSampledOut_ShouldNotSubmit() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+        when(auditSampler.shouldRecord(auditable, testUsername, true)).thenReturn(false);
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditLogWriter, never()).submit(any());
+        verify(auditTail, never()).publish(any());
+        verify(auditMetrics).record("TEST_ACTION", true, testUsername, ipAddress);
+        verify(latencyHistograms).record(eq("TEST_ACTION"), anyLong());
+    }
+
+    @Test
+    void audit_WithAnonymousUser_ShouldSampleByIpAddress() throws Throwable {
+        // Arrange
+        SecurityContextHolder.clearContext();
+        Auditable auditable = createTestAuditable();
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditSampler).shouldRecord(auditable, ipAddress, true);
+    }
+
+    @Test
+    void audit_WithRecordedChanges_ShouldAttachAndClearThem() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            AuditChanges.record(new UserResponseDto(1L, "Old", "user", "a@b.c", null, null, null),
+                    new UserResponseDto(1L, "New", "user", "a@b.c", null, null, null));
+            return null;
+        });
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditLogWriter).submit(argThat(log -> "{\"fullName\":[\"Old\",\"New\"]}".equals(log.getChanges())));
+        assertNull(AuditChanges.take());
+    }
+
+    @Test
+    void audit_ShouldDropChangesOfUnauditedCalls() throws Throwable {
+        // Arrange
+        Auditable auditable = createTestAuditable();
+        AuditChanges.record(new UserResponseDto(1L, "Old", "user", "a@b.c", null, null, null),
+                new UserResponseDto(1L, "New", "user", "a@b.c", null, null, null));
+
+        // Act
+        auditAspect.audit(joinPoint, auditable);
+
+        // Assert
+        verify(auditLogWriter).submit(argThat(log -> log.getChanges() == null));
+    }
+
     @Test
     void extractEntityId_FromResponseDto_ShouldReturnId() {
         // Test with ArticleResponseDto
@@ -186,6 +321,21 @@ class AuditAspectTest {
         assertEquals(Optional.empty(), result);
     }
 
+    @Test
+    void extractEntityId_FromAuditIdParameter_ShouldUseAnnotatedArgument() throws Exception {
+        // Arrange
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(getClass().getMethod("auditIdMethod", Long.class, Long.class));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{70L, 80L});
+
+        // Act
+        Optional<Long> result = auditAspect.extractEntityId(joinPoint, null, null);
+
+        // Assert
+        assertEquals(Optional.of(80L), result);
+    }
+
     @Test
     void getCurrentUsername_WhenAuthenticated_ShouldReturnUsername() {
         // Arrange
@@ -222,6 +372,10 @@ class AuditAspectTest {
         // Dummy method for annotation testing
     }
 
+    public void auditIdMethod(Long parentId, @AuditId Long id) {
+        // Dummy method for @AuditId lookup
+    }
+
     // Test entity class with @AuditEntity annotation
     @AuditEntity
     private static class TestEntity {
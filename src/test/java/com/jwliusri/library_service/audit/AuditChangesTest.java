@@ -0,0 +1,95 @@
+package com.jwliusri.library_service.audit;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.jwliusri.library_service.article.ArticleResponseDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditChangesTest {
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    @Test
+    void diff_ShouldKeepOnlyChangedFields() {
+        // Arrange
+        ArticleResponseDto before = article("Old title", "Body", false, createdAt);
+        ArticleResponseDto after = article("New title", "Body", true, createdAt.plusHours(1));
+
+        // Act
+        String changes = AuditChanges.diff(before, after);
+
+        // Assert
+        assertEquals("{\"title\":[\"Old title\",\"New title\"],\"public\":[false,true]}", changes);
+    }
+
+    @Test
+    void bulk_ShouldKeepCountAndEveryId() {
+        // Arrange, far past MAX_LENGTH
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("role", "ROLE_EDITOR");
+        values.put("unlocked", null);
+        List<Long> ids = LongStream.rangeClosed(1_000_000, 1_010_000).boxed().toList();
+
+        // Act
+        String changes = AuditChanges.bulk(values, ids);
+
+        // Assert
+        assertTrue(changes.startsWith("{\"role\":\"ROLE_EDITOR\",\"count\":10001,\"ids\":[1000000,1000001,"));
+        assertTrue(changes.endsWith(",1010000]}"));
+    }
+
+    @Test
+    void diff_WithoutChanges_ShouldReturnNull() {
+        assertNull(AuditChanges.diff(article("Title", "Body", true, createdAt), article("Title", "Body", true, createdAt)));
+    }
+
+    @Test
+    void diff_WithLongValues_ShouldTruncateThem() {
+        // Arrange
+        ArticleResponseDto before = article("Title", "a".repeat(1000), true, createdAt);
+        ArticleResponseDto after = article("Title", "b".repeat(1000), true, createdAt);
+
+        // Act
+        String changes = AuditChanges.diff(before, after);
+
+        // Assert
+        assertTrue(changes.contains("\"" + "a".repeat(AuditChanges.MAX_VALUE_LENGTH) + "...\""));
+        assertTrue(changes.length() < 2 * AuditChanges.MAX_VALUE_LENGTH + 50);
+    }
+
+    @Test
+    void diff_WhenTooLarge_ShouldKeepFieldNamesOnly() {
+        // Arrange
+        // Control characters are escaped to six characters each, so two changed fields exceed the limit
+        String escaped = "\u0001".repeat(AuditChanges.MAX_VALUE_LENGTH);
+        ArticleResponseDto before = new ArticleResponseDto(1L, "Title", escaped, 1L, escaped, true, createdAt, createdAt);
+        ArticleResponseDto after = new ArticleResponseDto(1L, "Title", escaped + "x", 1L, escaped + "x", true, createdAt, createdAt);
+
+        // Act
+        String changes = AuditChanges.diff(before, after);
+
+        // Assert
+        assertEquals("{\"fields\":[\"content\",\"authorName\"]}", changes);
+    }
+
+    @Test
+    void take_ShouldReturnRecordedChangesOnce() {
+        // Arrange
+        AuditChanges.record(article("Old", "Body", true, createdAt), article("New", "Body", true, createdAt));
+
+        // Act & Assert
+        assertNotNull(AuditChanges.take());
+        assertNull(AuditChanges.take());
+    }
+
+    private ArticleResponseDto article(String title, String content, boolean isPublic, LocalDateTime updatedAt) {
+        return new ArticleResponseDto(1L, title, content, 1L, "author", isPublic, createdAt, updatedAt);
+    }
+}
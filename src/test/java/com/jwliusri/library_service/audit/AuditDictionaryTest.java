@@ -0,0 +1,135 @@
+package com.jwliusri.library_service.audit;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.jwliusri.library_service.audit.AuditDictionary.Dimension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditDictionaryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AuditDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new AuditDictionary(jdbcTemplate, 3);
+    }
+
+    @Test
+    void encode_ShouldSetIdsAndCacheThem() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("insert into audit_dictionary"), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(7));
+        AuditLog auditLog = AuditLog.builder().action("USER_LOGIN").build();
+
+        // Act
+        dictionary.encode(auditLog);
+        dictionary.encode(AuditLog.builder().action("USER_LOGIN").build());
+
+        // Assert
+        assertEquals(7, auditLog.getActionId());
+        assertNull(auditLog.getUsernameId());
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    void encode_WhenInsertRacesAnotherWriter_ShouldReadCommittedId() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("insert into audit_dictionary"), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("select id from audit_dictionary"), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(9));
+
+        // Act
+        Integer id = dictionary.idOf(Dimension.USER_AGENT, "curl/8.0");
+
+        // Assert
+        assertEquals(9, id);
+    }
+
+    @Test
+    void idOf_ShouldTruncateLongValues() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(List.of(1));
+
+        // Act
+        dictionary.idOf(Dimension.USER_AGENT, "x".repeat(AuditDictionary.MAX_VALUE_LENGTH + 100));
+
+        // Assert
+        verify(jdbcTemplate).queryForList(anyString(), eq(Integer.class),
+                eq((short) 4), eq("x".repeat(AuditDictionary.MAX_VALUE_LENGTH)), eq((short) 4), eq("x".repeat(AuditDictionary.MAX_VALUE_LENGTH)));
+    }
+
+    @Test
+    void findId_WithUnknownValue_ShouldNotCreateEntry() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(List.of());
+
+        // Act
+        Optional<Integer> id = dictionary.findId(Dimension.USERNAME, "nobody");
+
+        // Assert
+        assertTrue(id.isEmpty());
+        verify(jdbcTemplate, never()).queryForList(contains("insert"), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    void decodeAll_ShouldLoadMissingIdsInOneQueryAndShareInstances() {
+        // Arrange
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt("id")).thenReturn(1).thenReturn(2);
+            when(rs.getString("value")).thenReturn(new String("testuser")).thenReturn("USER_LOGIN");
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        List<AuditLog> logs = List.of(
+                AuditLog.builder().usernameId(1).actionId(2).build(),
+                AuditLog.builder().usernameId(1).actionId(2).build());
+
+        // Act
+        dictionary.decodeAll(logs);
+
+        // Assert
+        assertEquals("testuser", logs.get(0).getUsername());
+        assertEquals("USER_LOGIN", logs.get(1).getAction());
+        assertSame(logs.get(0).getUsername(), logs.get(1).getUsername());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    void cache_WhenFull_ShouldStartOver() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(1)).thenReturn(List.of(2)).thenReturn(List.of(3)).thenReturn(List.of(4));
+
+        // Act
+        dictionary.idOf(Dimension.ACTION, "A");
+        dictionary.idOf(Dimension.ACTION, "B");
+        dictionary.idOf(Dimension.ACTION, "C");
+        dictionary.idOf(Dimension.ACTION, "D");
+
+        // Assert
+        assertEquals(1, dictionary.cachedCount());
+    }
+}
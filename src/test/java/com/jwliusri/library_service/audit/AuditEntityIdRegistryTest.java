@@ -0,0 +1,71 @@
+package com.jwliusri.library_service.audit;
+
+import com.jwliusri.library_service.article.ArticleResponseDto;
+import com.jwliusri.library_service.security.auth.ValidateResponseDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEntityIdRegistryTest {
+
+    private final AuditEntityIdRegistry registry = new AuditEntityIdRegistry();
+
+    @Test
+    void init_ShouldResolveResponseDtos() {
+        // Act
+        registry.init();
+
+        // Assert
+        assertEquals(10L, registry.getId(new ArticleResponseDto(10L, null, null, null, null, false, null, null)));
+        assertEquals(40L, registry.getId(new ValidateResponseDto(40L, null)));
+    }
+
+    @Test
+    void getId_WithNonPublicEntity_ShouldUseMethodHandle() {
+        assertEquals(5L, registry.getId(new HiddenEntity(5)));
+        assertTrue(registry.isAuditEntity(new HiddenEntity(5)));
+    }
+
+    @Test
+    void getId_WithPrimitiveId_ShouldBox() {
+        assertEquals(7L, registry.getId(new PrimitiveEntity()));
+    }
+
+    @Test
+    void getId_WithUnannotatedOrNull_ShouldReturnNull() {
+        assertNull(registry.getId("not an entity"));
+        assertNull(registry.getId(null));
+        assertFalse(registry.isAuditEntity("not an entity"));
+        assertFalse(registry.isAuditEntity(null));
+    }
+
+    @Test
+    void getId_WithoutGetter_ShouldFailFast() {
+        // Local so the classpath scan in init() doesn't pick it up
+        @AuditEntity
+        class NoIdEntity {
+        }
+
+        assertThrows(IllegalStateException.class, () -> registry.getId(new NoIdEntity()));
+    }
+
+    @AuditEntity
+    private static class HiddenEntity {
+        private final Integer id;
+
+        HiddenEntity(Integer id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+    }
+
+    @AuditEntity
+    public static class PrimitiveEntity {
+        public long getId() {
+            return 7;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLatencyHistogramsTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void percentiles_ShouldReportPerAction() {
+        // Arrange
+        AuditLatencyHistograms histograms = new AuditLatencyHistograms(60);
+        for (int i = 1; i <= 100; i++) {
+            histograms.record("USER_LOGIN", i * 1000L, NOW);
+        }
+        histograms.record("ARTICLE_CREATE", 5000L, NOW);
+
+        // Act
+        List<AuditPerformanceDto> result = histograms.percentiles(15, NOW);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("ARTICLE_CREATE", result.get(0).getAction());
+        AuditPerformanceDto login = result.get(1);
+        assertEquals(100, login.getCount());
+        assertEquals(50, login.getP50Ms(), 1);
+        assertEquals(95, login.getP95Ms(), 1);
+        assertEquals(99, login.getP99Ms(), 1);
+        assertEquals(100, login.getMaxMs(), 1);
+    }
+
+    @Test
+    void percentiles_ShouldMergeMinutesInsideTheWindow() {
+        // Arrange
+        AuditLatencyHistograms histograms = new AuditLatencyHistograms(60);
+        histograms.record("USER_LOGIN", 1000L, NOW - 10 * MINUTE);
+        histograms.record("USER_LOGIN", 2000L, NOW - 2 * MINUTE);
+        histograms.record("USER_LOGIN", 3000L, NOW);
+
+        // Act
+        List<AuditPerformanceDto> lastFive = histograms.percentiles(5, NOW);
+        List<AuditPerformanceDto> lastFifteen = histograms.percentiles(15, NOW);
+
+        // Assert
+        assertEquals(2, lastFive.get(0).getCount());
+        assertEquals(3, lastFifteen.get(0).getCount());
+    }
+
+    @Test
+    void percentiles_ShouldForgetMinutesOutsideTheRetainedWindow() {
+        // Arrange
+        AuditLatencyHistograms histograms = new AuditLatencyHistograms(5);
+        histograms.record("USER_LOGIN", 1000L, NOW);
+
+        // Act
+        List<AuditPerformanceDto> result = histograms.percentiles(60, NOW + 10 * MINUTE);
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogArchiveTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditDictionary auditDictionary;
+
+    @TempDir
+    private Path dir;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void query_ShouldPageAcrossSegmentsNewestFirst() throws Exception {
+        // Arrange
+        AuditLogArchive archive = open();
+        archive.writeSegment("audit_logs_p20250101-0", logs(0, 10));
+        archive.writeSegment("audit_logs_p20250102-0", logs(10, 10));
+
+        // Act
+        List<AuditLog> first = archive.query(new AuditLogFilterDto(), null, null, 15);
+        AuditLog last = first.get(first.size() - 1);
+        List<AuditLog> second = archive.query(new AuditLogFilterDto(), last.getTimestamp(), last.getId(), 15);
+
+        // Assert
+        assertEquals(15, first.size());
+        assertEquals(19L, first.get(0).getId());
+        assertEquals(5L, last.getId());
+        assertEquals(List.of(4L, 3L, 2L, 1L, 0L), second.stream().map(AuditLog::getId).toList());
+    }
+
+    @Test
+    void open_ShouldLoadExistingSegments() throws Exception {
+        // Arrange
+        open().writeSegment("audit_logs_p20250101-0", logs(0, 3));
+
+        // Act
+        AuditLogArchive reopened = open();
+
+        // Assert
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(3, reopened.query(new AuditLogFilterDto(), null, null, 10).size());
+    }
+
+    private AuditLogArchive open() throws Exception {
+        AuditLogArchive archive = new AuditLogArchive(jdbcTemplate, auditDictionary, dir.toString(), 1000, 100);
+        archive.open();
+        return archive;
+    }
+
+    private List<AuditLog> logs(int from, int count) {
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            logs.add(AuditLog.builder()
+                    .id((long) i)
+                    .action("LOGIN")
+                    .entityType("AUTH")
+                    .username("testuser")
+                    .timestamp(start.plusHours(i * 3L))
+                    .success(true)
+                    .build());
+        }
+        return logs;
+    }
+}
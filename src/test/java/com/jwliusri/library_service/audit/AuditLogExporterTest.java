@@ -0,0 +1,228 @@
+package com.jwliusri.library_service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AuditLogExporterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private AuditDictionary auditDictionary;
+
+    private static final List<String> DICTIONARY = List.of("LOGIN", "LOGOUT", "testuser");
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    private final List<String> executedSql = new ArrayList<>();
+
+    private boolean inConnection;
+
+    private AuditLogExporter exporter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(auditDictionary.findId(any(), anyString())).thenAnswer(invocation -> dictionaryId(invocation.getArgument(1)));
+        when(auditDictionary.decode(any())).thenAnswer(invocation -> {
+            AuditLog auditLog = invocation.getArgument(0);
+            auditLog.setAction(DICTIONARY.get(auditLog.getActionId()));
+            auditLog.setUsername(DICTIONARY.get(auditLog.getUsernameId()));
+            return auditLog;
+        });
+        exporter = new AuditLogExporter(jdbcTemplate, objectMapper, Optional.empty(), auditDictionary);
+        ReflectionTestUtils.setField(exporter, "chunkRows", 2);
+        ReflectionTestUtils.setField(exporter, "fetchSize", 100);
+        ReflectionTestUtils.setField(exporter, "flushRows", 1);
+    }
+
+    @Test
+    void export_Ndjson_ShouldStreamAllChunks() throws Exception {
+        // Arrange
+        stubChunks(List.of(row(3L, "LOGIN"), row(2L, "LOGIN")), List.of(row(1L, "LOGOUT")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exporter.export(new AuditLogFilterDto(), AuditLogExporter.Format.NDJSON, false, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(3L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("LOGOUT", objectMapper.readTree(lines[2]).get("action").asText());
+        assertEquals(2, executedSql.size());
+        assertFalse(executedSql.get(0).contains("(timestamp, id) < (?, ?)"));
+        assertTrue(executedSql.get(1).contains("(timestamp, id) < (?, ?)"));
+        verify(connection, times(2)).setAutoCommit(false);
+        verify(connection, times(2)).commit();
+    }
+
+    @Test
+    void export_ShouldWriteOnlyAfterReleasingConnection() throws Exception {
+        // Arrange
+        stubChunks(List.of(row(3L, "LOGIN"), row(2L, "LOGIN")), List.of(row(1L, "LOGOUT")));
+        List<Boolean> writesInConnection = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                writesInConnection.add(inConnection);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writesInConnection.add(inConnection);
+            }
+        };
+
+        // Act
+        exporter.export(new AuditLogFilterDto(), AuditLogExporter.Format.NDJSON, false, out);
+
+        // Assert
+        assertFalse(writesInConnection.isEmpty());
+        assertFalse(writesInConnection.contains(true));
+    }
+
+    @Test
+    void export_CsvGzip_ShouldWriteHeaderAndEscapedFields() throws Exception {
+        // Arrange
+        AuditLog withComma = row(1L, "LOGIN");
+        withComma.setErrorMessage("bad, \"really\"");
+        stubChunks(List.of(withComma));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exporter.export(new AuditLogFilterDto(), AuditLogExporter.Format.CSV, true, out);
+
+        // Assert
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\n");
+        assertTrue(lines[0].startsWith("id,eventId,timestamp,action"));
+        assertTrue(lines[1].startsWith("1,,2025-05-01T12:00,LOGIN,"));
+        assertTrue(lines[1].endsWith(",true,\"bad, \"\"really\"\"\",,,,,"));
+    }
+
+    @Test
+    void export_WithFilter_ShouldBindParameters() throws Exception {
+        // Arrange
+        stubChunks(List.of());
+        AuditLogFilterDto filter = AuditLogFilterDto.builder().username("testuser").success(false).build();
+
+        // Act
+        exporter.export(filter, AuditLogExporter.Format.NDJSON, false, new ByteArrayOutputStream());
+
+        // Assert
+        assertTrue(executedSql.get(0).contains("where username_id = ? and success = ?"));
+    }
+
+    @Test
+    void export_WithUnknownUsername_ShouldMatchNothing() throws Exception {
+        // Arrange
+        stubChunks(List.of());
+        AuditLogFilterDto filter = AuditLogFilterDto.builder().username("nobody").build();
+
+        // Act
+        exporter.export(filter, AuditLogExporter.Format.NDJSON, false, new ByteArrayOutputStream());
+
+        // Assert
+        assertTrue(executedSql.get(0).contains("where false"));
+    }
+
+    @Test
+    void formatParse_ShouldBeCaseInsensitiveAndRejectUnknown() {
+        assertEquals(AuditLogExporter.Format.CSV, AuditLogExporter.Format.parse("csv"));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> AuditLogExporter.Format.parse("xml"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stubChunks(List<AuditLog>... chunks) throws Exception {
+        int[] call = {0};
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            List<AuditLog> chunk = call[0] < chunks.length ? chunks[call[0]++] : List.of();
+            PreparedStatement statement = mock(PreparedStatement.class);
+            ResultSet rs = resultSet(chunk);
+            doAnswer(prepare -> {
+                executedSql.add(prepare.getArgument(0));
+                return statement;
+            }).when(connection).prepareStatement(anyString());
+            when(statement.executeQuery()).thenReturn(rs);
+            inConnection = true;
+            try {
+                return ((ConnectionCallback<Void>) invocation.getArgument(0)).doInConnection(connection);
+            } finally {
+                inConnection = false;
+            }
+        });
+    }
+
+    private static ResultSet resultSet(List<AuditLog> rows) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        int[] index = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++index[0] < rows.size());
+        when(rs.getLong("id")).thenAnswer(invocation -> rows.get(index[0]).getId());
+        when(rs.getObject("action_id", Integer.class)).thenAnswer(invocation -> DICTIONARY.indexOf(rows.get(index[0]).getAction()));
+        when(rs.getObject("username_id", Integer.class)).thenAnswer(invocation -> DICTIONARY.indexOf(rows.get(index[0]).getUsername()));
+        when(rs.getString("error_message")).thenAnswer(invocation -> rows.get(index[0]).getErrorMessage());
+        when(rs.getBoolean("success")).thenAnswer(invocation -> rows.get(index[0]).isSuccess());
+        when(rs.getTimestamp("timestamp")).thenAnswer(invocation -> Timestamp.valueOf(rows.get(index[0]).getTimestamp()));
+        return rs;
+    }
+
+    private static Optional<Integer> dictionaryId(String value) {
+        int id = DICTIONARY.indexOf(value);
+        return id < 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    private AuditLog row(long id, String action) {
+        return AuditLog.builder()
+                .id(id)
+                .action(action)
+                .username("testuser")
+                .timestamp(now)
+                .success(true)
+                .build();
+    }
+}
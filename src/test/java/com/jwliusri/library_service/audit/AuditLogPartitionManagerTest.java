@@ -0,0 +1,179 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditLogArchive archive;
+
+    private final LocalDate today = LocalDate.of(2025, 5, 20);
+
+    @Test
+    void maintain_Daily_ShouldPrecreateUpcomingPartitions() {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.empty(), "daily", 2, 30);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        verify(jdbcTemplate).execute("create table if not exists audit_logs_p20250520 partition of audit_logs for values from ('2025-05-20') to ('2025-05-21')");
+        verify(jdbcTemplate).execute("create table if not exists audit_logs_p20250521 partition of audit_logs for values from ('2025-05-21') to ('2025-05-22')");
+        verify(jdbcTemplate).execute("create table if not exists audit_logs_p20250522 partition of audit_logs for values from ('2025-05-22') to ('2025-05-23')");
+        verify(jdbcTemplate, times(3)).execute(anyString());
+    }
+
+    @Test
+    void maintain_Monthly_ShouldPrecreateFromStartOfMonth() {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.empty(), "monthly", 1, 365);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        verify(jdbcTemplate).execute("create table if not exists audit_logs_p202505 partition of audit_logs for values from ('2025-05-01') to ('2025-06-01')");
+        verify(jdbcTemplate).execute("create table if not exists audit_logs_p202506 partition of audit_logs for values from ('2025-06-01') to ('2025-07-01')");
+    }
+
+    @Test
+    void maintain_ShouldDetachAndDropOnlyExpiredPartitions() {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.empty(), "daily", 0, 30);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "audit_logs_default", "audit_logs_p20250419", "audit_logs_p20250420", "audit_logs_p202503"));
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        verify(jdbcTemplate).execute("alter table audit_logs detach partition audit_logs_p20250419");
+        verify(jdbcTemplate).execute("drop table audit_logs_p20250419");
+        verify(jdbcTemplate).execute("alter table audit_logs detach partition audit_logs_p202503");
+        verify(jdbcTemplate).execute("drop table audit_logs_p202503");
+        verify(jdbcTemplate, never()).execute("drop table audit_logs_p20250420");
+        verify(jdbcTemplate, never()).execute("drop table audit_logs_default");
+    }
+
+    @Test
+    void maintain_WithArchive_ShouldArchiveBeforeDropping() {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.of(archive), "daily", 0, 30);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_logs_p20250419"));
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        InOrder inOrder = inOrder(archive, jdbcTemplate);
+        inOrder.verify(archive).archivePartition("audit_logs_p20250419");
+        inOrder.verify(jdbcTemplate).execute("alter table audit_logs detach partition audit_logs_p20250419");
+        inOrder.verify(jdbcTemplate).execute("drop table audit_logs_p20250419");
+    }
+
+    @Test
+    void maintainPartitions_WhenArchiveFails_ShouldKeepPartition() {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.of(archive), "daily", 0, 0);
+        String partition = manager.partitionName(LocalDate.now().minusDays(5));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(partition));
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(archive).archivePartition(partition);
+
+        // Act
+        manager.maintainPartitions();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute("drop table " + partition);
+    }
+
+    @Test
+    void maintain_WhenDefaultHoldsRowsOfNewPartition_ShouldMoveThemIntoIt() throws SQLException {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.empty(), "daily", 0, 30);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_logs_default"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(true);
+        Statement statement = mock(Statement.class);
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        InOrder inOrder = inOrder(statement);
+        runConnectionCallback(statement);
+        inOrder.verify(statement).execute("create table audit_logs_p20250520 (like audit_logs including defaults)");
+        inOrder.verify(statement).execute("with moved as (delete from audit_logs_default where timestamp >= '2025-05-20' and timestamp < '2025-05-21' returning *) insert into audit_logs_p20250520 select * from moved");
+        inOrder.verify(statement).execute("alter table audit_logs attach partition audit_logs_p20250520 for values from ('2025-05-20') to ('2025-05-21')");
+        verify(jdbcTemplate, never()).execute(startsWith("create table if not exists audit_logs_p20250520"));
+    }
+
+    @Test
+    void maintain_WhenDefaultHoldsExpiredRows_ShouldMoveThemOutAndDropThem() throws SQLException {
+        // Arrange
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.of(archive), "daily", 0, 30);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_logs_default"));
+        when(jdbcTemplate.queryForList(anyString(), eq(LocalDate.class), eq("day"), eq(LocalDate.of(2025, 4, 20))))
+                .thenReturn(List.of(LocalDate.of(2025, 4, 2)));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any()))
+                .thenAnswer(invocation -> LocalDate.of(2025, 4, 2).equals(invocation.getArgument(2)));
+        Statement statement = mock(Statement.class);
+
+        // Act
+        manager.maintain(today);
+
+        // Assert
+        runConnectionCallback(statement);
+        verify(statement).execute("create table audit_logs_p20250402 (like audit_logs including defaults)");
+        InOrder inOrder = inOrder(archive, jdbcTemplate);
+        inOrder.verify(archive).archivePartition("audit_logs_p20250402");
+        inOrder.verify(jdbcTemplate).execute("alter table audit_logs detach partition audit_logs_p20250402");
+        inOrder.verify(jdbcTemplate).execute("drop table audit_logs_p20250402");
+    }
+
+    @Test
+    void partitionEnd_ShouldIgnoreForeignPartitions() {
+        AuditLogPartitionManager manager = new AuditLogPartitionManager(jdbcTemplate, Optional.empty(), "daily", 0, 30);
+
+        assertEquals(LocalDate.of(2025, 5, 21), manager.partitionEnd("audit_logs_p20250520"));
+        assertEquals(LocalDate.of(2025, 6, 1), manager.partitionEnd("audit_logs_p202505"));
+        assertNull(manager.partitionEnd("audit_logs_default"));
+        assertNull(manager.partitionEnd("audit_logs_pabc"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runConnectionCallback(Statement statement) throws SQLException {
+        ArgumentCaptor<ConnectionCallback<Void>> callback = ArgumentCaptor.forClass(ConnectionCallback.class);
+        verify(jdbcTemplate).execute(callback.capture());
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.createStatement()).thenReturn(statement);
+        callback.getValue().doInConnection(connection);
+        verify(connection).commit();
+    }
+}
@@ -0,0 +1,185 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogServiceTest {
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private FluentQuery.FetchableFluentQuery<AuditLog> fluentQuery;
+
+    @Mock
+    private AuditLogArchive archive;
+
+    @Mock
+    private AuditDictionary auditDictionary;
+
+    private AuditLogService auditLogService;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        auditLogService = new AuditLogService(auditLogRepository, Optional.empty(), auditDictionary);
+        ReflectionTestUtils.setField(auditLogService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(auditLogService, "maxPageSize", 3);
+    }
+
+    @Test
+    void getAuditLogs_WithMoreRows_ShouldReturnPageAndNextCursor() {
+        // Arrange
+        List<AuditLog> rows = logs(3);
+        stubQuery(rows);
+
+        // Act
+        AuditLogPageDto page = auditLogService.getAuditLogs(new AuditLogFilterDto());
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        AuditLogService.Cursor cursor = AuditLogService.decodeCursor(page.getNextCursor());
+        assertEquals(rows.get(1).getTimestamp(), cursor.timestamp());
+        assertEquals(rows.get(1).getId(), cursor.id());
+        verify(fluentQuery).limit(3);
+        verify(fluentQuery).sortBy(AuditLogService.NEWEST_FIRST);
+    }
+
+    @Test
+    void getAuditLogs_OnLastPage_ShouldReturnNullCursor() {
+        // Arrange
+        stubQuery(logs(1));
+
+        // Act
+        AuditLogPageDto page = auditLogService.getAuditLogs(new AuditLogFilterDto());
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAuditLogs_WithOversizedPage_ShouldCapPageSize() {
+        // Arrange
+        stubQuery(logs(4));
+
+        // Act
+        AuditLogPageDto page = auditLogService.getAuditLogs(AuditLogFilterDto.builder().size(1000).build());
+
+        // Assert
+        assertEquals(3, page.getItems().size());
+        verify(fluentQuery).limit(4);
+    }
+
+    @Test
+    void getAuditLogs_WithInvalidCursor_ShouldThrowBadRequest() {
+        // Arrange
+        AuditLogFilterDto filter = AuditLogFilterDto.builder().cursor("not-a-cursor").build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> auditLogService.getAuditLogs(filter));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(auditLogRepository);
+    }
+
+    @Test
+    void getAuditLogs_WhenHotTableRunsOut_ShouldContinueFromArchive() {
+        // Arrange
+        auditLogService = new AuditLogService(auditLogRepository, Optional.of(archive), auditDictionary);
+        ReflectionTestUtils.setField(auditLogService, "defaultPageSize", 3);
+        ReflectionTestUtils.setField(auditLogService, "maxPageSize", 3);
+        List<AuditLog> hot = logs(2);
+        stubQuery(hot);
+        AuditLog archived = AuditLog.builder().id(1L).timestamp(now.minusDays(100)).build();
+        when(archive.query(any(), eq(hot.get(1).getTimestamp()), eq(hot.get(1).getId()), eq(2)))
+                .thenReturn(List.of(archived));
+
+        // Act
+        AuditLogPageDto page = auditLogService.getAuditLogs(new AuditLogFilterDto());
+
+        // Assert
+        assertEquals(List.of(hot.get(0), hot.get(1), archived), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAuditLogs_WithFullHotPage_ShouldNotQueryArchive() {
+        // Arrange
+        auditLogService = new AuditLogService(auditLogRepository, Optional.of(archive), auditDictionary);
+        ReflectionTestUtils.setField(auditLogService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(auditLogService, "maxPageSize", 3);
+        stubQuery(logs(3));
+
+        // Act
+        auditLogService.getAuditLogs(new AuditLogFilterDto());
+
+        // Assert
+        verifyNoInteractions(archive);
+    }
+
+    @Test
+    void cursor_ShouldRoundTrip() {
+        // Act
+        AuditLogService.Cursor cursor = AuditLogService.decodeCursor(AuditLogService.encodeCursor(now, 42L));
+
+        // Assert
+        assertEquals(now, cursor.timestamp());
+        assertEquals(42L, cursor.id());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void getEntityHistory_ShouldFilterByEntityAndPage() {
+        // Arrange
+        when(auditDictionary.findId(AuditDictionary.Dimension.ENTITY_TYPE, "ARTICLE")).thenReturn(Optional.of(3));
+        List<AuditLog> logs = logs(3);
+        stubQuery(logs);
+
+        // Act
+        AuditLogPageDto page = auditLogService.getEntityHistory("ARTICLE", 123L, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        verify(auditDictionary).findId(AuditDictionary.Dimension.ENTITY_TYPE, "ARTICLE");
+    }
+
+    private void stubQuery(List<AuditLog> rows) {
+        when(fluentQuery.sortBy(any())).thenReturn(fluentQuery);
+        when(fluentQuery.limit(anyInt())).thenReturn(fluentQuery);
+        when(fluentQuery.all()).thenReturn(rows);
+        when(auditLogRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenAnswer(invocation -> ((Function<FluentQuery.FetchableFluentQuery<AuditLog>, Object>) invocation.getArgument(1))
+                        .apply(fluentQuery));
+    }
+
+    private List<AuditLog> logs(int count) {
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(AuditLog.builder().id(100L - i).timestamp(now.minusMinutes(i)).action("LOGIN").build());
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,312 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditDictionary auditDictionary;
+
+    @Test
+    void submit_WhenBatchSizeReached_ShouldWriteOneMultiRowInsert() throws Exception {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 64, 3, 60_000, "block");
+        writer.start();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            writer.submit(auditLog(i));
+        }
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000)).update(
+                argThat(sql -> sql.startsWith("insert into audit_logs") && sql.endsWith("on conflict (event_id, timestamp) do nothing") && sql.split("\\(\\?").length == 4),
+                argThat((Object[] args) -> args.length == 45 && Long.valueOf(2).equals(args[32])),
+                any(int[].class));
+        writer.stop();
+    }
+
+    @Test
+    void submit_WhenFlushIntervalPasses_ShouldWritePartialBatch() throws Exception {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 64, 100, 50, "block");
+        writer.start();
+
+        // Act
+        writer.submit(auditLog(1));
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000)).update(anyString(), argThat((Object[] args) -> args.length == 15), any(int[].class));
+        writer.stop();
+    }
+
+    @Test
+    void stop_ShouldFlushPendingLogs() throws Exception {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 64, 100, 60_000, "block");
+        writer.start();
+        writer.submit(auditLog(1));
+        writer.submit(auditLog(2));
+
+        // Act
+        writer.stop();
+
+        // Assert
+        verify(jdbcTemplate).update(anyString(), argThat((Object[] args) -> args.length == 30), any(int[].class));
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    void submit_AfterWriterParksWithPendingLog_ShouldWriteBatchWithoutWaitingForFlush() throws Exception {
+        // Arrange, the writer parks for the flush interval with one log pending
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 64, 3, 60_000, "block");
+        writer.start();
+        writer.submit(auditLog(0));
+        Thread.sleep(100);
+
+        // Act
+        writer.submit(auditLog(1));
+        writer.submit(auditLog(2));
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000)).update(
+                argThat(sql -> sql.startsWith("insert into audit_logs") && sql.split("\\(\\?").length == 4),
+                any(Object[].class), any(int[].class));
+        writer.stop();
+    }
+
+    @Test
+    void submit_WhenFullAndDropPolicy_ShouldCountDropped() {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 2, 100, 60_000, "drop");
+        markRunning(writer);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            writer.submit(auditLog(i));
+        }
+
+        // Assert
+        assertEquals(3, writer.getDroppedCount());
+        assertEquals(2, writer.getPendingCount());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void submit_WhenFullAndSpillPolicy_ShouldInsertOnCallerThread() {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 2, 100, 60_000, "spill");
+        markRunning(writer);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            writer.submit(auditLog(i));
+        }
+
+        // Assert
+        verify(jdbcTemplate).update(anyString(), argThat((Object[] args) -> args.length == 15), any(int[].class));
+        assertEquals(2, writer.getPendingCount());
+    }
+
+    @Test
+    void flushPending_WhenInsertFails_ShouldCountAsDropped() {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 8, 100, 60_000, "block");
+        markRunning(writer);
+        writer.submit(auditLog(1));
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act
+        writer.flushPending();
+
+        // Assert
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    @Test
+    void flushPending_WhenOneRowIsRejected_ShouldDropOnlyThatRow() {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 8, 100, 60_000, "block");
+        markRunning(writer);
+        for (int i = 1; i <= 3; i++) {
+            writer.submit(auditLog(i));
+        }
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArgument(1);
+            for (int i = 2; i < args.length; i += 15) {
+                if (Long.valueOf(2).equals(args[i])) {
+                    throw new DataIntegrityViolationException("bad row");
+                }
+            }
+            return args.length / 15;
+        });
+
+        // Act
+        writer.flushPending();
+
+        // Assert
+        assertEquals(1, writer.getDroppedCount());
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Object[].class), any(int[].class));
+    }
+
+    @Test
+    void flushPending_WithOverlongValues_ShouldCutThemToColumnSize() {
+        // Arrange
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 8, 100, 60_000, "block");
+        markRunning(writer);
+        AuditLog auditLog = auditLog(1);
+        auditLog.setIpAddress("1".repeat(300));
+        auditLog.setErrorMessage("e".repeat(5000));
+        writer.submit(auditLog);
+
+        // Act
+        writer.flushPending();
+
+        // Assert
+        verify(jdbcTemplate).update(anyString(),
+                argThat((Object[] args) -> ((String) args[5]).length() == AuditLog.MAX_IP_ADDRESS_LENGTH
+                        && ((String) args[8]).length() == AuditLog.MAX_ERROR_MESSAGE_LENGTH),
+                any(int[].class));
+    }
+
+    @Test
+    void truncate_ShouldNotSplitSurrogatePair() {
+        assertEquals("ab", AuditLogWriter.truncate("ab\uD83D\uDE00", 3));
+        assertEquals("abc", AuditLogWriter.truncate("abc", 3));
+        assertNull(AuditLogWriter.truncate(null, 3));
+    }
+
+    @Test
+    void submit_WithSpool_ShouldRetryReplayUntilInsertSucceeds(@TempDir Path dir) throws Exception {
+        // Arrange
+        AuditSpool spool = new AuditSpool(dir.toString(), 64 * 1024, 10);
+        spool.open();
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.of(spool), 64, 100, 10, "block");
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(1);
+        writer.start();
+
+        // Act
+        writer.submit(auditLog(1));
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000).times(2)).update(anyString(), argThat((Object[] args) -> args.length == 15), any(int[].class));
+        writer.stop();
+        assertTrue(spool.poll(10).isEmpty());
+        assertEquals(0, writer.getDroppedCount());
+        spool.close();
+    }
+
+    @Test
+    void submit_WithSpoolAndRejectedRow_ShouldDeadLetterItAndMoveOn(@TempDir Path dir) throws Exception {
+        // Arrange
+        AuditSpool spool = new AuditSpool(dir.toString(), 64 * 1024, 10);
+        spool.open();
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.of(spool), 64, 3, 60_000, "block");
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArgument(1);
+            for (int i = 2; i < args.length; i += 15) {
+                if (Long.valueOf(2).equals(args[i])) {
+                    throw new DataIntegrityViolationException("bad row");
+                }
+            }
+            return args.length / 15;
+        });
+        for (int i = 1; i <= 3; i++) {
+            writer.submit(auditLog(i));
+        }
+
+        // Act
+        writer.start();
+
+        // Assert, the batch and then each of its rows
+        verify(jdbcTemplate, timeout(5000).times(4)).update(anyString(), any(Object[].class), any(int[].class));
+        writer.stop();
+        assertEquals(1, writer.getDeadLetteredCount());
+        assertEquals(1, Files.readAllLines(dir.resolve("dead-letter.ndjson")).size());
+        assertTrue(spool.poll(10).isEmpty());
+        spool.close();
+    }
+
+    @Test
+    void submit_WithSpoolAndTransientErrorAfterRejectedRow_ShouldDeadLetterItOnce(@TempDir Path dir) throws Exception {
+        // Arrange
+        AuditSpool spool = new AuditSpool(dir.toString(), 64 * 1024, 10);
+        spool.open();
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.of(spool), 64, 3, 10, "block");
+        AtomicBoolean outage = new AtomicBoolean(true);
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArgument(1);
+            for (int i = 2; i < args.length; i += 15) {
+                if (Long.valueOf(1).equals(args[i])) {
+                    throw new DataIntegrityViolationException("bad row");
+                }
+            }
+            if (args.length == 15 && Long.valueOf(2).equals(args[2]) && outage.getAndSet(false)) {
+                throw new DataAccessResourceFailureException("down");
+            }
+            return args.length / 15;
+        });
+        for (int i = 1; i <= 3; i++) {
+            writer.submit(auditLog(i));
+        }
+
+        // Act
+        writer.start();
+
+        // Assert, the batch, rows 1 and 2, then rows 2 and 3 on the retry
+        verify(jdbcTemplate, timeout(5000).times(5)).update(anyString(), any(Object[].class), any(int[].class));
+        writer.stop();
+        assertEquals(1, writer.getDeadLetteredCount());
+        assertEquals(1, Files.readAllLines(dir.resolve("dead-letter.ndjson")).size());
+        assertTrue(spool.poll(10).isEmpty());
+        spool.close();
+    }
+
+    @Test
+    void constructor_WithTooLargeBatch_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new AuditLogWriter(jdbcTemplate, auditDictionary, Optional.empty(), 64, 10_000, 200, "block"));
+    }
+
+    private static void markRunning(AuditLogWriter writer) {
+        // Queue without a writer thread so the ring can be filled deterministically
+        ReflectionTestUtils.setField(writer, "running", true);
+    }
+
+    private static AuditLog auditLog(long entityId) {
+        return AuditLog.builder()
+                .eventId(UUID.randomUUID())
+                .action("TEST_ACTION")
+                .entityType("TEST_ENTITY")
+                .entityId(entityId)
+                .username("testuser")
+                .timestamp(LocalDateTime.now())
+                .success(true)
+                .build();
+    }
+}
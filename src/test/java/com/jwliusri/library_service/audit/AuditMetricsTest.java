@@ -0,0 +1,89 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditMetricsTest {
+
+    private static final long NOW = 1_750_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AuditMetrics metrics = new AuditMetrics(meterRegistry, 600, 10, 300);
+
+    @Test
+    void count_ShouldSplitSuccessAndFailureWithinWindow() {
+        // Arrange
+        metrics.record("USER_LOGIN", false, null, "10.0.0.1", NOW - 400_000);
+        metrics.record("USER_LOGIN", false, null, "10.0.0.1", NOW - 100_000);
+        metrics.record("USER_LOGIN", false, null, "10.0.0.2", NOW);
+        metrics.record("USER_LOGIN", true, "alice", "10.0.0.1", NOW);
+
+        // Act
+        AuditMetrics.Counts counts = metrics.count("USER_LOGIN", 300, NOW);
+
+        // Assert
+        assertEquals(new AuditMetrics.Counts(1, 2), counts);
+        assertEquals(new AuditMetrics.Counts(0, 0), metrics.count("UNKNOWN", 300, NOW));
+    }
+
+    @Test
+    void snapshot_ShouldReportActionsAndTopCallers() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            metrics.record("CREATE_ARTICLE", true, "alice", "10.0.0.1", NOW);
+        }
+        metrics.record("DELETE_ARTICLE", true, "bob", "10.0.0.2", NOW);
+
+        // Act
+        AuditMetrics.Snapshot snapshot = metrics.snapshot(60, 1, NOW);
+
+        // Assert
+        assertEquals(new AuditMetrics.Counts(3, 0), snapshot.actions().get("CREATE_ARTICLE"));
+        assertEquals(1, snapshot.topUsers().size());
+        assertEquals("alice", snapshot.topUsers().get(0).key());
+        assertEquals("10.0.0.1", snapshot.topIpAddresses().get(0).key());
+        JsonNode json = new ObjectMapper().valueToTree(snapshot);
+        assertEquals(3, json.get("topUsers").get(0).get("count").asLong());
+    }
+
+    @Test
+    void snapshot_ShouldMergePreviousTopWindowAndDropOlderOnes() {
+        // Arrange
+        metrics.record("USER_LOGIN", true, "alice", null, NOW);
+        metrics.record("USER_LOGIN", true, "bob", null, NOW + 300_000);
+        metrics.record("USER_LOGIN", true, "bob", null, NOW + 301_000);
+
+        // Act & Assert
+        assertEquals(2, metrics.snapshot(60, 10, NOW + 301_000).topUsers().size());
+        assertTrue(metrics.snapshot(60, 10, NOW + 1_000_000).topUsers().isEmpty());
+    }
+
+    @Test
+    void record_ShouldRegisterGaugesPerActionAndOutcome() {
+        // Act
+        metrics.record("USER_LOGIN", false, null, "10.0.0.1");
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("audit.events.recent")
+                .tag("action", "USER_LOGIN").tag("outcome", "failure").tag("window", "60s").gauge().value());
+        assertNotNull(meterRegistry.get("audit.events.recent").tag("window", "600s").gauge());
+    }
+
+    @Test
+    void endpoint_ShouldClampWindowToConfiguredRange() {
+        // Arrange
+        AuditMetricsEndpoint endpoint = new AuditMetricsEndpoint(metrics);
+        metrics.record("USER_LOGIN", false, null, "10.0.0.1");
+
+        // Act & Assert
+        assertEquals(1, endpoint.action("USER_LOGIN", 100_000).failure());
+        assertEquals(600, endpoint.snapshot(100_000, null).windowSeconds());
+    }
+}
@@ -0,0 +1,89 @@
+package com.jwliusri.library_service.audit;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditPayloadFilterTest {
+
+    @Mock
+    private AuditLogWriter auditLogWriter;
+
+    private AuditPayloadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AuditPayloadFilter(auditLogWriter);
+    }
+
+    @Test
+    void doFilter_ShouldCountBodiesAndSubmitDeferredLogs() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/articles");
+        request.setContent("{\"title\":\"t\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AuditLog auditLog = AuditLog.builder().action("ARTICLE_CREATE").build();
+        FilterChain chain = (req, res) -> {
+            req.getInputStream().readAllBytes();
+            assertTrue(AuditPayloadFilter.defer((HttpServletRequest) req, auditLog));
+            res.getWriter().write("{\"id\":1}");
+        };
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertEquals(13L, auditLog.getRequestBytes());
+        assertEquals(8L, auditLog.getResponseBytes());
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        verify(auditLogWriter).submit(auditLog);
+    }
+
+    @Test
+    void doFilter_WhenChainThrows_ShouldStillSubmitDeferredLogs() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AuditLog auditLog = AuditLog.builder().action("USER_READ").build();
+        FilterChain chain = (req, res) -> {
+            AuditPayloadFilter.defer((HttpServletRequest) req, auditLog);
+            throw new IllegalStateException("boom");
+        };
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain));
+
+        // Assert
+        assertEquals(0L, auditLog.getResponseBytes());
+        verify(auditLogWriter).submit(auditLog);
+    }
+
+    @Test
+    void doFilter_OutsideApi_ShouldNotWrap() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/swagger-ui/index.html");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        verify(chain).doFilter(same(request), same(response));
+        assertFalse(AuditPayloadFilter.defer(request, new AuditLog()));
+    }
+}
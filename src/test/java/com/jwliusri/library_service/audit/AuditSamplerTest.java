@@ -0,0 +1,96 @@
+package com.jwliusri.library_service.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSamplerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AuditSampler sampler = new AuditSampler(meterRegistry, true, 100);
+
+    @Test
+    void shouldRecord_WithDefaults_ShouldRecordEverything() throws Exception {
+        Auditable auditable = auditable("unsampled");
+
+        assertTrue(sampler.shouldRecord(auditable, "testuser", true));
+        assertTrue(sampler.shouldRecord(auditable, "testuser", false));
+    }
+
+    @Test
+    void shouldRecord_WithZeroSampleRate_ShouldSuppressSuccessesButKeepFailures() throws Exception {
+        // Arrange
+        Auditable auditable = auditable("neverSampled");
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertFalse(sampler.shouldRecord(auditable, "testuser", true));
+        }
+        assertTrue(sampler.shouldRecord(auditable, "testuser", false));
+        assertEquals(10, sampler.getSuppressedCount("NEVER"));
+        assertEquals(10.0, meterRegistry.get("audit.events.suppressed")
+                .tag("action", "NEVER").tag("reason", AuditSampler.REASON_SAMPLED).counter().count());
+    }
+
+    @Test
+    void shouldRecord_WithUserCap_ShouldLimitPerUser() throws Exception {
+        // Arrange
+        Auditable auditable = auditable("capped");
+
+        // Act & Assert
+        assertTrue(sampler.shouldRecord(auditable, "alice", true));
+        assertTrue(sampler.shouldRecord(auditable, "alice", true));
+        assertFalse(sampler.shouldRecord(auditable, "alice", true));
+        assertTrue(sampler.shouldRecord(auditable, "bob", true));
+        assertTrue(sampler.shouldRecord(auditable, "alice", false));
+        assertEquals(1, sampler.getSuppressedCount("CAPPED"));
+    }
+
+    @Test
+    void withinUserRate_WithManyCallers_ShouldStayBounded() {
+        long minute = 60_000L * 1000;
+
+        for (int i = 0; i < 10_000; i++) {
+            sampler.withinUserRate("key" + i, 1, minute);
+        }
+
+        assertTrue(sampler.getTrackedUsers() <= 100);
+    }
+
+    @Test
+    void withinUserRate_ShouldResetEveryMinute() {
+        long minute = 60_000L * 1000;
+
+        assertTrue(sampler.withinUserRate("key", 1, minute));
+        assertFalse(sampler.withinUserRate("key", 1, minute + 59_999));
+        assertTrue(sampler.withinUserRate("key", 1, minute + 60_000));
+    }
+
+    @Test
+    void shouldRecord_WhenDisabled_ShouldRecordEverything() throws Exception {
+        AuditSampler disabled = new AuditSampler(meterRegistry, false, 100);
+
+        assertTrue(disabled.shouldRecord(auditable("neverSampled"), "testuser", true));
+    }
+
+    private Auditable auditable(String method) throws Exception {
+        Method m = getClass().getDeclaredMethod(method);
+        return m.getAnnotation(Auditable.class);
+    }
+
+    @Auditable(action = "UNSAMPLED", entityType = "TEST")
+    void unsampled() {
+    }
+
+    @Auditable(action = "NEVER", entityType = "TEST", successSampleRate = 0)
+    void neverSampled() {
+    }
+
+    @Auditable(action = "CAPPED", entityType = "TEST", perUserPerMinute = 2)
+    void capped() {
+    }
+}
@@ -0,0 +1,134 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentTest {
+
+    @TempDir
+    private Path dir;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void write_ThenScan_ShouldRoundTripRowsNewestFirst() throws Exception {
+        // Arrange
+        List<AuditLog> logs = logs(100);
+
+        // Act
+        AuditSegment segment = AuditSegment.write(dir.resolve("a.seg"), logs);
+        List<AuditLog> rows = new ArrayList<>();
+        segment.scan(new AuditLogFilterDto(), null, null, 1000, rows);
+
+        // Assert
+        assertEquals(100, segment.getRowCount());
+        assertEquals(start, segment.getMinTimestamp());
+        assertEquals(logs.get(99).getTimestamp(), segment.getMaxTimestamp());
+        assertEquals(logs.reversed(), rows);
+    }
+
+    @Test
+    void write_ShouldCompressRepetitiveColumns() throws Exception {
+        // Act
+        AuditSegment.write(dir.resolve("a.seg"), logs(10_000));
+
+        // Assert
+        assertTrue(Files.size(dir.resolve("a.seg")) < 10_000 * 30);
+    }
+
+    @Test
+    void scan_ShouldApplyFiltersAndCursor() throws Exception {
+        // Arrange
+        List<AuditLog> logs = logs(100);
+        AuditSegment segment = AuditSegment.write(dir.resolve("a.seg"), logs);
+        AuditLogFilterDto filter = AuditLogFilterDto.builder().username("user1").success(false).build();
+        AuditLog cursor = logs.get(50);
+
+        // Act
+        List<AuditLog> rows = new ArrayList<>();
+        segment.scan(filter, cursor.getTimestamp(), cursor.getId(), 3, rows);
+
+        // Assert
+        assertEquals(3, rows.size());
+        for (AuditLog row : rows) {
+            assertEquals("user1", row.getUsername());
+            assertFalse(row.isSuccess());
+            assertTrue(row.getTimestamp().isBefore(cursor.getTimestamp()));
+        }
+        assertTrue(rows.get(0).getTimestamp().isAfter(rows.get(1).getTimestamp()));
+    }
+
+    @Test
+    void scan_WithValueMissingFromDictionary_ShouldReturnNothing() throws Exception {
+        // Arrange
+        AuditSegment segment = AuditSegment.write(dir.resolve("a.seg"), logs(10));
+
+        // Act
+        List<AuditLog> rows = new ArrayList<>();
+        segment.scan(AuditLogFilterDto.builder().action("UNKNOWN").build(), null, null, 10, rows);
+
+        // Assert
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    void mayContain_ShouldUseTimestampStats() throws Exception {
+        // Arrange
+        AuditSegment segment = AuditSegment.write(dir.resolve("a.seg"), logs(10));
+
+        // Assert
+        assertFalse(segment.mayContain(AuditLogFilterDto.builder().from(start.plusDays(1)).build(), null));
+        assertFalse(segment.mayContain(AuditLogFilterDto.builder().to(start).build(), null));
+        assertFalse(segment.mayContain(new AuditLogFilterDto(), start.minusSeconds(1)));
+        assertTrue(segment.mayContain(AuditLogFilterDto.builder().from(start).to(start.plusSeconds(1)).build(), null));
+    }
+
+    @Test
+    void open_ShouldReadExistingSegment() throws Exception {
+        // Arrange
+        List<AuditLog> logs = logs(5);
+        AuditSegment.write(dir.resolve("a.seg"), logs);
+
+        // Act
+        AuditSegment segment = AuditSegment.open(dir.resolve("a.seg"));
+        List<AuditLog> rows = new ArrayList<>();
+        segment.scan(new AuditLogFilterDto(), null, null, 10, rows);
+
+        // Assert
+        assertEquals(logs.reversed(), rows);
+    }
+
+    private List<AuditLog> logs(int count) {
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(AuditLog.builder()
+                    .id(1000L + i)
+                    .eventId(i % 7 == 0 ? null : UUID.randomUUID())
+                    .action(i % 3 == 0 ? "LOGIN" : "UPDATE_ARTICLE")
+                    .entityType(i % 3 == 0 ? "AUTH" : "ARTICLE")
+                    .entityId(i % 5 == 0 ? null : (long) (i % 11))
+                    .username("user" + (i % 4))
+                    .userAgent("Mozilla/5.0")
+                    .ipAddress(i % 2 == 0 ? "127.0.0.1" : null)
+                    .timestamp(start.plusSeconds(i).plusNanos(i * 1_000L))
+                    .success(i % 2 == 0)
+                    .errorMessage(i % 2 == 0 ? null : "error " + i)
+                    .changes(i % 3 == 0 ? null : "{\"title\":[\"a\",\"b" + i + "\"]}")
+                    .durationMicros(i % 4 == 0 ? null : 800L + i * 37L)
+                    .statementCount(i % 4 == 0 ? null : i % 6)
+                    .requestBytes(i % 2 == 0 ? 0L : 150L + i)
+                    .responseBytes(i % 4 == 0 ? null : 2048L - i)
+                    .build());
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,212 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSpoolTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void encodeDecode_ShouldRoundTripAllFields() {
+        // Arrange
+        AuditLog log = auditLog(7L);
+        log.setErrorMessage("boom");
+        log.setUserAgent(null);
+        log.setChanges("{\"title\":[\"old\",\"new\"]}");
+        log.setDurationMicros(1500L);
+        log.setStatementCount(3);
+        log.setRequestBytes(120L);
+
+        // Act
+        AuditLog decoded = AuditSpool.decode(AuditSpool.encode(log));
+
+        // Assert
+        assertEquals(log, decoded);
+    }
+
+    @Test
+    void encodeDecode_WithStringOverUtfLimit_ShouldRoundTrip() {
+        // Arrange, past the 65535 bytes writeUTF takes
+        AuditLog log = auditLog(7L);
+        log.setErrorMessage("\u00e9".repeat(40_000));
+        log.setChanges("{\"content\":[\"" + "x".repeat(70_000) + "\",null]}");
+
+        // Act
+        AuditLog decoded = AuditSpool.decode(AuditSpool.encode(log));
+
+        // Assert
+        assertEquals(log, decoded);
+    }
+
+    @Test
+    void deadLetter_ShouldAppendOneJsonLinePerLog() throws Exception {
+        // Arrange
+        AuditSpool spool = new AuditSpool(dir.toString(), 64 * 1024, 10);
+        spool.open();
+
+        // Act
+        spool.deadLetter(auditLog(1L), "value too long");
+        spool.deadLetter(auditLog(2L), "value too long");
+        spool.close();
+
+        // Assert
+        List<String> lines = Files.readAllLines(dir.resolve("dead-letter.ndjson"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"entityId\":2"));
+        assertTrue(lines.get(1).contains("\"reason\":\"value too long\""));
+    }
+
+    @Test
+    void decode_RecordWithoutChanges_ShouldStillDecode() {
+        // Arrange
+        AuditLog log = auditLog(7L);
+        byte[] payload = AuditSpool.encode(log);
+
+        // Act
+        // Records spooled before changes were added lack the trailing null markers
+        AuditLog decoded = AuditSpool.decode(Arrays.copyOf(payload, payload.length - 5));
+
+        // Assert
+        assertEquals(log, decoded);
+    }
+
+    @Test
+    void decode_RecordWithoutPerformanceFields_ShouldStillDecode() {
+        // Arrange
+        AuditLog log = auditLog(7L);
+        log.setChanges("{\"title\":[\"old\",\"new\"]}");
+        byte[] payload = AuditSpool.encode(log);
+
+        // Act
+        AuditLog decoded = AuditSpool.decode(Arrays.copyOf(payload, payload.length - 4));
+
+        // Assert
+        assertEquals(log, decoded);
+    }
+
+    @Test
+    void poll_WithoutAcknowledge_ShouldReturnSameLogsAgain() throws Exception {
+        // Arrange
+        AuditSpool spool = open(64 * 1024);
+        spool.append(auditLog(1L));
+        spool.append(auditLog(2L));
+
+        // Act
+        List<AuditLog> first = spool.poll(10);
+        List<AuditLog> second = spool.poll(10);
+        spool.acknowledge();
+
+        // Assert
+        assertEquals(2, first.size());
+        assertEquals(first, second);
+        assertTrue(spool.poll(10).isEmpty());
+        spool.close();
+    }
+
+    @Test
+    void append_WhenSegmentFull_ShouldRotateAndDeleteAcknowledgedSegments() throws Exception {
+        // Arrange
+        AuditSpool spool = open(1024);
+
+        // Act
+        for (long i = 0; i < 50; i++) {
+            spool.append(auditLog(i));
+        }
+        int segmentsBefore = spool.segmentCount();
+        List<AuditLog> logs = spool.poll(100);
+        spool.acknowledge();
+
+        // Assert
+        assertTrue(segmentsBefore > 1);
+        assertEquals(50, logs.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, logs.get(i).getEntityId());
+        }
+        assertEquals(1, spool.segmentCount());
+        spool.close();
+    }
+
+    @Test
+    void open_AfterRestart_ShouldReplayOnlyUnacknowledgedLogs() throws Exception {
+        // Arrange
+        AuditSpool spool = open(64 * 1024);
+        spool.append(auditLog(1L));
+        spool.poll(10);
+        spool.acknowledge();
+        spool.append(auditLog(2L));
+        spool.append(auditLog(3L));
+        spool.close();
+
+        // Act
+        AuditSpool reopened = open(64 * 1024);
+        List<AuditLog> logs = reopened.poll(10);
+
+        // Assert
+        assertEquals(List.of(2L, 3L), logs.stream().map(AuditLog::getEntityId).toList());
+        reopened.close();
+    }
+
+    @Test
+    void open_WithCorruptRecord_ShouldStopSegmentAtIt() throws Exception {
+        // Arrange
+        AuditSpool spool = open(64 * 1024);
+        spool.append(auditLog(1L));
+        spool.append(auditLog(2L));
+        spool.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".spool")).sorted().findFirst().orElseThrow();
+        }
+        int firstLength;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            firstLength = file.readInt();
+            // Flip a payload byte of the second record
+            file.seek(8 + firstLength + 8 + 20);
+            int b = file.read();
+            file.seek(8 + firstLength + 8 + 20);
+            file.write(b ^ 0xff);
+        }
+
+        // Act
+        AuditSpool reopened = open(64 * 1024);
+        List<AuditLog> logs = reopened.poll(10);
+
+        // Assert
+        assertEquals(1, logs.size());
+        assertEquals(1L, logs.get(0).getEntityId());
+        reopened.close();
+    }
+
+    private AuditSpool open(int segmentBytes) throws Exception {
+        AuditSpool spool = new AuditSpool(dir.toString(), segmentBytes, 10);
+        spool.open();
+        return spool;
+    }
+
+    private static AuditLog auditLog(long entityId) {
+        return AuditLog.builder()
+                .eventId(UUID.randomUUID())
+                .action("TEST_ACTION")
+                .entityType("TEST_ENTITY")
+                .entityId(entityId)
+                .username("testuser")
+                .userAgent("Test User Agent")
+                .ipAddress("127.0.0.1")
+                .timestamp(LocalDateTime.now())
+                .success(true)
+                .build();
+    }
+}
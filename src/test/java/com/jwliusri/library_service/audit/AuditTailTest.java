@@ -0,0 +1,196 @@
+package com.jwliusri.library_service.audit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditTailTest {
+
+    private AuditTail tail;
+
+    @BeforeEach
+    void setUp() {
+        tail = new AuditTail(16, 2, 15, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tail.stop();
+    }
+
+    @Test
+    void subscribe_ShouldReceiveMatchingEventsOnly() throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter(2);
+        tail.subscribe(emitter, new AuditTail.Filter("USER_LOGIN", null, false), null);
+
+        // Act
+        tail.publish(log("USER_LOGIN", "alice", false));
+        tail.publish(log("USER_LOGIN", "bob", true));
+        tail.publish(log("ARTICLE_CREATE", "alice", false));
+        tail.publish(log("USER_LOGIN", "carol", false));
+
+        // Assert
+        assertTrue(emitter.await());
+        assertEquals(List.of("alice", "carol"), emitter.usernames());
+        assertTrue(emitter.events.get(1).startsWith("id:3\nevent:audit\n"));
+    }
+
+    @Test
+    void publish_WithBlockedSubscriber_ShouldNotWaitAndReportLag() throws Exception {
+        // Arrange
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(2) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        tail.subscribe(emitter, new AuditTail.Filter(null, null, null), null);
+        tail.publish(log("USER_LOGIN", "first", true));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            tail.publish(log("USER_LOGIN", "user" + i, true));
+        }
+        long elapsed = System.nanoTime() - start;
+        release.countDown();
+
+        // Assert
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(emitter.await());
+        assertTrue(emitter.events.get(1).startsWith("event:lagged\n"));
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldResumeFromBuffer() throws Exception {
+        // Arrange
+        tail.publish(log("USER_LOGIN", "alice", true));
+        tail.publish(log("USER_LOGIN", "bob", true));
+        tail.publish(log("USER_LOGIN", "carol", true));
+        RecordingEmitter emitter = new RecordingEmitter(2);
+
+        // Act
+        tail.subscribe(emitter, new AuditTail.Filter(null, null, null), 0L);
+
+        // Assert
+        assertTrue(emitter.await());
+        assertEquals(List.of("bob", "carol"), emitter.usernames());
+    }
+
+    @Test
+    void subscribe_WithNegativeLastEventId_ShouldResumeFromOldestBuffered() throws Exception {
+        // Arrange
+        tail.publish(log("USER_LOGIN", "alice", true));
+        RecordingEmitter emitter = new RecordingEmitter(2);
+
+        // Act
+        tail.subscribe(emitter, new AuditTail.Filter(null, null, null), -5L);
+        tail.publish(log("USER_LOGIN", "bob", true));
+
+        // Assert
+        assertTrue(emitter.await());
+        assertEquals(List.of("alice", "bob"), emitter.usernames());
+    }
+
+    @Test
+    void subscribe_WhenSendFailsUnexpectedly_ShouldEndStream() throws Exception {
+        // Arrange
+        CountDownLatch failed = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(0) {
+            @Override
+            public void send(SseEventBuilder builder) {
+                throw new UnsupportedOperationException("not serializable");
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                failed.countDown();
+            }
+        };
+        tail.subscribe(emitter, new AuditTail.Filter(null, null, null), null);
+
+        // Act
+        tail.publish(log("USER_LOGIN", "alice", true));
+
+        // Assert
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        // The subscriber unregisters right after completing the emitter
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tail.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, tail.getSubscriberCount());
+    }
+
+    @Test
+    void subscribe_WhenFull_ShouldRejectSubscriber() {
+        // Arrange
+        tail.subscribe(new RecordingEmitter(0), new AuditTail.Filter(null, null, null), null);
+        tail.subscribe(new RecordingEmitter(0), new AuditTail.Filter(null, null, null), null);
+
+        // Act
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> tail.subscribe(new RecordingEmitter(0), new AuditTail.Filter(null, null, null), null));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+        assertEquals(2, tail.getSubscriberCount());
+    }
+
+    private static AuditLog log(String action, String username, boolean success) {
+        return AuditLog.builder().action(action).username(username).success(success).build();
+    }
+
+    // Records the text of each sent event, with the audit log rendered as its username
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+        private final CountDownLatch received;
+
+        RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String event = builder.build().stream()
+                    .map(part -> part.getData() instanceof AuditLog log ? log.getUsername() : String.valueOf(part.getData()))
+                    .collect(Collectors.joining());
+            synchronized (events) {
+                events.add(event);
+            }
+            received.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return received.await(5, TimeUnit.SECONDS);
+        }
+
+        List<String> usernames() {
+            synchronized (events) {
+                return events.stream().map(event -> event.substring(event.lastIndexOf(':') + 1).trim()).toList();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.jwliusri.library_service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpmcRingBufferTest {
+
+    @Test
+    void offer_WhenFull_ShouldReturnFalse() {
+        // Arrange
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+
+        // Act & Assert
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+    }
+
+    @Test
+    void poll_ShouldReturnElementsInFifoOrderAcrossWrapAround() {
+        // Arrange
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ring.offer(i));
+            assertTrue(ring.offer(i + 100));
+            assertEquals(i, ring.poll());
+            assertEquals(i + 100, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+        assertEquals(8, new MpmcRingBuffer<>(5).capacity());
+        assertEquals(8, new MpmcRingBuffer<>(8).capacity());
+    }
+
+    @Test
+    void drainTo_ShouldRespectMax() {
+        // Arrange
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            ring.offer(i);
+        }
+        List<Integer> sink = new ArrayList<>();
+
+        // Act
+        int drained = ring.drainTo(sink, 3);
+
+        // Assert
+        assertEquals(3, drained);
+        assertEquals(List.of(0, 1, 2), sink);
+        assertEquals(2, ring.size());
+    }
+
+    @Test
+    void concurrentProducersAndConsumers_ShouldDeliverEveryElementOnce() throws Exception {
+        // Arrange
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        Set<Integer> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+
+        // Act
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < 2; c++) {
+            executor.submit(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    Integer value = ring.poll();
+                    if (value == null) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    received.add(value);
+                    if (consumed.incrementAndGet() == producers * perProducer) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        // Assert
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdownNow();
+        assertEquals(producers * perProducer, received.size());
+        assertEquals(0, ring.size());
+    }
+}
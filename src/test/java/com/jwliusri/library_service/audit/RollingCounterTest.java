@@ -0,0 +1,65 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingCounterTest {
+
+    private static final long NOW = 1_750_000_000_000L;
+
+    @Test
+    void sum_ShouldOnlyCountSecondsInsideTheWindow() {
+        // Arrange
+        RollingCounter counter = new RollingCounter(60);
+        counter.increment(NOW - 30_000);
+        counter.increment(NOW - 5_000);
+        counter.increment(NOW);
+        counter.increment(NOW);
+
+        // Act & Assert
+        assertEquals(2, counter.sum(1, NOW));
+        assertEquals(3, counter.sum(10, NOW));
+        assertEquals(4, counter.sum(60, NOW));
+        assertEquals(0, counter.sum(60, NOW + 60_000));
+    }
+
+    @Test
+    void increment_AfterRingWraps_ShouldResetStaleBucket() {
+        // Arrange
+        RollingCounter counter = new RollingCounter(10);
+        counter.increment(NOW);
+        counter.increment(NOW);
+
+        // Act
+        counter.increment(NOW + 10_000);
+
+        // Assert
+        assertEquals(1, counter.sum(10, NOW + 10_000));
+    }
+
+    @Test
+    void increment_FromManyThreads_ShouldNotLoseCountsWithinASecond() throws Exception {
+        // Arrange
+        RollingCounter counter = new RollingCounter(60);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment(NOW);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(80_000, counter.sum(60, NOW));
+    }
+}
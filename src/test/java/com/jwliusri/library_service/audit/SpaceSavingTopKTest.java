@@ -0,0 +1,106 @@
+package com.jwliusri.library_service.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTopKTest {
+
+    @Test
+    void top_ShouldReturnHeavyHittersInOrder() {
+        // Arrange
+        SpaceSavingTopK topK = new SpaceSavingTopK(10);
+        add(topK, "alice", 50);
+        add(topK, "bob", 20);
+        add(topK, "carol", 5);
+
+        // Act
+        List<SpaceSavingTopK.Entry> top = topK.top(2);
+
+        // Assert
+        assertEquals(List.of(new SpaceSavingTopK.Entry("alice", 50, 0), new SpaceSavingTopK.Entry("bob", 20, 0)), top);
+    }
+
+    @Test
+    void add_WhenFull_ShouldKeepFrequentKeysAndBoundTheError() {
+        // Arrange
+        SpaceSavingTopK topK = new SpaceSavingTopK(3);
+        add(topK, "alice", 100);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            topK.add("user" + i);
+        }
+
+        // Assert
+        List<SpaceSavingTopK.Entry> top = topK.top(3);
+        assertEquals("alice", top.get(0).key());
+        assertEquals(100, top.get(0).count());
+        assertEquals(3, top.size());
+        SpaceSavingTopK.Entry last = top.get(2);
+        assertTrue(last.count() - last.error() <= 1);
+    }
+
+    @Test
+    void add_WhenFull_ShouldTakeOverTheSmallestCounter() {
+        // Arrange
+        SpaceSavingTopK topK = new SpaceSavingTopK(3);
+        add(topK, "alice", 5);
+        add(topK, "bob", 2);
+        add(topK, "carol", 3);
+
+        // Act
+        topK.add("dave");
+
+        // Assert, carol and dave tie on count
+        assertEquals(Set.of(
+                new SpaceSavingTopK.Entry("alice", 5, 0),
+                new SpaceSavingTopK.Entry("carol", 3, 0),
+                new SpaceSavingTopK.Entry("dave", 3, 2)), Set.copyOf(topK.top(3)));
+    }
+
+    @Test
+    void add_FromManyThreads_ShouldCountEveryCallAcrossStripes() throws Exception {
+        // Arrange
+        SpaceSavingTopK topK = new SpaceSavingTopK(100);
+        int threads = 4;
+        int rounds = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    topK.add("user" + (i % 20));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(topK.getStripeCount() > 1);
+        List<SpaceSavingTopK.Entry> top = topK.top(100);
+        assertEquals(20, top.size());
+        for (SpaceSavingTopK.Entry entry : top) {
+            assertEquals(threads * rounds / 20, entry.count());
+            assertEquals(0, entry.error());
+        }
+    }
+
+    private static void add(SpaceSavingTopK topK, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            topK.add(key);
+        }
+    }
+}
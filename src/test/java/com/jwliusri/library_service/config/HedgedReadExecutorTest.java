@@ -0,0 +1,187 @@
+package com.jwliusri.library_service.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HedgedReadExecutorTest {
+
+    private static final ResultSetExtractor<String> FIRST_COLUMN = rs -> rs.next() ? rs.getString(1) : null;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReplicaStickiness stickiness = mock(ReplicaStickiness.class);
+    private HedgedReadExecutor executor;
+
+    private record Db(DataSource dataSource, List<PreparedStatement> statements) {}
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    // Every query answers after delayMillis, or fails as soon as it is cancelled
+    private static Db db(String value, long delayMillis) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        List<PreparedStatement> statements = new CopyOnWriteArrayList<>();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            ResultSet rs = mock(ResultSet.class);
+            CountDownLatch cancelled = new CountDownLatch(1);
+            doAnswer(cancel -> {
+                cancelled.countDown();
+                return null;
+            }).when(statement).cancel();
+            when(statement.executeQuery()).thenAnswer(query -> {
+                if (cancelled.await(delayMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLException("canceling statement due to user request", "57014");
+                }
+                return rs;
+            });
+            when(rs.next()).thenReturn(true);
+            when(rs.getString(1)).thenReturn(value);
+            statements.add(statement);
+            return statement;
+        });
+        return new Db(dataSource, statements);
+    }
+
+    private HedgedReadExecutor executor(Db primary, Db replica, Db hedge, double maxRatio) {
+        executor = new HedgedReadExecutor(primary.dataSource(), replica.dataSource(), hedge.dataSource(), stickiness,
+                meterRegistry, maxRatio, 0, 20, 5);
+        return executor;
+    }
+
+    private double hedges(String outcome) {
+        return meterRegistry.counter("replica.hedged.reads.hedges", "query", "test", "outcome", outcome).count();
+    }
+
+    @Test
+    void query_WhenReplicaIsFast_ShouldNotHedge() throws SQLException {
+        // Arrange
+        Db hedge = db("hedge", 0);
+        executor(db("primary", 0), db("replica", 0), hedge, 0.05);
+
+        // Act
+        String result = executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+
+        // Assert
+        assertEquals("replica", result);
+        verifyNoInteractions(hedge.dataSource());
+        assertEquals(1, meterRegistry.timer("replica.hedged.reads", "query", "test", "hedging", "on").count());
+    }
+
+    @Test
+    void query_WhenReplicaIsSlow_ShouldTakeHedgeAndCancelReplica() throws SQLException {
+        // Arrange
+        Db replica = db("replica", 5000);
+        executor(db("primary", 0), replica, db("hedge", 0), 0.05);
+
+        // Act
+        String result = executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+
+        // Assert
+        assertEquals("hedge", result);
+        verify(replica.statements().get(0), timeout(1000)).cancel();
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void query_WhenHedgeFails_ShouldWaitForReplica() throws SQLException {
+        // Arrange
+        Db hedge = db("hedge", 0);
+        when(hedge.dataSource().getConnection()).thenThrow(new SQLException("Connection refused", "08001"));
+        executor(db("primary", 0), db("replica", 100), hedge, 0.05);
+
+        // Act
+        String result = executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+
+        // Assert
+        assertEquals("replica", result);
+        assertEquals(1, hedges("lost"));
+    }
+
+    @Test
+    void query_WhenReplicaFailsFast_ShouldFallBackWithoutSpendingBudget() throws SQLException {
+        // Arrange, no budget is earned, only the initial burst of 10 hedges
+        Db replica = db("replica", 0);
+        when(replica.dataSource().getConnection()).thenThrow(new SQLException("canceling statement due to conflict with recovery", "40001"));
+        executor(db("primary", 0), replica, db("hedge", 0), 0);
+
+        // Act
+        for (int i = 0; i < 11; i++) {
+            assertEquals("hedge", executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L));
+        }
+
+        // Assert
+        assertEquals(11, hedges("fallback"));
+        assertEquals(0, hedges("throttled"));
+    }
+
+    @Test
+    void query_ShouldTimeReplicaAttemptsOnly() throws SQLException {
+        // Arrange
+        executor(db("primary", 0), db("replica", 5000), db("hedge", 0), 0.05);
+
+        // Act
+        executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+
+        // Assert, the cancelled replica attempt counts for at least the delay, not the hedge's answer
+        Timer replicaLatency = meterRegistry.timer("replica.hedged.reads.replica", "query", "test");
+        assertEquals(1, replicaLatency.count());
+        assertTrue(replicaLatency.totalTime(TimeUnit.MILLISECONDS) >= 20);
+    }
+
+    @Test
+    void query_WhenBudgetIsSpent_ShouldStopHedging() throws SQLException {
+        // Arrange, no budget is earned, only the initial burst of 10 hedges
+        Db hedge = db("hedge", 0);
+        executor(db("primary", 0), db("replica", 60), hedge, 0);
+
+        // Act
+        for (int i = 0; i < 11; i++) {
+            executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+        }
+
+        // Assert
+        assertEquals(10, hedges("won"));
+        assertEquals(1, hedges("throttled"));
+        verify(hedge.dataSource(), times(10)).getConnection();
+    }
+
+    @Test
+    void query_WhenUserIsPinned_ShouldReadFromPrimary() throws SQLException {
+        // Arrange
+        Db replica = db("replica", 0);
+        when(stickiness.isPinned()).thenReturn(true);
+        executor(db("primary", 0), replica, db("hedge", 0), 0.05);
+
+        // Act
+        String result = executor.query("test", "select title from articles where id = ?", FIRST_COLUMN, 1L);
+
+        // Assert
+        assertEquals("primary", result);
+        verifyNoInteractions(replica.dataSource());
+    }
+}
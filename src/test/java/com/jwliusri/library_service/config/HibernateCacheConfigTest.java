@@ -0,0 +1,31 @@
+package com.jwliusri.library_service.config;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HibernateCacheConfigTest {
+
+    @Test
+    void hibernateCacheManager_ShouldBoundEntityAndQueryRegions() {
+        // Act
+        try (CacheManager cacheManager = new HibernateCacheConfig().hibernateCacheManager(100, 5)) {
+            // Assert
+            for (String region : new String[] {HibernateCacheConfig.USERS_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME}) {
+                Cache<Object, Object> cache = cacheManager.getCache(region);
+                @SuppressWarnings("unchecked")
+                CaffeineConfiguration<Object, Object> configuration = cache.getConfiguration(CaffeineConfiguration.class);
+                assertEquals(100, configuration.getMaximumSize().getAsLong());
+                assertFalse(configuration.isStoreByValue());
+            }
+            Cache<Object, Object> timestamps = cacheManager.getCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
+            assertTrue(timestamps.getConfiguration(CaffeineConfiguration.class).getMaximumSize().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jwliusri.library_service.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private ReplicaStickiness stickiness;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ReplicaRoutingDataSource(primary, replica, stickiness, 10);
+    }
+
+    private void replicaLag(double seconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getDouble(1)).thenReturn(seconds);
+    }
+
+    @Test
+    void getConnection_OutsideReplicaRead_ShouldUsePrimary() throws SQLException {
+        // Arrange
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act & Assert
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void replicaReads_ShouldUseReplica() throws SQLException {
+        // Arrange
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        // Act & Assert
+        assertSame(replicaConnection, dataSource.replicaReads().getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void replicaReads_WhenUserIsPinned_ShouldUsePrimary() throws SQLException {
+        // Arrange
+        when(stickiness.isPinned()).thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act & Assert
+        assertSame(primaryConnection, dataSource.replicaReads().getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void replicaReads_WhenReplicaFails_ShouldFallBackAndStayOnPrimary() throws SQLException {
+        // Arrange
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection first = dataSource.replicaReads().getConnection();
+        Connection second = dataSource.replicaReads().getConnection();
+
+        // Assert
+        assertSame(primaryConnection, first);
+        assertSame(primaryConnection, second);
+        assertFalse(dataSource.isHealthy());
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void checkHealth_WhenReplicaLags_ShouldRouteToPrimaryUntilCaughtUp() throws SQLException {
+        // Arrange
+        replicaLag(30);
+
+        // Act
+        dataSource.checkHealth();
+
+        // Assert
+        assertFalse(dataSource.isHealthy());
+
+        // Act
+        replicaLag(0.5);
+        dataSource.checkHealth();
+
+        // Assert
+        assertTrue(dataSource.isHealthy());
+    }
+}
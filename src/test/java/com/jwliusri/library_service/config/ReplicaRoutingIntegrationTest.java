@@ -0,0 +1,211 @@
+package com.jwliusri.library_service.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Table;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// The same row holds a different name on each database, so every read shows where it ran
+@SpringJUnitConfig(ReplicaRoutingIntegrationTest.Config.class)
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private ItemReader reader;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void repositoryRead_ShouldUsePrimary() {
+        // Act & Assert
+        assertEquals("primary", repository.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void markedServiceRead_ShouldUseReplica() {
+        // Act & Assert
+        assertEquals("replica", reader.name(1L));
+        assertEquals(CacheStoreMode.BYPASS, reader.storeMode());
+        assertFalse(ReplicaReadScope.isActive());
+    }
+
+    @Test
+    void markedServiceRead_ShouldNotFillSecondLevelCache() {
+        // Act
+        reader.name(1L);
+
+        // Assert
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, 1L));
+
+        // Act
+        repository.findById(1L);
+
+        // Assert
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, 1L));
+    }
+
+    @Test
+    void markedServiceRead_ShouldGetFromSecondLevelCache() {
+        // Arrange
+        repository.findById(1L);
+
+        // Act & Assert
+        assertEquals("primary", reader.name(1L));
+    }
+
+    @Test
+    void replicaReads_ShouldUseReplicaOutsideMarkedRead() {
+        // Act & Assert
+        assertEquals("replica", new JdbcTemplate(replicaRoutingDataSource.replicaReads())
+                .queryForObject("select name from replica_item where id = 1", String.class));
+    }
+
+    @Entity
+    @Table(name = "replica_item")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    static class Item {
+        @Id
+        private Long id;
+
+        private String name;
+
+        String getName() {
+            return name;
+        }
+    }
+
+    interface ItemRepository extends JpaRepository<Item, Long> {
+    }
+
+    static class ItemReader {
+
+        @Autowired
+        private ItemRepository repository;
+
+        @PersistenceContext
+        private EntityManager entityManager;
+
+        @Transactional(readOnly = true)
+        public String name(long id) {
+            return repository.findById(id).orElseThrow().getName();
+        }
+
+        @Transactional(readOnly = true)
+        public Object storeMode() {
+            return entityManager.getProperties().get("jakarta.persistence.cache.storeMode");
+        }
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @EnableTransactionManagement
+    @EnableJpaRepositories(considerNestedRepositories = true, basePackageClasses = ReplicaRoutingIntegrationTest.class)
+    static class Config {
+
+        @Bean
+        DataSource primaryDataSource() {
+            return database("primary");
+        }
+
+        @Bean
+        DataSource replicaDataSource() {
+            return database("replica");
+        }
+
+        @Bean
+        ReplicaRoutingDataSource replicaRoutingDataSource() {
+            return new ReplicaRoutingDataSource(primaryDataSource(), replicaDataSource(), mock(ReplicaStickiness.class), 10);
+        }
+
+        @Bean
+        DataSource dataSource() {
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource());
+            dataSource.setReadOnlyDataSource(replicaRoutingDataSource());
+            return dataSource;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setManagedTypes(PersistenceManagedTypes.of(Item.class.getName()));
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.cache.use_second_level_cache", "true",
+                    "hibernate.cache.region.factory_class", "jcache",
+                    "hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                    "hibernate.javax.cache.missing_cache_strategy", "create",
+                    "jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE"));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            new DataSourceConfig().replicaReadEntityManagers().customize(transactionManager);
+            return transactionManager;
+        }
+
+        @Bean
+        ReplicaReadScope replicaReadScope(EntityManagerFactory entityManagerFactory) {
+            return new ReplicaReadScope(entityManagerFactory);
+        }
+
+        @Bean
+        ItemReader itemReader() {
+            return new ItemReader();
+        }
+
+        private static DataSource database(String name) {
+            DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("create table if not exists replica_item (id bigint primary key, name varchar(255))");
+            jdbcTemplate.update("merge into replica_item key (id) values (1, ?)", name);
+            return dataSource;
+        }
+    }
+}
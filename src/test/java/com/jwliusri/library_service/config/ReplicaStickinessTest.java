@@ -0,0 +1,97 @@
+package com.jwliusri.library_service.config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaStickinessTest {
+
+    private final ReplicaStickiness stickiness = new ReplicaStickiness(5);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static TransactionExecution transaction(boolean readOnly) {
+        TransactionExecution transaction = mock(TransactionExecution.class);
+        when(transaction.isNewTransaction()).thenReturn(true);
+        lenient().when(transaction.isReadOnly()).thenReturn(readOnly);
+        return transaction;
+    }
+
+    @Test
+    void afterCommit_OfReadWriteTransaction_ShouldPinTheUser() {
+        // Arrange
+        authenticate("jdoe");
+
+        // Act
+        stickiness.afterCommit(transaction(false), null);
+
+        // Assert
+        assertTrue(stickiness.isPinned());
+        SecurityContextHolder.clearContext();
+        authenticate("other");
+        assertFalse(stickiness.isPinned());
+    }
+
+    @Test
+    void afterCommit_OfReadOnlyOrFailedTransaction_ShouldNotPin() {
+        // Arrange
+        authenticate("jdoe");
+
+        // Act
+        stickiness.afterCommit(transaction(true), null);
+        stickiness.afterCommit(transaction(false), new IllegalStateException("commit failed"));
+
+        // Assert
+        assertFalse(stickiness.isPinned());
+    }
+
+    @Test
+    void afterCommit_WithoutUser_ShouldNotPin() {
+        // Act
+        stickiness.afterCommit(transaction(false), null);
+
+        // Assert
+        assertFalse(stickiness.isPinned());
+    }
+
+    @Test
+    void isPinned_ShouldExpireAfterStickyWindow() {
+        // Arrange
+        long now = 1_000_000L;
+        stickiness.pin("jdoe", now);
+
+        // Act & Assert
+        assertTrue(stickiness.isPinned("jdoe", now + TimeUnit.SECONDS.toNanos(4)));
+        assertFalse(stickiness.isPinned("jdoe", now + TimeUnit.SECONDS.toNanos(6)));
+    }
+
+    @Test
+    void pin_WithManyWriters_ShouldStayBounded() {
+        // Arrange
+        ReplicaStickiness bounded = new ReplicaStickiness(5, 100);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            bounded.pin("user" + i, System.nanoTime());
+        }
+
+        // Assert
+        assertTrue(bounded.getPinnedCount() <= 100);
+    }
+}
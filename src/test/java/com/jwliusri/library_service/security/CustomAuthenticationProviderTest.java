@@ -7,6 +7,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -100,6 +101,20 @@ class CustomAuthenticationProviderTest {
         verify(loginAttemptService, never()).resetAttempts(username);
     }
 
+    @Test
+    void authenticate_WithDisabledAccount_ShouldThrowDisabledException() {
+        // Arrange
+        UserDetails disabledUser = User.withUserDetails(validUser).disabled(true).build();
+        when(userDetailsService.loadUserByUsername(username)).thenReturn(disabledUser);
+        when(passwordEncoder.matches(password, encodedPassword)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(DisabledException.class, () -> {
+            authenticationProvider.authenticate(authentication);
+        });
+        verify(loginAttemptService, never()).resetAttempts(username);
+    }
+
     @Test
     void authenticate_WithNonExistentUser_ShouldThrowBadCredentials() {
         // Arrange
@@ -14,7 +14,10 @@ import com.jwliusri.library_service.user.UserRepository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
@@ -47,7 +50,7 @@ public class CustomUserDetailsServiceTest {
     public void GIVEN_username_THEN_return_user_details() {
         //Arrange
         final String username = "testuser";
-        when(userRepository.findByUsernameOrEmail(username, username)).thenReturn(Optional.of(testUser));
+        when(userRepository.findByUsernameOrEmail(username)).thenReturn(Optional.of(testUser));
 
         //Act
         final UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
@@ -56,4 +59,19 @@ public class CustomUserDetailsServiceTest {
         assertNotNull(userDetails);
         assertEquals(testUser.getUsername(), ReflectionTestUtils.getField(userDetails, "username"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void GIVEN_email_THEN_lookup_by_email_only() {
+        //Arrange
+        final String email = "Test@Example.com";
+        when(userRepository.findByUsernameOrEmail(email)).thenCallRealMethod();
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+
+        //Act
+        final UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+
+        //Assert
+        assertEquals(testUser.getUsername(), ReflectionTestUtils.getField(userDetails, "username"));
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+}
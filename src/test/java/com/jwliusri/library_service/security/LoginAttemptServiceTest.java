@@ -47,7 +47,7 @@ class LoginAttemptServiceTest {
     @Test
     void loginFailed_ShouldIncrementFailedAttempts() {
         // Arrange
-        when(userRepository.findByUsernameOrEmail(any(), any())).thenReturn(java.util.Optional.of(testUser));
+        when(userRepository.findByUsernameOrEmail(any())).thenReturn(java.util.Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -63,7 +63,7 @@ class LoginAttemptServiceTest {
     void loginFailed_WhenMaxAttemptsReached_ShouldLockAccount() {
         // Arrange
         testUser.setFailedAttempt(4); // One below max
-        when(userRepository.findByUsernameOrEmail(any(), any())).thenReturn(java.util.Optional.of(testUser));
+        when(userRepository.findByUsernameOrEmail(any())).thenReturn(java.util.Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -80,7 +80,7 @@ class LoginAttemptServiceTest {
         // Arrange
         testUser.setFailedAttempt(2);
         testUser.setFailedAttemptTime(LocalDateTime.now().minusMinutes(15)); // Outside window
-        when(userRepository.findByUsernameOrEmail(any(), any())).thenReturn(java.util.Optional.of(testUser));
+        when(userRepository.findByUsernameOrEmail(any())).thenReturn(java.util.Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -96,7 +96,7 @@ class LoginAttemptServiceTest {
         // Arrange
         testUser.setAccountNonLocked(false);
         testUser.setLockTime(LocalDateTime.now());
-        when(userRepository.findByUsernameOrEmail(any(), any())).thenReturn(java.util.Optional.of(testUser));
+        when(userRepository.findByUsernameOrEmail(any())).thenReturn(java.util.Optional.of(testUser));
 
         // Act
         loginAttemptService.loginFailed("testuser");
@@ -126,6 +126,18 @@ class LoginAttemptServiceTest {
         verify(userRepository, times(1)).save(testUser);
     }
 
+    @Test
+    void resetAttempts_WhenNothingToReset_ShouldNotSave() {
+        // Arrange
+        when(userRepository.findByUsername(any())).thenReturn(java.util.Optional.of(testUser));
+
+        // Act
+        loginAttemptService.resetAttempts("testuser");
+
+        // Assert
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void isLocked_WhenAccountNotLocked_ShouldReturnFalse() {
         // Arrange
@@ -2,7 +2,9 @@ package com.jwliusri.library_service.security.auth;
 
 import com.jwliusri.library_service.security.JwtUtil;
 import com.jwliusri.library_service.security.mfa.MfaOtpService;
+import com.jwliusri.library_service.security.mfa.TotpService;
 import com.jwliusri.library_service.user.User;
+import com.jwliusri.library_service.user.UserAvailabilityDto;
 import com.jwliusri.library_service.user.UserRequestDto;
 import com.jwliusri.library_service.user.UserResponseDto;
 import com.jwliusri.library_service.user.UserService;
@@ -44,6 +46,9 @@ class AuthControllerTest {
     @Mock
     private MfaOtpService mfaOtpService;
 
+    @Mock
+    private TotpService totpService;
+
     @Mock
     private Authentication authentication;
 
@@ -87,6 +92,7 @@ class AuthControllerTest {
         assertNotNull(response);
         assertEquals(testUserId, response.getId());
         assertEquals(testRequestId, response.getRequestId());
+        assertEquals("EMAIL", response.getMfaMethod());
         verify(authenticationManager).authenticate(any());
         verify(mfaOtpService).generateOtp(testUsername);
     }
@@ -211,4 +217,72 @@ class AuthControllerTest {
         // Assert
         assertEquals(testUsername, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void login_WithTotpEnabledUser_ShouldReturnTotpMethod() {
+        // Arrange
+        LoginRequestDto request = new LoginRequestDto(testUsername, testPassword);
+        User testUser = new User();
+        testUser.setId(testUserId);
+        testUser.setTotpEnabled(true);
+
+        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        when(userService.getAuthUser(any())).thenReturn(testUser);
+        when(mfaOtpService.generateOtp(testUsername)).thenReturn(testRequestId);
+
+        // Act
+        LoginResponseDto response = authController.login(request);
+
+        // Assert
+        assertEquals("TOTP", response.getMfaMethod());
+    }
+
+    @Test
+    void enrollTotp_ShouldReturnEnrollment() {
+        // Arrange
+        Authentication auth = mock(Authentication.class);
+        when(auth.getName()).thenReturn(testUsername);
+        TotpEnrollmentResponseDto enrollment = new TotpEnrollmentResponseDto("SECRET", "otpauth://totp/x");
+        when(totpService.enroll(testUsername)).thenReturn(enrollment);
+
+        // Act
+        TotpEnrollmentResponseDto response = authController.enrollTotp(auth);
+
+        // Assert
+        assertEquals(enrollment, response);
+    }
+
+    @Test
+    void confirmTotp_ShouldDelegateToService() {
+        // Arrange
+        Authentication auth = mock(Authentication.class);
+        when(auth.getName()).thenReturn(testUsername);
+
+        // Act
+        authController.confirmTotp(new TotpConfirmRequestDto(testOtp), auth);
+
+        // Assert
+        verify(totpService).confirm(testUsername, testOtp);
+    }
+
+    @Test
+    void checkAvailability_ShouldDelegateToService() {
+        // Arrange
+        UserAvailabilityDto availability = new UserAvailabilityDto(true, null);
+        when(userService.checkAvailability("newuser", null)).thenReturn(availability);
+
+        // Act
+        UserAvailabilityDto response = authController.checkAvailability("newuser", null);
+
+        // Assert
+        assertEquals(availability, response);
+    }
+
+    @Test
+    void checkAvailability_WithoutParameters_ShouldThrowBadRequest() {
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> authController.checkAvailability(null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+}
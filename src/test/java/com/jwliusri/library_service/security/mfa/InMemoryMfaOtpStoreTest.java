@@ -0,0 +1,154 @@
+package com.jwliusri.library_service.security.mfa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMfaOtpStoreTest extends MfaOtpStoreContractTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryMfaOtpStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new InMemoryMfaOtpStore(TTL_MINUTES, 3, "");
+        store.start();
+    }
+
+    @Override
+    protected MfaOtpStore store() {
+        return store;
+    }
+
+    // The wheel is driven by the expiry tick, run it as if the time had passed
+    @Override
+    protected void advance(long millis) {
+        store.expire(System.currentTimeMillis() + millis);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.stop();
+    }
+
+    @Test
+    void expire_AfterTtl_ShouldEvictEntries() {
+        // Arrange
+        store.save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        store.expire(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5) + 2000);
+
+        // Assert
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void expire_BeforeTtl_ShouldKeepEntries() {
+        // Arrange
+        store.save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        store.expire(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(4));
+
+        // Assert
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void save_WhenFull_ShouldThrowStoreFull() {
+        // Arrange
+        store.save(new MfaOtp("request-1", "testuser", 1));
+        store.save(new MfaOtp("request-2", "testuser", 2));
+        store.save(new MfaOtp("request-3", "testuser", 3));
+
+        // Act & Assert
+        assertThrows(MfaOtpStoreFullException.class, () -> store.save(new MfaOtp("request-4", "testuser", 4)));
+    }
+
+    @Test
+    void save_FromManyThreads_ShouldNotGoPastMaxEntries() throws Exception {
+        // Arrange
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        store.save(new MfaOtp("request-" + thread + "-" + i, "testuser", i));
+                    } catch (MfaOtpStoreFullException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(3, store.size());
+        assertEquals(threads * 100 - 3, rejected.get());
+    }
+
+    @Test
+    void recordFailure_ShouldCountWrongAnswersOfPendingChallenge() {
+        // Arrange
+        store.save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        store.recordFailure("request-1");
+        int attempts = store.recordFailure("request-1");
+
+        // Assert
+        assertEquals(2, attempts);
+        assertEquals(0, store.recordFailure("unknown"));
+    }
+
+    @Test
+    void snapshot_ShouldRestorePendingOtpsOnRestart() throws Exception {
+        // Arrange
+        String snapshot = tempDir.resolve("otp.snapshot").toString();
+        InMemoryMfaOtpStore first = new InMemoryMfaOtpStore(5, 10, snapshot);
+        first.start();
+        first.save(new MfaOtp("request-1", "testuser", 123456));
+        first.recordFailure("request-1");
+
+        // Act
+        first.stop();
+        InMemoryMfaOtpStore second = new InMemoryMfaOtpStore(5, 10, snapshot);
+        second.start();
+
+        // Assert
+        assertEquals(123456, second.findById("request-1").orElseThrow().getOtp());
+        assertEquals(1, second.findById("request-1").orElseThrow().getAttempts());
+        assertFalse(Files.exists(Path.of(snapshot)));
+        second.stop();
+    }
+}
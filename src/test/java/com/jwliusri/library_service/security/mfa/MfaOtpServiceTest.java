@@ -8,9 +8,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -26,7 +30,7 @@ import static org.mockito.Mockito.*;
 class MfaOtpServiceTest {
 
     @Mock
-    private MfaOtpRepository mfaOtpRepository;
+    private MfaOtpStore mfaOtpStore;
 
     @Mock
     private EmailService emailService;
@@ -34,6 +38,12 @@ class MfaOtpServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TotpService totpService;
+
+    @Spy
+    private OtpChallengeSealer otpChallengeSealer = new OtpChallengeSealer("testMfaOtpSecretWithAtLeast32CharactersLong", 3);
+
     @InjectMocks
     private MfaOtpService mfaOtpService;
 
@@ -50,26 +60,42 @@ class MfaOtpServiceTest {
         testUser.setEmail(testEmail);
         
         when(userRepository.findByUsername(testUsername)).thenReturn(Optional.of(testUser));
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stored");
+        ReflectionTestUtils.setField(mfaOtpService, "otpMinutes", 5L);
+        ReflectionTestUtils.setField(mfaOtpService, "maxAttempts", 3);
     }
 
     @Test
     void generateOtp_ShouldCreateOtpRecordAndSendEmail() {
         // Arrange
         MfaOtp expectedOtp = new MfaOtp(testRequestId, testUsername, testOtp);
-        when(mfaOtpRepository.save(any(MfaOtp.class))).thenReturn(expectedOtp);
+        when(mfaOtpStore.save(any(MfaOtp.class))).thenReturn(expectedOtp);
 
         // Act
         String requestId = mfaOtpService.generateOtp(testUsername);
 
         // Assert
         assertNotNull(requestId);
-        verify(mfaOtpRepository).save(any(MfaOtp.class));
+        verify(mfaOtpStore).save(any(MfaOtp.class));
         verify(emailService).sendSimpleMail(argThat(email -> 
             email.getRecipient().equals(testEmail) &&
             email.getMsgBody().contains(String.valueOf(expectedOtp.getOtp()))
         ));
     }
 
+    @Test
+    void generateOtp_WhenStoreFull_ShouldThrowServiceUnavailable() {
+        // Arrange
+        when(mfaOtpStore.save(any(MfaOtp.class))).thenThrow(new MfaOtpStoreFullException(3));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+            mfaOtpService.generateOtp(testUsername)
+        );
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verifyNoInteractions(emailService);
+    }
+
     @Test
     void generateOtp_WithInvalidUsername_ShouldThrowException() {
         // Arrange
@@ -85,7 +111,7 @@ class MfaOtpServiceTest {
     void validateOtp_WithValidOtp_ShouldReturnTrue() {
         // Arrange
         MfaOtp storedOtp = new MfaOtp(testRequestId, testUsername, testOtp);
-        when(mfaOtpRepository.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
 
         // Act
         boolean isValid = mfaOtpService.validateOtp(testRequestId, testOtp);
@@ -98,7 +124,7 @@ class MfaOtpServiceTest {
     void validateOtp_WithInvalidOtp_ShouldReturnFalse() {
         // Arrange
         MfaOtp storedOtp = new MfaOtp(testRequestId, testUsername, testOtp);
-        when(mfaOtpRepository.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
 
         // Act
         boolean isValid = mfaOtpService.validateOtp(testRequestId, 654321);
@@ -110,7 +136,7 @@ class MfaOtpServiceTest {
     @Test
     void validateOtp_WithInvalidRequestId_ShouldThrowException() {
         // Arrange
-        when(mfaOtpRepository.findById("invalid-request")).thenReturn(Optional.empty());
+        when(mfaOtpStore.findById("invalid-request")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(NoSuchElementException.class, () -> 
@@ -122,7 +148,7 @@ class MfaOtpServiceTest {
     void getUsernameFromOtp_ShouldReturnUsername() {
         // Arrange
         MfaOtp storedOtp = new MfaOtp(testRequestId, testUsername, testOtp);
-        when(mfaOtpRepository.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
 
         // Act
         String username = mfaOtpService.getUsernameFromOtp(testRequestId);
@@ -134,7 +160,7 @@ class MfaOtpServiceTest {
     @Test
     void getUsernameFromOtp_WithInvalidRequestId_ShouldThrowException() {
         // Arrange
-        when(mfaOtpRepository.findById("invalid-request")).thenReturn(Optional.empty());
+        when(mfaOtpStore.findById("invalid-request")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(NoSuchElementException.class, () -> 
@@ -147,7 +173,7 @@ class MfaOtpServiceTest {
         // Arrange
         MfaOtp otp1 = new MfaOtp(UUID.randomUUID().toString(), testUsername, testOtp);
         MfaOtp otp2 = new MfaOtp(UUID.randomUUID().toString(), testUsername, testOtp);
-        when(mfaOtpRepository.save(any(MfaOtp.class))).thenReturn(otp1).thenReturn(otp2);
+        when(mfaOtpStore.save(any(MfaOtp.class))).thenReturn(otp1).thenReturn(otp2);
 
         // Act
         String requestId1 = mfaOtpService.generateOtp(testUsername);
@@ -156,4 +182,141 @@ class MfaOtpServiceTest {
         // Assert
         assertNotEquals(requestId1, requestId2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateOtp_InStatelessMode_ShouldNotTouchStore() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+
+        // Act
+        String requestId = mfaOtpService.generateOtp(testUsername);
+
+        // Assert
+        assertNotNull(requestId);
+        assertEquals(testUsername, mfaOtpService.getUsernameFromOtp(requestId));
+        verify(mfaOtpStore, never()).save(any());
+        verify(emailService).sendSimpleMail(any());
+    }
+
+    @Test
+    void validateOtp_InStatelessMode_ShouldAcceptOnlyOnce() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+        String requestId = otpChallengeSealer.seal(testUsername, testOtp, System.currentTimeMillis() + 60_000);
+
+        // Act & Assert
+        assertFalse(mfaOtpService.validateOtp(requestId, 654321));
+        assertTrue(mfaOtpService.validateOtp(requestId, testOtp));
+        assertFalse(mfaOtpService.validateOtp(requestId, testOtp));
+        verify(mfaOtpStore, never()).findById(any());
+    }
+
+    @Test
+    void validateOtp_InStatelessModeAfterMaxWrongAnswers_ShouldRejectCorrectOtp() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+        String requestId = otpChallengeSealer.seal(testUsername, testOtp, System.currentTimeMillis() + 60_000);
+        for (int guess = 0; guess < 3; guess++) {
+            mfaOtpService.validateOtp(requestId, guess);
+        }
+
+        // Act & Assert
+        assertFalse(mfaOtpService.validateOtp(requestId, testOtp));
+    }
+
+    @Test
+    void validateOtp_InStatelessModeWithExpiredRequest_ShouldThrowException() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+        String requestId = otpChallengeSealer.seal(testUsername, testOtp, System.currentTimeMillis() - 1);
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () ->
+            mfaOtpService.validateOtp(requestId, testOtp)
+        );
+    }
+
+    @Test
+    void validateOtp_InStatelessModeWithForgedRequest_ShouldThrowException() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () ->
+            mfaOtpService.validateOtp(UUID.randomUUID().toString(), testOtp)
+        );
+    }
+
+    @Test
+    void generateOtp_WithTotpEnabled_ShouldNotSendEmail() {
+        // Arrange
+        testUser.setTotpEnabled(true);
+        when(mfaOtpStore.save(any(MfaOtp.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        String requestId = mfaOtpService.generateOtp(testUsername);
+
+        // Assert
+        assertNotNull(requestId);
+        verify(mfaOtpStore).save(argThat(MfaOtp::isTotp));
+        verify(emailService, never()).sendSimpleMail(any());
+    }
+
+    @Test
+    void validateOtp_WithTotpChallenge_ShouldVerifyTotpCode() {
+        // Arrange
+        MfaOtp storedOtp = new MfaOtp(testRequestId, testUsername, 0, true);
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(storedOtp));
+        when(totpService.verify(testUsername, testOtp)).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(mfaOtpService.validateOtp(testRequestId, testOtp));
+        assertFalse(mfaOtpService.validateOtp(testRequestId, 0));
+    }
+
+    @Test
+    void validateOtp_WithValidOtp_ShouldDeleteChallenge() {
+        // Arrange
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(new MfaOtp(testRequestId, testUsername, testOtp)));
+
+        // Act
+        mfaOtpService.validateOtp(testRequestId, testOtp);
+
+        // Assert
+        verify(mfaOtpStore).deleteById(testRequestId);
+        verify(mfaOtpStore, never()).recordFailure(any());
+    }
+
+    @Test
+    void validateOtp_WithTotpChallengeAfterMaxWrongAnswers_ShouldDeleteChallenge() {
+        // Arrange
+        when(mfaOtpStore.findById(testRequestId)).thenReturn(Optional.of(new MfaOtp(testRequestId, testUsername, 0, true)));
+        when(mfaOtpStore.recordFailure(testRequestId)).thenReturn(1).thenReturn(2).thenReturn(3);
+
+        // Act
+        mfaOtpService.validateOtp(testRequestId, 111111);
+        mfaOtpService.validateOtp(testRequestId, 222222);
+
+        // Assert
+        verify(mfaOtpStore, never()).deleteById(testRequestId);
+
+        // Act
+        mfaOtpService.validateOtp(testRequestId, 333333);
+
+        // Assert
+        verify(mfaOtpStore).deleteById(testRequestId);
+    }
+
+    @Test
+    void validateOtp_InStatelessModeWithTotpChallenge_ShouldVerifyTotpCode() {
+        // Arrange
+        ReflectionTestUtils.setField(mfaOtpService, "otpMode", "stateless");
+        String requestId = otpChallengeSealer.sealTotp(testUsername, System.currentTimeMillis() + 60_000);
+        when(totpService.verify(testUsername, testOtp)).thenReturn(true);
+
+        // Act & Assert
+        assertFalse(mfaOtpService.validateOtp(requestId, 0));
+        assertTrue(mfaOtpService.validateOtp(requestId, testOtp));
+        assertFalse(mfaOtpService.validateOtp(requestId, testOtp));
+    }
+}
@@ -0,0 +1,88 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link MfaOtpStore} backend must share. Subclasses provide a store with a
+ * five minute TTL and a way to move its clock forward.
+ */
+abstract class MfaOtpStoreContractTest {
+
+    protected static final long TTL_MINUTES = 5;
+
+    protected abstract MfaOtpStore store();
+
+    protected abstract void advance(long millis);
+
+    @Test
+    void save_ThenFindById_ShouldReturnOtp() {
+        // Arrange
+        MfaOtp mfaOtp = new MfaOtp("request-1", "testuser", 123456);
+
+        // Act
+        store().save(mfaOtp);
+
+        // Assert
+        MfaOtp found = store().findById("request-1").orElseThrow();
+        assertEquals("testuser", found.getUsername());
+        assertEquals(123456, found.getOtp());
+    }
+
+    @Test
+    void findById_WithUnknownId_ShouldReturnEmpty() {
+        assertEquals(Optional.empty(), store().findById("unknown"));
+    }
+
+    @Test
+    void deleteById_ShouldRemoveOtp() {
+        // Arrange
+        store().save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        store().deleteById("request-1");
+
+        // Assert
+        assertTrue(store().findById("request-1").isEmpty());
+    }
+
+    @Test
+    void save_WithSameId_ShouldReplaceOtp() {
+        // Arrange
+        store().save(new MfaOtp("request-1", "testuser", 111111));
+
+        // Act
+        store().save(new MfaOtp("request-1", "testuser", 222222));
+
+        // Assert
+        assertEquals(222222, store().findById("request-1").orElseThrow().getOtp());
+    }
+
+    @Test
+    void findById_BeforeTtl_ShouldReturnOtp() {
+        // Arrange
+        store().save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        advance(TimeUnit.MINUTES.toMillis(TTL_MINUTES - 1));
+
+        // Assert
+        assertTrue(store().findById("request-1").isPresent());
+    }
+
+    @Test
+    void findById_AfterTtl_ShouldReturnEmpty() {
+        // Arrange
+        store().save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Act
+        advance(TimeUnit.MINUTES.toMillis(TTL_MINUTES) + 2000);
+
+        // Assert
+        assertTrue(store().findById("request-1").isEmpty());
+    }
+}
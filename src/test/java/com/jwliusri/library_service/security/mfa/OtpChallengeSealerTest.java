@@ -0,0 +1,100 @@
+package com.jwliusri.library_service.security.mfa;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpChallengeSealerTest {
+
+    private OtpChallengeSealer sealer;
+
+    @BeforeEach
+    void setUp() {
+        sealer = new OtpChallengeSealer("testMfaOtpSecretWithAtLeast32CharactersLong", 3);
+    }
+
+    @Test
+    void open_ShouldReturnSealedChallenge() {
+        // Arrange
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String requestId = sealer.seal("testuser", 123456, expiresAt);
+
+        // Act
+        OtpChallengeSealer.Challenge challenge = sealer.open(requestId).orElseThrow();
+
+        // Assert
+        assertEquals("testuser", challenge.username());
+        assertEquals(expiresAt, challenge.expiresAt());
+        assertTrue(sealer.matches(challenge, 123456));
+        assertFalse(sealer.matches(challenge, 123457));
+    }
+
+    @Test
+    void open_WithTamperedEnvelope_ShouldReturnEmpty() {
+        // Arrange
+        byte[] sealed = Base64.getUrlDecoder().decode(sealer.seal("testuser", 123456, System.currentTimeMillis() + 60_000));
+        sealed[sealed.length - 20] ^= 1;
+
+        // Act & Assert
+        assertTrue(sealer.open(Base64.getUrlEncoder().withoutPadding().encodeToString(sealed)).isEmpty());
+    }
+
+    @Test
+    void open_WithEnvelopeFromAnotherSecret_ShouldReturnEmpty() {
+        // Arrange
+        OtpChallengeSealer other = new OtpChallengeSealer("anotherMfaOtpSecretWithAtLeast32Characters", 3);
+        String requestId = other.seal("testuser", 123456, System.currentTimeMillis() + 60_000);
+
+        // Act & Assert
+        assertTrue(sealer.open(requestId).isEmpty());
+    }
+
+    @Test
+    void open_WithGarbage_ShouldReturnEmpty() {
+        assertTrue(sealer.open("not-a-challenge").isEmpty());
+        assertTrue(sealer.open("").isEmpty());
+    }
+
+    @Test
+    void consume_ShouldRejectReplay() {
+        // Arrange
+        String requestId = sealer.seal("testuser", 123456, System.currentTimeMillis() + 60_000);
+        OtpChallengeSealer.Challenge challenge = sealer.open(requestId).orElseThrow();
+
+        // Act & Assert
+        assertTrue(sealer.consume(challenge));
+        assertFalse(sealer.consume(sealer.open(requestId).orElseThrow()));
+    }
+
+    @Test
+    void fail_AtMaxAttempts_ShouldConsumeChallenge() {
+        // Arrange
+        String requestId = sealer.seal("testuser", 123456, System.currentTimeMillis() + 60_000);
+        OtpChallengeSealer.Challenge challenge = sealer.open(requestId).orElseThrow();
+
+        // Act
+        sealer.fail(challenge);
+        sealer.fail(challenge);
+        sealer.fail(challenge);
+
+        // Assert
+        assertFalse(sealer.consume(challenge));
+    }
+
+    @Test
+    void fail_BelowMaxAttempts_ShouldKeepChallengeOpen() {
+        // Arrange
+        String requestId = sealer.seal("testuser", 123456, System.currentTimeMillis() + 60_000);
+        OtpChallengeSealer.Challenge challenge = sealer.open(requestId).orElseThrow();
+
+        // Act
+        sealer.fail(challenge);
+        sealer.fail(challenge);
+
+        // Assert
+        assertTrue(sealer.consume(challenge));
+    }
+}
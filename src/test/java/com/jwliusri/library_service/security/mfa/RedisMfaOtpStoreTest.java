@@ -0,0 +1,135 @@
+package com.jwliusri.library_service.security.mfa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisMfaOtpStoreTest extends MfaOtpStoreContractTest {
+
+    private FakeMfaOtpRepository repository;
+    private StringRedisTemplate redisTemplate;
+    private RedisMfaOtpStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FakeMfaOtpRepository();
+        redisTemplate = mock(StringRedisTemplate.class);
+        store = new RedisMfaOtpStore(repository, redisTemplate, TTL_MINUTES);
+    }
+
+    @Override
+    protected MfaOtpStore store() {
+        return store;
+    }
+
+    @Override
+    protected void advance(long millis) {
+        repository.now += millis;
+    }
+
+    @Test
+    void save_ShouldSetKeyTtl() {
+        // Act
+        MfaOtp saved = store.save(new MfaOtp("request-1", "testuser", 123456));
+
+        // Assert
+        assertEquals(TimeUnit.MINUTES.toSeconds(TTL_MINUTES), saved.getTtlSeconds());
+    }
+
+    @Test
+    void recordFailure_ShouldIncrementAttemptsOfChallengeHash() {
+        // Arrange
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(List.of("mfa_sessions:request-1")))).thenReturn(2L);
+
+        // Act & Assert
+        assertEquals(2, store.recordFailure("request-1"));
+    }
+
+    /** Expires keys the way Redis does, from the {@code @TimeToLive} of the saved entity. */
+    private static class FakeMfaOtpRepository implements MfaOtpRepository {
+
+        private record Entry(MfaOtp mfaOtp, long expiresAt) {}
+
+        private final Map<String, Entry> entries = new HashMap<>();
+        private long now;
+
+        @Override
+        public <S extends MfaOtp> S save(S entity) {
+            long expiresAt = entity.getTtlSeconds() == null ? Long.MAX_VALUE : now + TimeUnit.SECONDS.toMillis(entity.getTtlSeconds());
+            entries.put(entity.getId(), new Entry(entity, expiresAt));
+            return entity;
+        }
+
+        @Override
+        public <S extends MfaOtp> Iterable<S> saveAll(Iterable<S> entities) {
+            entities.forEach(this::save);
+            return entities;
+        }
+
+        @Override
+        public Optional<MfaOtp> findById(String id) {
+            Entry entry = entries.get(id);
+            return entry == null || entry.expiresAt() <= now ? Optional.empty() : Optional.of(entry.mfaOtp());
+        }
+
+        @Override
+        public boolean existsById(String id) {
+            return findById(id).isPresent();
+        }
+
+        @Override
+        public Iterable<MfaOtp> findAll() {
+            return findAllById(entries.keySet());
+        }
+
+        @Override
+        public Iterable<MfaOtp> findAllById(Iterable<String> ids) {
+            List<MfaOtp> found = new ArrayList<>();
+            ids.forEach(id -> findById(id).ifPresent(found::add));
+            return found;
+        }
+
+        @Override
+        public long count() {
+            return ((List<MfaOtp>) findAll()).size();
+        }
+
+        @Override
+        public void deleteById(String id) {
+            entries.remove(id);
+        }
+
+        @Override
+        public void delete(MfaOtp entity) {
+            entries.remove(entity.getId());
+        }
+
+        @Override
+        public void deleteAllById(Iterable<? extends String> ids) {
+            ids.forEach(entries::remove);
+        }
+
+        @Override
+        public void deleteAll(Iterable<? extends MfaOtp> entities) {
+            entities.forEach(this::delete);
+        }
+
+        @Override
+        public void deleteAll() {
+            entries.clear();
+        }
+    }
+}
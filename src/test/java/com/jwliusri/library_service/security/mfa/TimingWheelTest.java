@@ -0,0 +1,48 @@
+package com.jwliusri.library_service.security.mfa;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_ShouldExpireKeyAtItsDeadline() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 0);
+        wheel.schedule("a", 5_000);
+
+        // Act & Assert
+        assertTrue(wheel.advance(4_000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldCascadeTimersFromHigherLevels() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 0);
+        wheel.schedule("minutes", 300_000);
+        wheel.schedule("hours", 7_200_000);
+
+        // Act & Assert
+        assertTrue(wheel.advance(299_000).isEmpty());
+        assertEquals(List.of("minutes"), wheel.advance(300_000));
+        assertTrue(wheel.advance(7_199_000).isEmpty());
+        assertEquals(List.of("hours"), wheel.advance(7_200_000));
+    }
+
+    @Test
+    void schedule_WithPastDeadline_ShouldExpireOnNextTick() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10_000);
+
+        // Act
+        wheel.schedule("late", 1_000);
+
+        // Assert
+        assertEquals(List.of("late"), wheel.advance(11_000));
+    }
+}
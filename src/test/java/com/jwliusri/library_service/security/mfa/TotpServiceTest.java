@@ -0,0 +1,185 @@
+package com.jwliusri.library_service.security.mfa;
+
+import com.jwliusri.library_service.security.auth.TotpEnrollmentResponseDto;
+import com.jwliusri.library_service.user.User;
+import com.jwliusri.library_service.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TotpServiceTest {
+
+    // RFC 6238 appendix B SHA1 seed
+    private static final byte[] RFC_SECRET = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TotpService totpService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        totpService = new TotpService(userRepository, "testMfaOtpSecretWithAtLeast32CharactersLong");
+        ReflectionTestUtils.setField(totpService, "issuer", "Library Service");
+        ReflectionTestUtils.setField(totpService, "skewSteps", 1);
+
+        testUser = new User();
+        testUser.setUsername("testuser");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+    }
+
+    @Test
+    void generateCode_ShouldMatchRfc6238TestVectors() {
+        assertEquals(287082, TotpService.generateCode(RFC_SECRET, 59 / 30));
+        assertEquals(81804, TotpService.generateCode(RFC_SECRET, 1111111109L / 30));
+        assertEquals(50471, TotpService.generateCode(RFC_SECRET, 1111111111L / 30));
+    }
+
+    @Test
+    void matches_ShouldAcceptCodesWithinSkewWindowOnly() {
+        long now = 1111111109L * 1000;
+        long step = now / 1000 / 30;
+
+        assertTrue(totpService.matches(RFC_SECRET, TotpService.generateCode(RFC_SECRET, step - 1), now));
+        assertTrue(totpService.matches(RFC_SECRET, TotpService.generateCode(RFC_SECRET, step + 1), now));
+        assertFalse(totpService.matches(RFC_SECRET, TotpService.generateCode(RFC_SECRET, step + 3), now));
+    }
+
+    @Test
+    void base32_ShouldEncodeRfc4648() {
+        assertEquals("MZXW6YTBOI", TotpService.base32("foobar".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void enroll_ShouldStoreEncryptedPendingSecretAndKeepTotpDisabled() {
+        // Act
+        TotpEnrollmentResponseDto response = totpService.enroll("testuser");
+
+        // Assert
+        assertNotNull(testUser.getTotpPendingSecret());
+        assertNull(testUser.getTotpSecret());
+        assertFalse(testUser.getTotpPendingSecret().contains(response.getSecret()));
+        assertFalse(testUser.isTotpEnabled());
+        assertTrue(response.getOtpauthUri().startsWith("otpauth://totp/Library%20Service%3Atestuser?secret=" + response.getSecret()));
+        verify(userRepository).save(testUser);
+    }
+
+    @Test
+    void confirm_WithValidCode_ShouldEnableTotp() {
+        // Arrange
+        totpService.enroll("testuser");
+        int code = TotpService.generateCode(decodeSecret(), System.currentTimeMillis() / 1000 / 30);
+
+        // Act
+        totpService.confirm("testuser", code);
+
+        // Assert
+        assertTrue(testUser.isTotpEnabled());
+        assertNotNull(testUser.getTotpSecret());
+        assertNull(testUser.getTotpPendingSecret());
+    }
+
+    @Test
+    void enroll_WithActiveTotp_ShouldKeepCurrentSecretUntilConfirmed() {
+        // Arrange
+        totpService.enroll("testuser");
+        byte[] oldSecret = decodeSecret();
+        totpService.confirm("testuser", TotpService.generateCode(oldSecret, System.currentTimeMillis() / 1000 / 30));
+        String activeSecret = testUser.getTotpSecret();
+
+        // Act
+        totpService.enroll("testuser");
+
+        // Assert
+        assertTrue(testUser.isTotpEnabled());
+        assertEquals(activeSecret, testUser.getTotpSecret());
+        assertNotNull(testUser.getTotpPendingSecret());
+        assertTrue(totpService.verify("testuser", TotpService.generateCode(oldSecret, System.currentTimeMillis() / 1000 / 30 + 1)));
+    }
+
+    @Test
+    void verify_WithSameCodeTwice_ShouldRejectReplay() {
+        // Arrange
+        totpService.enroll("testuser");
+        byte[] secret = decodeSecret();
+        long step = System.currentTimeMillis() / 1000 / 30;
+        totpService.confirm("testuser", TotpService.generateCode(secret, step - 1));
+        int code = TotpService.generateCode(secret, step);
+
+        // Act & Assert
+        assertTrue(totpService.verify("testuser", code));
+        assertFalse(totpService.verify("testuser", code));
+    }
+
+    @Test
+    void confirm_ThenVerifyWithSameCode_ShouldRejectReplay() {
+        // Arrange
+        totpService.enroll("testuser");
+        int code = TotpService.generateCode(decodeSecret(), System.currentTimeMillis() / 1000 / 30);
+
+        // Act
+        totpService.confirm("testuser", code);
+
+        // Assert
+        assertFalse(totpService.verify("testuser", code));
+    }
+
+    @Test
+    void confirm_WithInvalidCode_ShouldThrowBadRequest() {
+        // Arrange
+        totpService.enroll("testuser");
+        int code = (TotpService.generateCode(decodeSecret(), System.currentTimeMillis() / 1000 / 30) + 1) % 1_000_000;
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> totpService.confirm("testuser", code));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertFalse(testUser.isTotpEnabled());
+    }
+
+    @Test
+    void verify_WhenNotEnabled_ShouldReturnFalse() {
+        // Arrange
+        totpService.enroll("testuser");
+        int code = TotpService.generateCode(decodeSecret(), System.currentTimeMillis() / 1000 / 30);
+
+        // Act & Assert
+        assertFalse(totpService.verify("testuser", code));
+    }
+
+    @Test
+    void qrCode_ShouldRenderPng() {
+        // Arrange
+        totpService.enroll("testuser");
+
+        // Act
+        byte[] png = totpService.qrCode("testuser");
+
+        // Assert
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('P', png[1]);
+    }
+
+    // The pending enrollment when there is one, else the active secret
+    private byte[] decodeSecret() {
+        String encrypted = testUser.getTotpPendingSecret() != null ? testUser.getTotpPendingSecret() : testUser.getTotpSecret();
+        return (byte[]) ReflectionTestUtils.invokeMethod(totpService, "decryptSecret", encrypted);
+    }
+}
@@ -0,0 +1,45 @@
+package com.jwliusri.library_service.user;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverMissAddedValues() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+    }
+
+    @Test
+    void mightContain_ShouldStayNearConfiguredFalsePositiveRate() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(7, filter.hashCount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.jwliusri.library_service.user;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityFilterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UserAvailabilityFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new UserAvailabilityFilter(jdbcTemplate, 1000, 0.01, 100);
+    }
+
+    @Test
+    void mightContain_BeforeRebuild_ShouldDeferToDatabase() {
+        // Act & Assert
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContainUsername("anyone"));
+        assertTrue(filter.mightContainEmail("anyone@example.com"));
+    }
+
+    @Test
+    void rebuild_ShouldLoadAllNamesCaseInsensitive() throws Exception {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString("username")).thenReturn("Admin");
+            when(rs.getString("email")).thenReturn("admin@domain.com");
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContainUsername(" admin"));
+        assertTrue(filter.mightContainEmail("ADMIN@domain.com"));
+        assertFalse(filter.mightContainUsername("admin@domain.com"));
+        assertFalse(filter.mightContainUsername("newuser"));
+    }
+
+    @Test
+    void add_AfterRebuild_ShouldMarkNamesTaken() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+        filter.rebuild();
+
+        // Act
+        filter.add("NewUser", "new@example.com");
+
+        // Assert
+        assertTrue(filter.mightContainUsername("newuser"));
+        assertTrue(filter.mightContainEmail("new@example.com"));
+    }
+
+    @Test
+    void add_DuringRebuild_ShouldKeepNamesInRebuiltFilter() throws Exception {
+        // Arrange, the table is empty so only adds put names in the rebuilt filter
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+        AtomicReference<CountDownLatch> streaming = new AtomicReference<>();
+        doAnswer(invocation -> {
+            streaming.get().countDown();
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        for (int round = 0; round < 1000; round++) {
+            streaming.set(new CountDownLatch(1));
+            AtomicBoolean rebuilt = new AtomicBoolean();
+            List<String> added = new CopyOnWriteArrayList<>();
+            String prefix = "user" + round + "-";
+            Thread adder = new Thread(() -> {
+                try {
+                    streaming.get().await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Adds race the swap to the rebuilt filter, and keep going until it is done
+                for (int i = 0; !rebuilt.get() || i < 10; i++) {
+                    filter.add(prefix + i, null);
+                    added.add(prefix + i);
+                }
+            });
+            adder.start();
+
+            // Act
+            filter.rebuild();
+            rebuilt.set(true);
+            adder.join();
+
+            // Assert
+            for (String name : added) {
+                assertTrue(filter.mightContainUsername(name), name);
+            }
+        }
+    }
+
+    @Test
+    void rebuild_WhenDatabaseFails_ShouldKeepDeferringToDatabase() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContainUsername("anyone"));
+    }
+}
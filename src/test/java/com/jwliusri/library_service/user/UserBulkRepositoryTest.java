@@ -0,0 +1,57 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private UserBulkRepository repository;
+
+    @Test
+    void update_ShouldBuildOneStatementSkippingUnchangedRows() {
+        // Arrange
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder()
+                .ids(List.of(1L, 2L))
+                .filter(UserFilterDto.builder().locked(true).q("Sales_").build())
+                .role(RoleEnum.ROLE_EDITOR)
+                .unlock(true)
+                .build();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(2L));
+
+        // Act
+        List<Long> updated = repository.update(request);
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).queryForList(sql.capture(), eq(Long.class), args.capture());
+        assertEquals(List.of(2L), updated);
+        assertEquals("update users set role = ?, account_non_locked = true, failed_attempt = 0, failed_attempt_time = null, lock_time = null, "
+                + "updated_at = ? where id = any(?) and account_non_locked = ? "
+                + "and (lower(username) like ? or lower(email) like ? or lower(full_name) like ?) "
+                + "and (role <> ? or account_non_locked = false or failed_attempt <> 0) returning id", sql.getValue());
+        Object[] values = args.getValue();
+        assertEquals("ROLE_EDITOR", values[0]);
+        assertArrayEquals(new Long[] {1L, 2L}, (Long[]) values[2]);
+        assertEquals(false, values[3]);
+        assertEquals("sales\\_%", values[4]);
+        assertEquals("%sales\\_%", values[6]);
+        assertEquals("ROLE_EDITOR", values[7]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheEvictorTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private UserCacheEvictor evictor;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictUsers_InTransaction_ShouldWaitForCommit() {
+        // Arrange
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        evictor.evictUsers(List.of(1L, 2L));
+
+        // Assert
+        verifyNoInteractions(cache);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).evict(User.class, 1L);
+        verify(cache).evict(User.class, 2L);
+    }
+
+    @Test
+    void evictLookups_ShouldAlsoEvictQueryRegions() {
+        // Arrange
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        org.hibernate.Cache hibernateCache = mock(org.hibernate.Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(hibernateCache);
+
+        // Act
+        evictor.evictLookups(List.of(3L));
+
+        // Assert
+        verify(cache).evict(User.class, 3L);
+        verify(hibernateCache).evictQueryRegions();
+    }
+}
@@ -9,7 +9,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +23,12 @@ class UserControllerTests {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserImportService userImportService;
+
+    @Mock
+    private UserDeletionService userDeletionService;
+
     @InjectMocks
     private UserController userController;
 
@@ -48,17 +57,18 @@ class UserControllerTests {
     }
 
     @Test
-    void getAllUsers_ShouldReturnAllUsers() {
+    void getUsers_ShouldReturnPage() {
         // Arrange
-        when(userService.getAllUsers()).thenReturn(List.of(testResponse));
+        UserFilterDto filter = UserFilterDto.builder().q("test").build();
+        when(userService.getUsers(filter)).thenReturn(new UserPageDto(List.of(testResponse), null));
 
         // Act
-        List<UserResponseDto> result = userController.getAllUsers();
+        UserPageDto result = userController.getUsers(filter);
 
         // Assert
-        assertEquals(1, result.size());
-        assertEquals(testResponse, result.get(0));
-        verify(userService, times(1)).getAllUsers();
+        assertEquals(1, result.getItems().size());
+        assertEquals(testResponse, result.getItems().get(0));
+        verify(userService, times(1)).getUsers(filter);
     }
 
     @Test
@@ -142,30 +152,72 @@ class UserControllerTests {
     }
 
     @Test
-    void deleteUser_ShouldCallService() {
-        // Arrange - no return to verify since method is void
-        doNothing().when(userService).deleteUser(1L);
+    void deleteUser_ShouldStartDeletionJob() {
+        // Arrange
+        UserDeletionJobDto job = UserDeletionJobDto.builder().id(UUID.randomUUID()).userId(1L).reassignTo(2L).status("QUEUED").build();
+        when(userDeletionService.start(1L, 2L)).thenReturn(job);
 
         // Act
-        userController.deleteUser(1L);
+        UserDeletionJobDto result = userController.deleteUser(1L, 2L);
 
         // Assert
-        verify(userService, times(1)).deleteUser(1L);
+        assertEquals(job, result);
     }
 
     @Test
     void deleteUser_WhenNotFound_ShouldThrowException() {
         // Arrange
         doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))
-                .when(userService).deleteUser(99L);
+                .when(userDeletionService).start(99L, null);
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> userController.deleteUser(99L));
+                () -> userController.deleteUser(99L, null));
         
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     }
 
+    @Test
+    void bulkUpdate_ShouldCallService() {
+        // Arrange
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder().ids(List.of(1L, 2L)).unlock(true).build();
+        when(userService.bulkUpdate(request)).thenReturn(new UserBulkUpdateResultDto(2));
+
+        // Act
+        UserBulkUpdateResultDto result = userController.bulkUpdate(request);
+
+        // Assert
+        assertEquals(2, result.getUpdated());
+    }
+
+    @Test
+    void importUsers_ShouldStartJob() throws Exception {
+        // Arrange
+        InputStream body = new ByteArrayInputStream("fullName,username,email,password\n".getBytes());
+        UserImportJobDto job = UserImportJobDto.builder().id(UUID.randomUUID()).status("QUEUED").build();
+        when(userImportService.start("csv", body)).thenReturn(job);
+
+        // Act
+        UserImportJobDto result = userController.importUsers("csv", body);
+
+        // Assert
+        assertEquals(job, result);
+    }
+
+    @Test
+    void getImportJob_ShouldReturnJob() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        UserImportJobDto job = UserImportJobDto.builder().id(id).status("RUNNING").build();
+        when(userImportService.getJob(id, 100)).thenReturn(job);
+
+        // Act
+        UserImportJobDto result = userController.getImportJob(id, 100);
+
+        // Assert
+        assertEquals("RUNNING", result.getStatus());
+    }
+
     // @Test
     // void classAnnotations_ShouldBePresent() {
     //     // Verify class-level annotations
@@ -0,0 +1,147 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDeletionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UserCacheEvictor cacheEvictor;
+
+    private UserDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserDeletionService(jdbcTemplate, transactionTemplate, cacheEvictor, 2, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.stop();
+    }
+
+    private void runTransactions() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static UserDeletionJobDto job(UUID id, Long reassignTo, String status) {
+        return UserDeletionJobDto.builder().id(id).userId(1L).username("jdoe").reassignTo(reassignTo).status(status).build();
+    }
+
+    @Test
+    void start_ReassigningToSameUser_ShouldThrowBadRequest() {
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> service.start(1L, 1L));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void start_WhenUserNotFound_ShouldThrowNotFound() {
+        // Arrange
+        runTransactions();
+        when(jdbcTemplate.queryForList(startsWith("select id from user_deletion_jobs"), eq(UUID.class), eq(99L))).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("select username from users"), eq(String.class), eq(99L))).thenReturn(List.of());
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> service.start(99L, null));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(jdbcTemplate, never()).update(startsWith("update users set enabled = false"), any(Object[].class));
+    }
+
+    @Test
+    void start_WithUnknownReassignTarget_ShouldThrowBadRequest() {
+        // Arrange
+        runTransactions();
+        when(jdbcTemplate.queryForList(startsWith("select id from user_deletion_jobs"), eq(UUID.class), eq(1L))).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("select username from users"), eq(String.class), eq(1L))).thenReturn(List.of("jdoe"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(2L))).thenReturn(0L);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> service.start(1L, 2L));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void moveArticles_ShouldReassignOneBatchAndAdvanceJob() {
+        // Arrange
+        runTransactions();
+        UUID id = UUID.randomUUID();
+        lenient().when(jdbcTemplate.update(startsWith("update articles set author_id"), eq(2L), eq(1L), eq(2))).thenReturn(2);
+
+        // Act
+        int moved = service.moveArticles(job(id, 2L, "RUNNING"));
+
+        // Assert
+        assertEquals(2, moved);
+        verify(jdbcTemplate).update(startsWith("update user_deletion_jobs set processed_articles"), eq(2), any(), eq(id));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void run_ShouldDeleteArticlesInBatchesThenTheUser() {
+        // Arrange
+        runTransactions();
+        UUID id = UUID.randomUUID();
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(id))).thenReturn(job(id, null, "QUEUED"));
+        lenient().when(jdbcTemplate.update(startsWith("delete from articles"), eq(1L), eq(2))).thenReturn(2, 1, 0);
+
+        // Act
+        service.run(id);
+
+        // Assert
+        verify(jdbcTemplate, times(3)).update(startsWith("delete from articles"), eq(1L), eq(2));
+        verify(jdbcTemplate, times(2)).update(startsWith("update user_deletion_jobs set processed_articles"), anyInt(), any(), eq(id));
+        verify(jdbcTemplate).update("delete from users where id = ?", 1L);
+        verify(cacheEvictor).evictLookups(List.of(1L));
+        verify(jdbcTemplate).update(startsWith("update user_deletion_jobs set status"), eq("COMPLETED"), isNull(), any(), eq(id));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void run_WhenUserDeleteFails_ShouldMarkJobFailed() {
+        // Arrange
+        runTransactions();
+        UUID id = UUID.randomUUID();
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(id))).thenReturn(job(id, null, "RUNNING"));
+        lenient().when(jdbcTemplate.update("delete from users where id = ?", 1L))
+                .thenThrow(new org.springframework.dao.DataIntegrityViolationException("fk_articles_author"));
+
+        // Act
+        service.run(id);
+
+        // Assert
+        verify(jdbcTemplate).update(startsWith("update user_deletion_jobs set status"), eq("FAILED"), eq("fk_articles_author"), any(), eq(id));
+    }
+}
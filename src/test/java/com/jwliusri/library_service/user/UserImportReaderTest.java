@@ -0,0 +1,102 @@
+package com.jwliusri.library_service.user;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.jwliusri.library_service.user.UserImportReader.Format;
+import com.jwliusri.library_service.user.UserImportReader.Row;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportReaderTest {
+
+    private static UserImportReader reader(String text, Format format) throws Exception {
+        return new UserImportReader(new BufferedReader(new StringReader(text)), format);
+    }
+
+    @Test
+    void next_Csv_ShouldMapColumnsByHeader() throws Exception {
+        // Arrange
+        UserImportReader reader = reader("\uFEFFemail,password,username,fullName,role\n"
+                + "jdoe@example.com,secret,jdoe,\"Doe, John\",ROLE_EDITOR\n", Format.CSV);
+
+        // Act
+        Row row = reader.next();
+
+        // Assert
+        assertEquals(2, row.line());
+        assertNull(row.error());
+        assertEquals("Doe, John", row.user().getFullName());
+        assertEquals("jdoe", row.user().getUsername());
+        assertEquals("jdoe@example.com", row.user().getEmail());
+        assertEquals("secret", row.user().getPassword());
+        assertEquals(RoleEnum.ROLE_EDITOR, row.user().getRole());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_CsvWithUnknownRole_ShouldReturnError() throws Exception {
+        // Arrange
+        UserImportReader reader = reader("fullName,username,email,password,role\nJohn,jdoe,jdoe@example.com,secret,ROLE_ROOT\n", Format.CSV);
+
+        // Act
+        Row row = reader.next();
+
+        // Assert
+        assertNull(row.user());
+        assertEquals("Unknown role: ROLE_ROOT", row.error());
+    }
+
+    @Test
+    void constructor_CsvWithoutRequiredColumn_ShouldThrow() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> reader("fullName,username,email\n", Format.CSV));
+        assertEquals("CSV header is missing column password", exception.getMessage());
+    }
+
+    @Test
+    void next_Ndjson_ShouldParseEachLine() throws Exception {
+        // Arrange
+        UserImportReader reader = reader("{\"fullName\":\"John\",\"username\":\"jdoe\",\"email\":\"jdoe@example.com\",\"password\":\"secret\",\"extra\":1}\n"
+                + "\n"
+                + "{not json\n", Format.NDJSON);
+
+        // Act
+        Row first = reader.next();
+        Row blank = reader.next();
+        Row broken = reader.next();
+
+        // Assert
+        assertEquals("jdoe", first.user().getUsername());
+        assertNull(blank.user());
+        assertNull(blank.error());
+        assertEquals(3, broken.line());
+        assertTrue(broken.error().startsWith("Invalid JSON"));
+    }
+
+    @Test
+    void skip_ShouldResumeAfterProcessedRows() throws Exception {
+        // Arrange
+        UserImportReader reader = reader("fullName,username,email,password\n"
+                + "A,a,a@example.com,secret\n"
+                + "B,b,b@example.com,secret\n", Format.CSV);
+
+        // Act
+        reader.skip(1);
+        Row row = reader.next();
+
+        // Assert
+        assertEquals(3, row.line());
+        assertEquals("b", row.user().getUsername());
+    }
+
+    @Test
+    void splitCsv_ShouldUnescapeQuotes() {
+        // Act & Assert
+        assertEquals(List.of("say \"hi\"", "", "x"), UserImportReader.splitCsv("\"say \"\"hi\"\"\",,x"));
+    }
+}
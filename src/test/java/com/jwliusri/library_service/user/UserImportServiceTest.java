@@ -0,0 +1,229 @@
+package com.jwliusri.library_service.user;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jwliusri.library_service.user.UserImportReader.Row;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserAvailabilityFilter availabilityFilter;
+
+    @Mock
+    private UserCacheEvictor cacheEvictor;
+
+    @TempDir
+    private Path dir;
+
+    private ValidatorFactory validatorFactory;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        service = service(1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.stop();
+        validatorFactory.close();
+    }
+
+    private UserImportService service(int maxErrors) {
+        return new UserImportService(jdbcTemplate, transactionTemplate, passwordEncoder, validatorFactory.getValidator(),
+                availabilityFilter, cacheEvictor, dir.toString(), 1000, maxErrors, 2);
+    }
+
+    private static Row row(long line, String username, String email) {
+        return new Row(line, new UserRequestDto("Full Name", username, email, "secret", null), null);
+    }
+
+    private void runTransactions() {
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBatch_ShouldInsertValidRowsAndReportTheRest() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        runTransactions();
+        when(passwordEncoder.encode("secret")).thenReturn("hash");
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[] {1, 0});
+        List<Row> rows = List.of(
+                row(2, " jdoe ", "jdoe@example.com"),
+                row(3, "taken", "taken@example.com"),
+                row(4, "bad", "not-an-email"),
+                new Row(5, null, "Unknown role: ROLE_ROOT"),
+                new Row(6, null, null));
+        UserImportService.Progress progress = new UserImportService.Progress();
+
+        // Act
+        service.importBatch(id, rows, progress);
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> errors = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into user_import_errors"), errors.capture());
+        assertEquals(List.of(3L, 4L, 5L), errors.getValue().stream().map(error -> error[1]).toList());
+        assertEquals("Username or email already taken", errors.getValue().get(0)[2]);
+        assertEquals("email must be a valid email address", errors.getValue().get(1)[2]);
+        verify(jdbcTemplate).update(startsWith("update user_import_jobs set processed_rows"), eq(5), eq(1), eq(3), any(), eq(id));
+        verify(availabilityFilter).add(" jdoe ", "jdoe@example.com");
+        verify(cacheEvictor).evictLookups(List.of());
+        verify(passwordEncoder, times(2)).encode("secret");
+        assertEquals(5, progress.processed);
+        assertEquals(1, progress.imported);
+        assertEquals(3, progress.failed);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBatch_WhenBatchIsRejected_ShouldInsertRowByRow() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        runTransactions();
+        when(passwordEncoder.encode("secret")).thenReturn("hash");
+        when(jdbcTemplate.batchUpdate(startsWith("insert into users"), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("value too long for type character varying(255)"));
+        when(jdbcTemplate.update(startsWith("insert into users"), any(PreparedStatementSetter.class)))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("value too long for type character varying(255)"));
+        UserImportService.Progress progress = new UserImportService.Progress();
+
+        // Act
+        service.importBatch(id, List.of(row(2, "jdoe", "jdoe@example.com"), row(3, "jroe", "jroe@example.com")), progress);
+
+        // Assert
+        verify(jdbcTemplate).execute("rollback to savepoint import_batch");
+        verify(jdbcTemplate).execute("rollback to savepoint import_row");
+        ArgumentCaptor<List<Object[]>> errors = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into user_import_errors"), errors.capture());
+        assertEquals(1, errors.getValue().size());
+        assertEquals(3L, errors.getValue().get(0)[1]);
+        assertEquals("Rejected by the database", errors.getValue().get(0)[2]);
+        verify(availabilityFilter).add("jdoe", "jdoe@example.com");
+        assertEquals(1, progress.imported);
+        assertEquals(1, progress.failed);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBatch_WithTooLongField_ShouldReportRow() {
+        // Arrange
+        runTransactions();
+
+        // Act
+        service.importBatch(UUID.randomUUID(), List.of(row(2, "u".repeat(256), "long@example.com")), new UserImportService.Progress());
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> errors = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into user_import_errors"), errors.capture());
+        assertEquals("username must be at most 255 characters", errors.getValue().get(0)[2]);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("insert into users"), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBatch_ShouldKeepAtMostMaxErrors() throws Exception {
+        // Arrange
+        service.stop();
+        service = service(2);
+        runTransactions();
+        UserImportService.Progress progress = new UserImportService.Progress();
+        progress.failed = 1;
+
+        // Act
+        service.importBatch(UUID.randomUUID(), List.of(row(2, "", "a@example.com"), row(3, "", "b@example.com")), progress);
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> errors = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into user_import_errors"), errors.capture());
+        assertEquals(1, errors.getValue().size());
+        assertEquals(3, progress.failed);
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void spool_ShouldCountLines() throws Exception {
+        // Act & Assert
+        assertEquals(3, UserImportService.spool(new ByteArrayInputStream("a\nb\nc".getBytes(StandardCharsets.UTF_8)), dir.resolve("a")));
+        assertEquals(2, UserImportService.spool(new ByteArrayInputStream("a\nb\n".getBytes(StandardCharsets.UTF_8)), dir.resolve("b")));
+        assertEquals(0, UserImportService.spool(new ByteArrayInputStream(new byte[0]), dir.resolve("c")));
+    }
+
+    @Test
+    void start_WithOnlyHeader_ShouldThrowBadRequest() {
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.start("csv", new ByteArrayInputStream("fullName,username,email,password\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void start_WithUnknownFormat_ShouldThrowBadRequest() {
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.start("xml", new ByteArrayInputStream(new byte[0])));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getJob_WhenNotFound_ShouldThrowNotFound() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(id))).thenThrow(new EmptyResultDataAccessException(1));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> service.getJob(id, 10));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+}
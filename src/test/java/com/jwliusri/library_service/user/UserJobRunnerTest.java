@@ -0,0 +1,111 @@
+package com.jwliusri.library_service.user;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserJobRunnerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final CompletableFuture<UUID> ran = new CompletableFuture<>();
+
+    private UserJobRunner jobs;
+
+    @BeforeEach
+    void setUp() {
+        jobs = new UserJobRunner(jdbcTemplate, "import", ran::complete);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        jobs.stop();
+    }
+
+    @Test
+    void resume_WhenFailed_ShouldQueueAndRunJob() throws Exception {
+        // Arrange
+        UUID id = UUID.randomUUID();
+
+        // Act
+        jobs.resume(id, "FAILED");
+
+        // Assert
+        assertEquals(id, ran.get(5, TimeUnit.SECONDS));
+        verify(jdbcTemplate).update(eq("update user_import_jobs set status = ?, message = ?, updated_at = ? where id = ?"),
+                eq("QUEUED"), isNull(), any(), eq(id));
+    }
+
+    @Test
+    void resume_WhenCompleted_ShouldThrowConflict() {
+        // Act
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> jobs.resume(UUID.randomUUID(), "COMPLETED"));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals("Import job already completed", exception.getReason());
+        assertFalse(ran.isDone());
+    }
+
+    @Test
+    void resume_WhenRunning_ShouldLeaveJobAlone() {
+        // Act
+        jobs.resume(UUID.randomUUID(), "RUNNING");
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void resumeUnfinished_ShouldRunQueuedAndRunningJobs() throws Exception {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        when(jdbcTemplate.queryForList(
+                "select id from user_import_jobs where status in ('QUEUED', 'RUNNING') order by created_at", UUID.class))
+                .thenReturn(List.of(id));
+
+        // Act
+        jobs.resumeUnfinished();
+
+        // Assert
+        assertEquals(id, ran.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fail_WhenStatusUpdateFails_ShouldNotThrow() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        when(jdbcTemplate.update(anyString(), eq("FAILED"), eq("broken"), any(), eq(id)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> jobs.fail(id, new IllegalStateException("broken")));
+    }
+
+    @Test
+    void stop_ShouldMarkStopping() throws Exception {
+        // Act
+        jobs.stop();
+
+        // Assert
+        assertTrue(jobs.isStopping());
+    }
+}
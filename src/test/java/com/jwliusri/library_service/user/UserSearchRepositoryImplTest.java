@@ -0,0 +1,61 @@
+package com.jwliusri.library_service.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchRepositoryImplTest {
+
+    @Mock
+    private CriteriaBuilder cb;
+
+    @Mock
+    private Expression<Comparable<Object>> key;
+
+    @Mock
+    private Expression<Long> id;
+
+    @Mock
+    private Predicate bound;
+
+    @Mock
+    private Predicate rest;
+
+    @Test
+    void after_Ascending_ShouldBoundKeyFromBelow() {
+        // Arrange
+        when(cb.greaterThanOrEqualTo(eq(key), ArgumentMatchers.<Comparable<Object>>any())).thenReturn(bound);
+        when(cb.or(any(), any())).thenReturn(rest);
+
+        // Act
+        UserSearchRepositoryImpl.after(cb, key, id, "bob", 7L, true);
+
+        // Assert
+        verify(cb).and(bound, rest);
+        verify(cb).greaterThan(id, 7L);
+    }
+
+    @Test
+    void after_Descending_ShouldBoundKeyFromAbove() {
+        // Arrange
+        when(cb.lessThanOrEqualTo(eq(key), ArgumentMatchers.<Comparable<Object>>any())).thenReturn(bound);
+        when(cb.or(any(), any())).thenReturn(rest);
+
+        // Act
+        UserSearchRepositoryImpl.after(cb, key, id, "bob", 7L, false);
+
+        // Assert
+        verify(cb).and(bound, rest);
+        verify(cb).lessThan(id, 7L);
+    }
+}
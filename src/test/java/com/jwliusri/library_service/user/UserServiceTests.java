@@ -6,11 +6,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.jwliusri.library_service.user.UserSearchRepository.SortKey;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +34,15 @@ class UserServiceTests {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private UserAvailabilityFilter availabilityFilter;
+
+    @Mock
+    private UserBulkRepository userBulkRepository;
+
+    @Mock
+    private UserCacheEvictor cacheEvictor;
+
     @InjectMocks
     private UserService userService;
 
@@ -68,17 +81,82 @@ class UserServiceTests {
     }
 
     @Test
-    void getAllUsers_ShouldReturnAllUsers() {
+    void getUsers_WithMoreRowsThanSize_ShouldReturnPageAndCursor() {
         // Arrange
-        when(userRepository.findAll()).thenReturn(List.of(testUser));
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 1);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 500);
+        UserResponseDto next = new UserResponseDto(2L, "Other User", "other", "other@example.com", RoleEnum.ROLE_VIEWER, null, null);
+        UserFilterDto filter = UserFilterDto.builder().q("tes").build();
+        when(userRepository.search(filter, SortKey.ID, true, null, null, 2)).thenReturn(List.of(testResponse, next));
 
         // Act
-        List<UserResponseDto> result = userService.getAllUsers();
+        UserPageDto result = userService.getUsers(filter);
 
         // Assert
-        assertEquals(1, result.size());
-        assertEquals(testResponse.getFullName(), result.get(0).getFullName());
-        verify(userRepository, times(1)).findAll();
+        assertEquals(List.of(testResponse), result.getItems());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    void getUsers_WithCursor_ShouldContinueAfterLastRow() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "maxPageSize", 500);
+        String cursor = UserService.encodeCursor(SortKey.USERNAME, false, testResponse);
+        UserFilterDto filter = UserFilterDto.builder().sort("username").direction("desc").cursor(cursor).size(10).build();
+        when(userRepository.search(filter, SortKey.USERNAME, false, "testuser", 1L, 11)).thenReturn(List.of());
+
+        // Act
+        UserPageDto result = userService.getUsers(filter);
+
+        // Assert
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getUsers_WithCursorOfAnotherSort_ShouldThrowBadRequest() {
+        // Arrange
+        String cursor = UserService.encodeCursor(SortKey.ID, true, testResponse);
+        UserFilterDto filter = UserFilterDto.builder().sort("createdAt").cursor(cursor).build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.getUsers(filter));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void getUsers_WithTooShortSearchTerm_ShouldThrowBadRequest() {
+        // Arrange
+        UserFilterDto filter = UserFilterDto.builder().q(" te ").build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.getUsers(filter));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsers_WithUnknownSort_ShouldThrowBadRequest() {
+        // Arrange
+        UserFilterDto filter = UserFilterDto.builder().sort("password").build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.getUsers(filter));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void decodeCursor_WithSeparatorInUsername_ShouldKeepWholeValue() {
+        // Arrange
+        testResponse.setUsername("a|b");
+
+        // Act
+        UserService.Cursor cursor = UserService.decodeCursor(UserService.encodeCursor(SortKey.USERNAME, true, testResponse), SortKey.USERNAME, true);
+
+        // Assert
+        assertEquals("a|b", cursor.value());
+        assertEquals(1L, cursor.id());
     }
 
     @Test
@@ -137,7 +215,7 @@ class UserServiceTests {
     void createUser_ShouldCreateAndReturnUser() {
         // Arrange
         when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // Act
         UserResponseDto result = userService.createUser(testRequest);
@@ -145,7 +223,79 @@ class UserServiceTests {
         // Assert
         assertEquals(testResponse, result);
         verify(passwordEncoder, times(1)).encode("password");
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void checkAvailability_WhenFilterMisses_ShouldNotQueryDatabase() {
+        // Arrange
+        when(availabilityFilter.mightContainUsername("newuser")).thenReturn(false);
+
+        // Act
+        UserAvailabilityDto result = userService.checkAvailability("newuser", null);
+
+        // Assert
+        assertTrue(result.getUsernameAvailable());
+        assertNull(result.getEmailAvailable());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void checkAvailability_WhenFilterHits_ShouldConfirmWithDatabase() {
+        // Arrange
+        when(availabilityFilter.mightContainUsername("testuser")).thenReturn(true);
+        when(availabilityFilter.mightContainEmail("free@example.com")).thenReturn(true);
+        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+        when(userRepository.existsByEmail("free@example.com")).thenReturn(false);
+
+        // Act
+        UserAvailabilityDto result = userService.checkAvailability("testuser", "free@example.com");
+
+        // Assert
+        assertFalse(result.getUsernameAvailable());
+        assertTrue(result.getEmailAvailable());
+    }
+
+    @Test
+    void createUser_ShouldAddNamesToAvailabilityFilter() {
+        // Arrange
+        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
+
+        // Act
+        userService.createUser(testRequest);
+
+        // Assert
+        verify(availabilityFilter).add("testuser", "test@example.com");
+    }
+
+    @Test
+    void createUser_WithTakenEmail_ShouldThrowConflict() {
+        // Arrange
+        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new RuntimeException("duplicate key value violates unique constraint \"uk_users_email\"")));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.createUser(testRequest));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals("Email already taken", exception.getReason());
+        verify(availabilityFilter, never()).add(any(), any());
+    }
+
+    @Test
+    void createUser_ShouldTrimUsernameAndEmail() {
+        // Arrange
+        testRequest.setUsername(" testuser ");
+        testRequest.setEmail(" test@example.com");
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        UserResponseDto result = userService.createUser(testRequest);
+
+        // Assert
+        assertEquals("testuser", result.getUsername());
+        assertEquals("test@example.com", result.getEmail());
     }
 
     @Test
@@ -161,7 +311,7 @@ class UserServiceTests {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(passwordEncoder.encode("newpassword")).thenReturn("newEncodedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setFullName(updateRequest.getFullName());
             user.setUsername(updateRequest.getUsername());
@@ -179,7 +329,7 @@ class UserServiceTests {
         assertEquals("updateduser", result.getUsername());
         assertEquals("updated@example.com", result.getEmail());
         assertEquals(RoleEnum.ROLE_EDITOR, result.getRole());
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
     }
 
     @Test
@@ -194,7 +344,7 @@ class UserServiceTests {
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setFullName(updateRequest.getFullName());
             user.setUsername(updateRequest.getUsername());
@@ -223,7 +373,7 @@ class UserServiceTests {
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setFullName(updateRequest.getFullName());
             user.setUsername(updateRequest.getUsername());
@@ -252,33 +402,6 @@ class UserServiceTests {
         assertEquals("User not found", exception.getReason());
     }
 
-    @Test
-    void deleteUser_ShouldDeleteUser() {
-        // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        doNothing().when(userRepository).delete(testUser);
-
-        // Act
-        userService.deleteUser(1L);
-
-        // Assert
-        verify(userRepository, times(1)).delete(testUser);
-    }
-
-    @Test
-    void deleteUser_WhenNotFound_ShouldThrowException() {
-        // Arrange
-        when(userRepository.findById(99L)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> userService.deleteUser(99L));
-        
-        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        assertEquals("User not found", exception.getReason());
-        verify(userRepository, never()).delete(any());
-    }
-
     @Test
     void getAuthUser_ShouldReturnUser() {
         // Arrange
@@ -319,4 +442,60 @@ class UserServiceTests {
         assertEquals(testUser.getEmail(), result.getEmail());
         assertEquals(testUser.getRole(), result.getRole());
     }
-}
\ No newline at end of file
+
+    @Test
+    void bulkUpdate_ShouldUpdateSelectionAndEvictChangedUsers() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "maxBulkIds", 10);
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder()
+                .filter(UserFilterDto.builder().role(RoleEnum.ROLE_VIEWER).build())
+                .role(RoleEnum.ROLE_EDITOR)
+                .build();
+        when(userBulkRepository.update(request)).thenReturn(List.of(1L, 2L));
+
+        // Act
+        UserBulkUpdateResultDto result = userService.bulkUpdate(request);
+
+        // Assert
+        assertEquals(2, result.getUpdated());
+        verify(cacheEvictor).evictUsers(List.of(1L, 2L));
+    }
+
+    @Test
+    void bulkUpdate_WithoutSelection_ShouldThrowBadRequest() {
+        // Arrange
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder()
+                .filter(UserFilterDto.builder().q(" ").build())
+                .unlock(true)
+                .build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.bulkUpdate(request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals("ids or filter is required", exception.getReason());
+        verifyNoInteractions(userBulkRepository);
+    }
+
+    @Test
+    void bulkUpdate_WithTooManyIds_ShouldThrowBadRequest() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "maxBulkIds", 2);
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder().ids(List.of(1L, 2L, 3L)).disable(true).build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.bulkUpdate(request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(userBulkRepository);
+    }
+
+    @Test
+    void bulkUpdate_WithoutChanges_ShouldThrowBadRequest() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "maxBulkIds", 10);
+        UserBulkUpdateDto request = UserBulkUpdateDto.builder().ids(List.of(1L)).build();
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> userService.bulkUpdate(request));
+        assertEquals("Nothing to update", exception.getReason());
+    }
+}